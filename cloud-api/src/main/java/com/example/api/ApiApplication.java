@@ -2,11 +2,13 @@ package com.example.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import com.example.api.config.SecurityProperties;
 
-@SpringBootApplication
+// 用户来自网关签名的请求头, 不需要默认生成的内存用户
+@SpringBootApplication(exclude = UserDetailsServiceAutoConfiguration.class)
 @EnableDiscoveryClient
 @EnableConfigurationProperties(SecurityProperties.class)
 public class ApiApplication {
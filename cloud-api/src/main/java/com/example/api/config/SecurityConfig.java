@@ -0,0 +1,74 @@
+package com.example.api.config;
+
+import com.example.api.filter.AuthorityDictionaryClient;
+import com.example.api.filter.TrustedHeaderAuthenticationFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+
+/**
+ * 认证由网关完成, 本服务只信任网关签名的用户头, 无状态、不创建session
+ */
+@Configuration
+@EnableWebSecurity
+@EnableMethodSecurity
+@RequiredArgsConstructor
+public class SecurityConfig {
+
+    private final SecurityProperties securityProperties;
+
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   AuthorityDictionaryClient authorityDictionaryClient) throws Exception {
+        http
+            .csrf(AbstractHttpConfigurer::disable)
+            .formLogin(AbstractHttpConfigurer::disable)
+            .httpBasic(AbstractHttpConfigurer::disable)
+            .logout(AbstractHttpConfigurer::disable)
+            .requestCache(AbstractHttpConfigurer::disable)
+            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+            .securityContext(context -> context.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+            .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+            .authorizeHttpRequests(authorize -> {
+                if (!securityProperties.getPublicUrls().isEmpty()) {
+                    authorize.requestMatchers(securityProperties.getPublicUrls().toArray(String[]::new)).permitAll();
+                }
+                authorize.anyRequest().authenticated();
+            })
+            .addFilterBefore(new TrustedHeaderAuthenticationFilter(securityProperties.getTrustedHeader(),
+                    authorityDictionaryClient), AnonymousAuthenticationFilter.class);
+        return http.build();
+    }
+
+    @Bean
+    public AuthorityDictionaryClient authorityDictionaryClient(RestTemplate loadBalancedRestTemplate) {
+        return new AuthorityDictionaryClient(loadBalancedRestTemplate, securityProperties.getTrustedHeader());
+    }
+
+    /**
+     * 按服务名调用cloud-security
+     */
+    @Bean
+    @LoadBalanced
+    public RestTemplate loadBalancedRestTemplate(RestTemplateBuilder builder) {
+        return builder
+            .setConnectTimeout(Duration.ofMillis(500))
+            .setReadTimeout(Duration.ofSeconds(2))
+            .build();
+    }
+}
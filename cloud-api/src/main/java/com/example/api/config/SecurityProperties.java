@@ -0,0 +1,40 @@
+package com.example.api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "security")
+public class SecurityProperties {
+
+    /**
+     * 无需认证的路径(Ant风格)
+     */
+    private List<String> publicUrls = new ArrayList<>();
+
+    private TrustedHeader trustedHeader = new TrustedHeader();
+
+    @Data
+    public static class TrustedHeader {
+        /**
+         * 校验网关X-User-*请求头签名的HMAC密钥
+         */
+        private String secret;
+        /**
+         * 缓存的角色/权限组合数上限
+         */
+        private long authorityCacheSize = 10_000;
+        /**
+         * 解码紧凑格式用户头(X-User-Authority-Version)的角色/权限字典
+         */
+        private String dictionaryUri = "http://cloud-security/auth/authorities/dictionary";
+        /**
+         * 请求头中的字典版本与本地不一致时触发拉取的最小间隔
+         */
+        private Duration dictionaryMinRefreshInterval = Duration.ofSeconds(10);
+    }
+}
@@ -1,22 +1,97 @@
 package com.example.api.controller;
 
+import com.example.api.filter.TrustedHeaderAuthenticationFilter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.RequestEntity;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
-import java.util.Arrays;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
+/**
+ * 用户数据由cloud-security维护, 列表、导出和统计按服务名转发到其/auth/users接口,
+ * 并带上网关签名的X-User-*头, cloud-security据此校验管理员身份
+ */
+@Slf4j
 @RestController
 @RequestMapping("/api/admin")
+@PreAuthorize("hasRole('ADMIN')")
 public class AdminController {
 
+    private static final List<String> TRUSTED_HEADERS = List.of(
+        TrustedHeaderAuthenticationFilter.USER_ID, TrustedHeaderAuthenticationFilter.USER_ROLES,
+        TrustedHeaderAuthenticationFilter.USER_PERMISSIONS, TrustedHeaderAuthenticationFilter.USER_EXPIRES,
+        TrustedHeaderAuthenticationFilter.USER_SIGNATURE, TrustedHeaderAuthenticationFilter.USER_AUTHORITY_VERSION);
+
+    private final RestTemplate restTemplate;
+    private final String usersUri;
+
+    public AdminController(@Qualifier("loadBalancedRestTemplate") RestTemplate restTemplate,
+                           @Value("${admin.users-uri:http://cloud-security/auth/users}") String usersUri) {
+        this.restTemplate = restTemplate;
+        this.usersUri = usersUri;
+    }
+
+    /**
+     * 按id游标分页, 响应中的nextCursor作为下一页的cursor参数, 为null时已是最后一页
+     */
     @GetMapping("/users")
-    public List<String> getAllUsers() {
-        // 模拟获取所有用户列表
-        return Arrays.asList("user1", "user2", "user3");
+    public JsonNode getAllUsers(@RequestParam(required = false) Long cursor,
+                                @RequestParam(defaultValue = "50") int limit,
+                                @RequestParam(required = false) Boolean enabled,
+                                @RequestParam(required = false) String role,
+                                HttpServletRequest request) {
+        URI uri = UriComponentsBuilder.fromUriString(usersUri)
+            .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+            .queryParam("limit", limit)
+            .queryParamIfPresent("enabled", Optional.ofNullable(enabled))
+            .queryParamIfPresent("role", Optional.ofNullable(role))
+            .build().encode().toUri();
+        return restTemplate.exchange(RequestEntity.get(uri).headers(trustedHeaders(request)).build(), JsonNode.class)
+            .getBody();
+    }
+
+    /**
+     * NDJSON逐行转发, 不在本服务缓冲
+     */
+    @GetMapping("/users/export")
+    public void exportUsers(@RequestParam(required = false) Long cursor,
+                            @RequestParam(required = false) Boolean enabled,
+                            @RequestParam(required = false) String role,
+                            HttpServletRequest request,
+                            HttpServletResponse response) {
+        URI uri = UriComponentsBuilder.fromUriString(usersUri).path("/export")
+            .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+            .queryParamIfPresent("enabled", Optional.ofNullable(enabled))
+            .queryParamIfPresent("role", Optional.ofNullable(role))
+            .build().encode().toUri();
+        HttpHeaders headers = trustedHeaders(request);
+        restTemplate.execute(uri, HttpMethod.GET, upstreamRequest -> upstreamRequest.getHeaders().addAll(headers), upstream -> {
+            response.setContentType("application/x-ndjson");
+            return StreamUtils.copy(upstream.getBody(), response.getOutputStream());
+        });
     }
 
     @PostMapping("/users/{username}/disable")
@@ -26,13 +101,39 @@ public class AdminController {
     }
 
     @GetMapping("/system/stats")
-    @PreAuthorize("hasRole('ADMIN')")
-    public Map<String, Object> getSystemStats() {
-        // 模拟系统统计信息
-        return Map.of(
-            "totalUsers", 100,
-            "activeUsers", 85,
-            "systemLoad", 0.75
-        );
-    }
-} 
\ No newline at end of file
+    public JsonNode getSystemStats(HttpServletRequest request) {
+        // totalUsers, activeUsers, liveSessions
+        RequestEntity<Void> statsRequest = RequestEntity.get(URI.create(usersUri + "/stats"))
+            .headers(trustedHeaders(request)).build();
+        ObjectNode stats = restTemplate.exchange(statsRequest, ObjectNode.class).getBody();
+        if (stats != null) {
+            // 不可用时为负数
+            stats.put("systemLoad", ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage());
+        }
+        return stats;
+    }
+
+    private static HttpHeaders trustedHeaders(HttpServletRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        for (String name : TRUSTED_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                headers.set(name, value);
+            }
+        }
+        return headers;
+    }
+
+    // cloud-security返回的错误原样转发
+    @ExceptionHandler(HttpStatusCodeException.class)
+    public ResponseEntity<String> upstreamError(HttpStatusCodeException e) {
+        return ResponseEntity.status(e.getStatusCode()).contentType(MediaType.APPLICATION_JSON)
+            .body(e.getResponseBodyAsString());
+    }
+
+    @ExceptionHandler(RestClientException.class)
+    public ResponseEntity<Map<String, String>> upstreamUnavailable(RestClientException e) {
+        log.warn("User service unavailable: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "User service unavailable"));
+    }
+}
@@ -1,15 +1,22 @@
 package com.example.api.controller;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
+
 @RestController
 @RequestMapping("/public")
 public class PublicController {
 
+    // 允许网关和客户端缓存
     @GetMapping("/info")
-    public String getPublicInfo() {
-        return "This is public information that anyone can access";
+    public ResponseEntity<String> getPublicInfo() {
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(Duration.ofSeconds(60)).cachePublic())
+            .body("This is public information that anyone can access");
     }
-} 
\ No newline at end of file
+}
@@ -1,5 +1,8 @@
 package com.example.api.controller;
 
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.Map;
@@ -9,10 +12,11 @@ import java.util.Map;
 public class UserController {
 
     @GetMapping("/profile")
-    public Map<String, Object> getUserProfile(@RequestHeader("Authorization") String token) {
-        // 从token中获取用户信息（token已经在网关层验证过了）
+    public Map<String, Object> getUserProfile(@AuthenticationPrincipal UserDetails currentUser) {
+        // 用户信息来自网关签名的请求头（token已经在网关层验证过了）
         Map<String, Object> profile = new HashMap<>();
-        profile.put("username", "当前登录用户");
+        profile.put("username", currentUser.getUsername());
+        profile.put("authorities", AuthorityUtils.authorityListToSet(currentUser.getAuthorities()));
         profile.put("email", "user@example.com");
         return profile;
     }
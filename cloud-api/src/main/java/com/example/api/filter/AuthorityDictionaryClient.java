@@ -0,0 +1,125 @@
+package com.example.api.filter;
+
+import com.example.api.config.SecurityProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * cloud-security的角色/权限字典, 解码网关转发的紧凑格式用户头.
+ * 只在请求头中的字典版本与本地不一致时按ETag条件拉取, 拉取失败时保留原字典
+ */
+@Slf4j
+public class AuthorityDictionaryClient {
+
+    private final RestTemplate restTemplate;
+    private final String uri;
+    private final long minRefreshIntervalNanos;
+    private volatile Dictionary dictionary = Dictionary.EMPTY;
+    // 拉取期间持有锁(阻塞HTTP调用), 用ReentrantLock而不是synchronized, 虚拟线程等待时不会钉住载体线程
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private long nextRefreshAllowed = System.nanoTime();
+
+    public AuthorityDictionaryClient(RestTemplate restTemplate, SecurityProperties.TrustedHeader properties) {
+        this.restTemplate = restTemplate;
+        this.uri = properties.getDictionaryUri();
+        this.minRefreshIntervalNanos = properties.getDictionaryMinRefreshInterval().toNanos();
+    }
+
+    /**
+     * 返回本地字典, 版本与version不一致时先尝试刷新; 刷新受最小间隔限制, 返回的字典版本可能仍不一致
+     */
+    public Dictionary get(String version) {
+        Dictionary current = dictionary;
+        if (current.version() != null && current.version().equals(version)) {
+            return current;
+        }
+        refreshLock.lock();
+        try {
+            current = dictionary;
+            if (current.version() != null && current.version().equals(version)) {
+                return current;
+            }
+            long now = System.nanoTime();
+            if (now - nextRefreshAllowed >= 0) {
+                nextRefreshAllowed = now + minRefreshIntervalNanos;
+                fetch(current);
+            }
+            return dictionary;
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    private void fetch(Dictionary current) {
+        HttpHeaders headers = new HttpHeaders();
+        if (current.version() != null) {
+            headers.setIfNoneMatch("\"" + current.version() + "\"");
+        }
+        try {
+            ResponseEntity<JsonNode> response = restTemplate.exchange(uri, HttpMethod.GET, new HttpEntity<>(headers), JsonNode.class);
+            JsonNode body = response.getBody();
+            // 304时body为空, 保留当前字典
+            if (response.getStatusCode().is2xxSuccessful() && body != null) {
+                this.dictionary = new Dictionary(body.path("version").asText(null),
+                    ids(body.path("roles")), ids(body.path("permissions")));
+                log.info("Loaded authority dictionary version {}", dictionary.version());
+            }
+        } catch (RestClientException e) {
+            log.warn("Failed to fetch authority dictionary from {}: {}", uri, e.getMessage());
+        }
+    }
+
+    private static Map<Long, String> ids(JsonNode node) {
+        Map<Long, String> names = new HashMap<>();
+        node.fields().forEachRemaining(entry -> names.put(Long.parseLong(entry.getKey()), entry.getValue().asText()));
+        return names;
+    }
+
+    /**
+     * 数据库id不复用, 用不同版本的字典解码结果一致; 本地字典缺少的id(新增的角色/权限)解码时忽略
+     */
+    public record Dictionary(String version, Map<Long, String> roles, Map<Long, String> permissions) {
+
+        static final Dictionary EMPTY = new Dictionary(null, Map.of(), Map.of());
+
+        /**
+         * @param ids 逗号分隔的角色id
+         */
+        public List<String> decodeRoles(String ids) {
+            List<String> names = new ArrayList<>();
+            for (String id : ids.split(",")) {
+                if (!id.isBlank()) {
+                    String name = roles.get(Long.parseLong(id.trim()));
+                    if (name != null) {
+                        names.add(name);
+                    }
+                }
+            }
+            return names;
+        }
+
+        /**
+         * @param encoded 以权限id为下标的位图(BitSet字节序), base64url
+         */
+        public List<String> decodePermissions(String encoded) {
+            BitSet bits = BitSet.valueOf(Base64.getUrlDecoder().decode(encoded));
+            List<String> names = new ArrayList<>(bits.cardinality());
+            for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+                String name = permissions.get((long) id);
+                if (name != null) {
+                    names.add(name);
+                }
+            }
+            return names;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.api.filter;
+
+import com.example.api.config.SecurityProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * 根据网关签名的X-User-*请求头建立安全上下文:
+ * 只校验HMAC签名和过期时间, 不再解析或校验JWT, 也不创建session.
+ * 签名缺失、错误或已过期时按未认证处理, 受保护的路径返回401.
+ * 带X-User-Authority-Version时角色为id列表、权限为位图, 按该版本的字典解码
+ */
+@Slf4j
+public class TrustedHeaderAuthenticationFilter extends OncePerRequestFilter {
+
+    // 与网关TrustedHeaderSigner保持一致
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_ROLES = "X-User-Roles";
+    public static final String USER_PERMISSIONS = "X-User-Permissions";
+    public static final String USER_EXPIRES = "X-User-Expires";
+    public static final String USER_SIGNATURE = "X-User-Signature";
+    public static final String USER_AUTHORITY_VERSION = "X-User-Authority-Version";
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    // 初始化好的Mac, 每次clone一份使用, 不依赖请求线程模型(平台线程或虚拟线程)
+    private final Mac prototype;
+    // roles\npermissions(紧凑格式为version\nroles\npermissions) -> 解析后的权限列表, 同一角色组合的用户共享
+    private final Cache<String, List<GrantedAuthority>> authorityCache;
+    private final AuthorityDictionaryClient dictionaryClient;
+
+    public TrustedHeaderAuthenticationFilter(SecurityProperties.TrustedHeader properties,
+                                             AuthorityDictionaryClient dictionaryClient) {
+        if (!StringUtils.hasText(properties.getSecret())) {
+            throw new IllegalStateException("security.trusted-header.secret must be set");
+        }
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(properties.getSecret().getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        this.authorityCache = Caffeine.newBuilder()
+            .maximumSize(properties.getAuthorityCacheSize())
+            .build();
+        this.dictionaryClient = dictionaryClient;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        String username = request.getHeader(USER_ID);
+        if (username == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String roles = nullToEmpty(request.getHeader(USER_ROLES));
+        String permissions = nullToEmpty(request.getHeader(USER_PERMISSIONS));
+        String expires = request.getHeader(USER_EXPIRES);
+        String signature = request.getHeader(USER_SIGNATURE);
+        String authorityVersion = request.getHeader(USER_AUTHORITY_VERSION);
+        List<GrantedAuthority> authorities = null;
+        if (isTrusted(username, roles, permissions, expires, authorityVersion, signature)) {
+            try {
+                authorities = authorityVersion == null
+                    ? authorityCache.get(roles + "\n" + permissions, key -> parseAuthorities(roles, permissions))
+                    : compactAuthorities(authorityVersion, roles, permissions);
+            } catch (IllegalArgumentException e) {
+                log.debug("Malformed user authorities: {}", e.getMessage());
+            }
+        }
+        if (authorities == null) {
+            log.warn("Rejected untrusted user headers for: {}", username);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        User principal = new User(username, "", authorities);
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities));
+        SecurityContextHolder.setContext(context);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private boolean isTrusted(String username, String roles, String permissions, String expires,
+                              String authorityVersion, String signature) {
+        if (expires == null || signature == null) {
+            return false;
+        }
+        try {
+            // 签名随token过期
+            if (Long.parseLong(expires) < System.currentTimeMillis()) {
+                return false;
+            }
+            String payload = username + "\n" + roles + "\n" + permissions + "\n" + expires;
+            if (authorityVersion != null) {
+                payload += "\n" + authorityVersion;
+            }
+            byte[] expected = ((Mac) prototype.clone()).doFinal(payload.getBytes(StandardCharsets.UTF_8));
+            return MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(signature));
+        } catch (IllegalArgumentException | CloneNotSupportedException e) {
+            return false;
+        }
+    }
+
+    private List<GrantedAuthority> compactAuthorities(String authorityVersion, String roles, String permissions) {
+        String key = authorityVersion + "\n" + roles + "\n" + permissions;
+        List<GrantedAuthority> cached = authorityCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        AuthorityDictionaryClient.Dictionary dictionary = dictionaryClient.get(authorityVersion);
+        List<GrantedAuthority> authorities = toAuthorities(dictionary.decodeRoles(roles),
+            permissions.isEmpty() ? List.of() : dictionary.decodePermissions(permissions));
+        // 字典版本不一致时可能缺少新增的角色/权限, 不缓存, 刷新字典后重新解码
+        if (authorityVersion.equals(dictionary.version())) {
+            authorityCache.put(key, authorities);
+        }
+        return authorities;
+    }
+
+    private static List<GrantedAuthority> parseAuthorities(String roles, String permissions) {
+        return toAuthorities(Arrays.asList(StringUtils.commaDelimitedListToStringArray(roles)),
+            Arrays.asList(StringUtils.commaDelimitedListToStringArray(permissions)));
+    }
+
+    private static List<GrantedAuthority> toAuthorities(List<String> roles, List<String> permissions) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (String role : roles) {
+            if (!role.isBlank()) {
+                authorities.add(new SimpleGrantedAuthority(ROLE_PREFIX + role.trim()));
+            }
+        }
+        for (String permission : permissions) {
+            if (!permission.isBlank()) {
+                authorities.add(new SimpleGrantedAuthority(permission.trim()));
+            }
+        }
+        return List.copyOf(authorities);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.benchmarks;
+
+import com.example.benchmarks.support.Fixtures;
+import com.example.gateway.auth.CachingTokenValidator;
+import com.example.gateway.auth.LocalTokenValidator;
+import com.example.gateway.auth.TokenRevocationRegistry;
+import com.example.gateway.auth.TokenValidator;
+import com.example.gateway.config.AuthProperties;
+import com.example.gateway.filter.AuthGlobalFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关鉴权过滤器每个请求的开销(本地验签, 可选结果缓存), 下游链路为空操作
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthGlobalFilterBenchmark {
+
+    private static final GatewayFilterChain NOOP_CHAIN = exchange -> Mono.empty();
+
+    @Param({"false", "true"})
+    public boolean cached;
+
+    private AuthGlobalFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setup() {
+        // 不调用init(), 吊销表保持为空且不连接Redis
+        TokenRevocationRegistry revocationRegistry = new TokenRevocationRegistry(null);
+        TokenValidator validator = new LocalTokenValidator(Fixtures.SECRET, revocationRegistry);
+        if (cached) {
+            validator = new CachingTokenValidator(validator, new AuthProperties.Cache(), revocationRegistry, new SimpleMeterRegistry());
+        }
+        filter = new AuthGlobalFilter(validator, Fixtures.authPolicyRegistry(), Fixtures.trustedHeaderSigner(),
+            new SimpleMeterRegistry());
+
+        String token = Fixtures.jwtService()
+            .generateAccessToken(Fixtures.USERNAME, Fixtures.SESSION_ID, Fixtures.ROLES, Fixtures.PERMISSIONS);
+        authorization = "Bearer " + token;
+    }
+
+    @Benchmark
+    public Void protectedRequest() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/api/users/profile").header(HttpHeaders.AUTHORIZATION, authorization));
+        return filter.filter(exchange, NOOP_CHAIN).block();
+    }
+
+    // 路由策略要求ADMIN角色
+    @Benchmark
+    public Void adminRequest() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("/api/admin/users").header(HttpHeaders.AUTHORIZATION, authorization));
+        return filter.filter(exchange, NOOP_CHAIN).block();
+    }
+
+    @Benchmark
+    public Void whitelistedRequest() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/public/info"));
+        return filter.filter(exchange, NOOP_CHAIN).block();
+    }
+}
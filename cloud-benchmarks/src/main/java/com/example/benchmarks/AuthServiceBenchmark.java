@@ -0,0 +1,89 @@
+package com.example.benchmarks;
+
+import cn.hutool.crypto.digest.BCrypt;
+import com.example.benchmarks.support.Fixtures;
+import com.example.benchmarks.support.InMemoryMappers;
+import com.example.security.dto.AuthRequest;
+import com.example.security.dto.AuthResponse;
+import com.example.security.entity.User;
+import com.example.security.mapper.UserMapper;
+import com.example.security.service.AuthService;
+import com.example.security.service.UserLookupService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录路径的开销, 主要是BCrypt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthServiceBenchmark {
+
+    private static final String PASSWORD = "password";
+
+    private AuthService authService;
+    private AuthRequest request;
+    private AuthRequest unknownUserRequest;
+    private String passwordHash;
+
+    @Setup
+    public void setup() {
+        passwordHash = BCrypt.hashpw(PASSWORD);
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername(Fixtures.USERNAME);
+        user.setPassword(passwordHash);
+        user.setEnabled(true);
+
+        UserMapper userMapper = InMemoryMappers.userMapper(user, Fixtures.ROLES, Fixtures.PERMISSIONS);
+        UserLookupService userLookupService = Fixtures.userLookupService(userMapper);
+        authService = new AuthService(
+            Fixtures.jwtService(),
+            Fixtures.authorizationService(userMapper, InMemoryMappers.roleMapper(Fixtures.ROLES, Fixtures.PERMISSIONS),
+                userLookupService),
+            userMapper,
+            userLookupService,
+            null,
+            InMemoryMappers.userRoleMapper(),
+            Fixtures.passwordHasher(),
+            null,
+            new SimpleMeterRegistry());
+        // 签发token直接在哈希线程上执行
+        ReflectionTestUtils.setField(authService, "taskExecutor", (Executor) Runnable::run);
+
+        request = new AuthRequest();
+        request.setUsername(Fixtures.USERNAME);
+        request.setPassword(PASSWORD);
+
+        unknownUserRequest = new AuthRequest();
+        unknownUserRequest.setUsername("no-such-user");
+        unknownUserRequest.setPassword(PASSWORD);
+    }
+
+    @Benchmark
+    public boolean checkpw() {
+        return BCrypt.checkpw(PASSWORD, passwordHash);
+    }
+
+    @Benchmark
+    public AuthResponse authenticate() {
+        return authService.authenticate(request).join();
+    }
+
+    /**
+     * 不存在的用户名由布隆过滤器拦截, 不查库也不做BCrypt
+     */
+    @Benchmark
+    public boolean authenticateUnknownUser() {
+        return authService.authenticate(unknownUserRequest).isCompletedExceptionally();
+    }
+}
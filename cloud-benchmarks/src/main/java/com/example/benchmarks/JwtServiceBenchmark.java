@@ -0,0 +1,72 @@
+package com.example.benchmarks;
+
+import com.example.benchmarks.support.Fixtures;
+import com.example.security.dto.TokenClaims;
+import com.example.security.service.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.security.Key;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * token签发、解析和校验的开销; legacyValidate 复现了单次解析改造前 /auth/validate 的四次解析
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtServiceBenchmark {
+
+    // compact: 角色id + 权限位图, 对比token长度和解码开销
+    @Param({"full", "compact"})
+    private String claimsFormat;
+
+    private JwtService jwtService;
+    private Key key;
+    private String accessToken;
+
+    @Setup
+    public void setup() {
+        jwtService = Fixtures.jwtService("HS256", claimsFormat);
+        key = Keys.hmacShaKeyFor(Fixtures.SECRET.getBytes());
+        accessToken = jwtService.generateAccessToken(Fixtures.USERNAME, Fixtures.SESSION_ID, Fixtures.ROLES, Fixtures.PERMISSIONS);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateAccessToken(Fixtures.USERNAME, Fixtures.SESSION_ID, Fixtures.ROLES, Fixtures.PERMISSIONS);
+    }
+
+    @Benchmark
+    public TokenClaims parseToken() {
+        return jwtService.parseToken(accessToken);
+    }
+
+    @Benchmark
+    public TokenClaims validateAccessToken() {
+        return jwtService.validateAccessToken(accessToken);
+    }
+
+    @Benchmark
+    public void legacyValidate(Blackhole bh) {
+        // isAccessTokenValid: extractUsername + extractAllClaims; validateToken: extractUsername + extractRoles
+        for (int i = 0; i < 4; i++) {
+            bh.consume(legacyParse(accessToken));
+        }
+        bh.consume(jwtService.validateAccessToken(accessToken) != null);
+    }
+
+    private Claims legacyParse(String token) {
+        return Jwts.parserBuilder()
+            .setSigningKey(key)
+            .build()
+            .parseClaimsJws(token)
+            .getBody();
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 对运行中的服务做闭环压测, 用于比较线程池模式与虚拟线程模式(-Pjava21)的吞吐量和线程数:
+ * <pre>
+ * java -cp cloud-benchmarks/target/benchmarks.jar com.example.benchmarks.LoadTest \
+ *     --url=http://localhost:8081/auth/validate --token=&lt;access token&gt; \
+ *     --concurrency=500 --duration=60 \
+ *     --metrics-url=http://localhost:8081/actuator/metrics/jvm.threads.live
+ * </pre>
+ * 同一份-Pjava21构建分别以spring.threads.virtual.enabled=false/true启动各跑一次即可对比
+ */
+public class LoadTest {
+
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        if (!options.containsKey("url")) {
+            System.err.println("Usage: LoadTest --url=<url> [--method=GET|POST] [--body=<json>] [--token=<jwt>]"
+                + " [--concurrency=200] [--duration=30] [--metrics-url=<actuator metric url>]");
+            System.exit(1);
+        }
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        long durationSeconds = Long.parseLong(options.getOrDefault("duration", "30"));
+        HttpRequest request = buildRequest(options);
+
+        HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        AtomicLong peakThreads = new AtomicLong(-1);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        if (options.containsKey("metrics-url")) {
+            HttpRequest metricsRequest = HttpRequest.newBuilder(URI.create(options.get("metrics-url"))).GET().build();
+            sampler.scheduleAtFixedRate(() -> sampleThreads(client, metricsRequest, peakThreads), 0, 1, TimeUnit.SECONDS);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(durationSeconds);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        List<Future<WorkerResult>> futures = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            futures.add(workers.submit(() -> runWorker(client, request, deadline)));
+        }
+
+        long requests = 0;
+        long errors = 0;
+        long[] latencies = new long[0];
+        for (Future<WorkerResult> future : futures) {
+            WorkerResult result = future.get();
+            requests += result.count;
+            errors += result.errors;
+            latencies = merge(latencies, result.latencies, result.count);
+        }
+        workers.shutdown();
+        sampler.shutdownNow();
+
+        Arrays.sort(latencies);
+        System.out.printf("requests: %d, errors: %d, throughput: %.1f req/s%n",
+            requests, errors, requests / (double) durationSeconds);
+        System.out.printf("latency ms: p50=%.2f p90=%.2f p99=%.2f max=%.2f%n",
+            percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99), percentile(latencies, 1.0));
+        if (peakThreads.get() >= 0) {
+            System.out.printf("peak server threads (jvm.threads.live): %d%n", peakThreads.get());
+        }
+    }
+
+    private static WorkerResult runWorker(HttpClient client, HttpRequest request, long deadline) {
+        WorkerResult result = new WorkerResult();
+        while (System.nanoTime() < deadline) {
+            long start = System.nanoTime();
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() >= 400) {
+                    result.errors++;
+                }
+            } catch (Exception e) {
+                result.errors++;
+            }
+            result.record(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    private static HttpRequest buildRequest(Map<String, String> options) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(options.get("url")))
+            .timeout(Duration.ofSeconds(30));
+        if (options.containsKey("token")) {
+            builder.header("Authorization", "Bearer " + options.get("token"));
+        }
+        String body = options.get("body");
+        if (body != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        String method = options.getOrDefault("method", body != null ? "POST" : "GET");
+        builder.method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody());
+        return builder.build();
+    }
+
+    private static void sampleThreads(HttpClient client, HttpRequest metricsRequest, AtomicLong peakThreads) {
+        try {
+            String body = client.send(metricsRequest, HttpResponse.BodyHandlers.ofString()).body();
+            Matcher matcher = METRIC_VALUE.matcher(body);
+            if (matcher.find()) {
+                long threads = (long) Double.parseDouble(matcher.group(1));
+                peakThreads.accumulateAndGet(threads, Math::max);
+            }
+        } catch (Exception e) {
+            // 采样失败不影响压测
+        }
+    }
+
+    private static long[] merge(long[] target, long[] values, int count) {
+        long[] merged = Arrays.copyOf(target, target.length + count);
+        System.arraycopy(values, 0, merged, target.length, count);
+        return merged;
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int separator = arg.indexOf('=');
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+
+    private static class WorkerResult {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        private void record(long latencyNanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+        }
+    }
+}
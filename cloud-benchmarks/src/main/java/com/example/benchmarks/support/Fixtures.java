@@ -0,0 +1,152 @@
+package com.example.benchmarks.support;
+
+import com.example.gateway.auth.AuthPolicyRegistry;
+import com.example.gateway.auth.TrustedHeaderSigner;
+import com.example.gateway.config.AuthProperties;
+import com.example.security.mapper.RoleMapper;
+import com.example.security.mapper.UserMapper;
+import com.example.security.service.AuthorizationService;
+import com.example.security.service.JwtService;
+import com.example.security.service.PasswordHasher;
+import com.example.security.service.SigningKeyManager;
+import com.example.security.service.UserLookupService;
+import com.example.security.token.InMemorySigningKeyStore;
+import com.example.security.token.InMemoryRevocationStore;
+import com.example.security.token.InMemoryTokenStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Set;
+
+public final class Fixtures {
+
+    public static final String SECRET = "benchmark-secret-key-must-be-at-least-256-bits-long";
+    public static final String USERNAME = "admin";
+    public static final String SESSION_ID = "benchmark-session";
+    public static final Set<String> ROLES = Set.of("ADMIN", "USER");
+    public static final Set<String> PERMISSIONS = Set.of("user:read", "user:write", "user:delete", "system:read", "system:write");
+
+    private Fixtures() {
+    }
+
+    /**
+     * 按application.yml的配置构建JwtService, 会话与吊销表使用内存实现
+     */
+    public static JwtService jwtService() {
+        return jwtService("HS256", "full");
+    }
+
+    /**
+     * 指定签名算法和claims格式的JwtService, 非对称算法的密钥保存在内存中
+     */
+    public static JwtService jwtService(String algorithm, String claimsFormat) {
+        JwtService jwtService = new JwtService(new InMemoryTokenStore(), new InMemoryRevocationStore(),
+            new SimpleMeterRegistry(), signingKeyManager(algorithm),
+            authorizationService(null, InMemoryMappers.roleMapper(ROLES, PERMISSIONS), null));
+        ReflectionTestUtils.setField(jwtService, "claimsFormat", claimsFormat);
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpiration", 3600L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", 86400L);
+        ReflectionTestUtils.setField(jwtService, "tokenMode", "redis");
+        ReflectionTestUtils.setField(jwtService, "maxSessionsPerUser", 10);
+        jwtService.init();
+        return jwtService;
+    }
+
+    public static SigningKeyManager signingKeyManager(String algorithm) {
+        SigningKeyManager signingKeyManager = new SigningKeyManager(new InMemorySigningKeyStore());
+        ReflectionTestUtils.setField(signingKeyManager, "secret", SECRET);
+        ReflectionTestUtils.setField(signingKeyManager, "algorithm", algorithm);
+        ReflectionTestUtils.setField(signingKeyManager, "rotationInterval", Duration.ofDays(7));
+        ReflectionTestUtils.setField(signingKeyManager, "publishAhead", Duration.ofHours(1));
+        ReflectionTestUtils.setField(signingKeyManager, "refreshTokenExpiration", 86400L);
+        signingKeyManager.init();
+        return signingKeyManager;
+    }
+
+    /**
+     * 不连接Redis的AuthorizationService, 角色映射在构建时加载
+     */
+    public static AuthorizationService authorizationService(UserMapper userMapper, RoleMapper roleMapper,
+                                                            UserLookupService userLookupService) {
+        AuthorizationService authorizationService = new AuthorizationService(userMapper, roleMapper, null, userLookupService);
+        ReflectionTestUtils.setField(authorizationService, "userRolesTtl", 600L);
+        ReflectionTestUtils.setField(authorizationService, "maximumSize", 100_000L);
+        ReflectionTestUtils.setField(authorizationService, "defaultRole", "USER");
+        authorizationService.init();
+        return authorizationService;
+    }
+
+    /**
+     * 与application.yml默认值一致的用户查找缓存和布隆过滤器, 不连接Redis
+     */
+    public static UserLookupService userLookupService(UserMapper userMapper) {
+        UserLookupService userLookupService = new UserLookupService(userMapper, emptyRecentRegistrations(),
+            new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userLookupService, "ttl", 600L);
+        ReflectionTestUtils.setField(userLookupService, "maximumSize", 100_000L);
+        ReflectionTestUtils.setField(userLookupService, "bloomEnabled", true);
+        ReflectionTestUtils.setField(userLookupService, "expectedInsertions", 1_000_000L);
+        ReflectionTestUtils.setField(userLookupService, "fpp", 0.01);
+        ReflectionTestUtils.setField(userLookupService, "rebuildInterval", 3_600_000L);
+        userLookupService.init();
+        return userLookupService;
+    }
+
+    /**
+     * 最近注册集合为空: 过滤器未命中的用户名照常查一次集合(不计网络耗时)后按不存在处理
+     */
+    @SuppressWarnings("unchecked")
+    private static RedisTemplate<String, String> emptyRecentRegistrations() {
+        ZSetOperations<String, String> zSet = (ZSetOperations<String, String>) Proxy.newProxyInstance(
+            ZSetOperations.class.getClassLoader(),
+            new Class<?>[]{ZSetOperations.class},
+            (proxy, method, args) -> null);
+        return new RedisTemplate<>() {
+            @Override
+            public ZSetOperations<String, String> opsForZSet() {
+                return zSet;
+            }
+        };
+    }
+
+    /**
+     * 与application.yml默认值一致的哈希线程池
+     */
+    public static PasswordHasher passwordHasher() {
+        PasswordHasher passwordHasher = new PasswordHasher(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(passwordHasher, "cost", 10);
+        ReflectionTestUtils.setField(passwordHasher, "threads", 0);
+        ReflectionTestUtils.setField(passwordHasher, "queueCapacity", 100);
+        passwordHasher.init();
+        return passwordHasher;
+    }
+
+    /**
+     * 与网关application.yml相同的路径策略
+     */
+    public static AuthPolicyRegistry authPolicyRegistry() {
+        MockEnvironment environment = new MockEnvironment()
+            .withProperty("gateway.auth.default-access", "authenticated");
+        String[] publicPatterns = {"/auth/login", "/auth/register", "/auth/refresh", "/auth/validate", "/auth/.well-known/jwks.json", "/public/**"};
+        for (int i = 0; i < publicPatterns.length; i++) {
+            environment.setProperty("gateway.auth.policies[" + i + "].pattern", publicPatterns[i]);
+            environment.setProperty("gateway.auth.policies[" + i + "].access", "public");
+        }
+        environment.setProperty("gateway.auth.policies[" + publicPatterns.length + "].pattern", "/api/admin/**");
+        environment.setProperty("gateway.auth.policies[" + publicPatterns.length + "].roles", "ADMIN");
+        AuthPolicyRegistry registry = new AuthPolicyRegistry(environment);
+        registry.init();
+        return registry;
+    }
+
+    public static TrustedHeaderSigner trustedHeaderSigner() {
+        AuthProperties authProperties = new AuthProperties();
+        authProperties.getTrustedHeader().setSecret(SECRET);
+        return new TrustedHeaderSigner(authProperties);
+    }
+}
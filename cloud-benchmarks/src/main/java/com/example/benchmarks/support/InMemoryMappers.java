@@ -0,0 +1,103 @@
+package com.example.benchmarks.support;
+
+import com.example.security.dto.RoleGrant;
+import com.example.security.entity.Permission;
+import com.example.security.entity.Role;
+import com.example.security.entity.User;
+import com.example.security.mapper.RoleMapper;
+import com.example.security.mapper.UserMapper;
+import com.example.security.mapper.UserRoleMapper;
+
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * 用固定数据代替MyBatis mapper, 基准测试不访问数据库;
+ * Redis由cloud-security自带的InMemoryTokenStore/InMemoryRevocationStore代替
+ */
+public final class InMemoryMappers {
+
+    private InMemoryMappers() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static UserMapper userMapper(User user, Set<String> roles, Set<String> permissions) {
+        return (UserMapper) Proxy.newProxyInstance(
+            UserMapper.class.getClassLoader(),
+            new Class<?>[]{UserMapper.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "selectOne" -> user;
+                case "selectByUsername" -> user.getUsername().equals(args[0]) ? user : null;
+                case "scanUsernames" -> {
+                    DefaultResultContext<String> context = new DefaultResultContext<>();
+                    context.nextResultObject(user.getUsername());
+                    ((ResultHandler<String>) args[0]).handleResult(context);
+                    yield null;
+                }
+                case "exists" -> false;
+                case "insert" -> 1;
+                case "getUserRoles" -> roles;
+                case "getUserPermissions" -> permissions;
+                case "getUserGrants" -> grants(roles, permissions);
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    public static RoleMapper roleMapper(Set<String> roles, Set<String> permissions) {
+        return (RoleMapper) Proxy.newProxyInstance(
+            RoleMapper.class.getClassLoader(),
+            new Class<?>[]{RoleMapper.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "getRoleGrants" -> grants(roles, permissions);
+                case "getRoles" -> entities(roles, Role::new, Role::setId, Role::setName);
+                case "getPermissions" -> entities(permissions, Permission::new, Permission::setId, Permission::setName);
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    public static UserRoleMapper userRoleMapper() {
+        return (UserRoleMapper) Proxy.newProxyInstance(
+            UserRoleMapper.class.getClassLoader(),
+            new Class<?>[]{UserRoleMapper.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "insert" -> 1;
+                default -> throw new UnsupportedOperationException(method.getName());
+            });
+    }
+
+    // id按名称排序依次分配
+    private static <T> List<T> entities(Set<String> names, Supplier<T> factory,
+                                        BiConsumer<T, Long> setId, BiConsumer<T, String> setName) {
+        List<T> entities = new ArrayList<>();
+        long id = 1;
+        for (String name : new TreeSet<>(names)) {
+            T entity = factory.get();
+            setId.accept(entity, id++);
+            setName.accept(entity, name);
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    // 每个角色拥有全部权限
+    private static List<RoleGrant> grants(Set<String> roles, Set<String> permissions) {
+        List<RoleGrant> grants = new ArrayList<>();
+        for (String role : roles) {
+            for (String permission : permissions) {
+                RoleGrant grant = new RoleGrant();
+                grant.setRole(role);
+                grant.setPermission(permission);
+                grants.add(grant);
+            }
+        }
+        return grants;
+    }
+}
@@ -1,11 +1,16 @@
 package com.example.gateway;
 
+import com.example.gateway.config.AuthProperties;
+import com.example.gateway.config.RateLimitProperties;
+import com.example.gateway.config.ResponseCacheProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableConfigurationProperties({AuthProperties.class, RateLimitProperties.class, ResponseCacheProperties.class})
 public class GatewayApplication {
     public static void main(String[] args) {
         SpringApplication.run(GatewayApplication.class, args);
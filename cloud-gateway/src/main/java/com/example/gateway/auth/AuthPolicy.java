@@ -0,0 +1,49 @@
+package com.example.gateway.auth;
+
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * 路径的访问策略, 由AuthPolicyProperties中的配置编译而来
+ */
+@Getter
+public class AuthPolicy {
+
+    public enum Access {
+        // 不校验token
+        PUBLIC,
+        // 需要合法token
+        AUTHENTICATED
+    }
+
+    private final String pattern;
+    private final Access access;
+    // 任一角色即可访问, 为空表示不限制
+    private final Set<String> roles;
+    // 需同时具备的权限, 为空表示不限制
+    private final Set<String> permissions;
+    private final AuthorityBits requiredRoles;
+    private final AuthorityBits requiredPermissions;
+
+    public AuthPolicy(String pattern, Access access, Set<String> roles, Set<String> permissions) {
+        this.pattern = pattern;
+        this.access = access;
+        this.roles = Set.copyOf(roles);
+        this.permissions = Set.copyOf(permissions);
+        this.requiredRoles = AuthorityIndex.ROLES.bitsOf(this.roles);
+        this.requiredPermissions = AuthorityIndex.PERMISSIONS.bitsOf(this.permissions);
+    }
+
+    public boolean isPublic() {
+        return access == Access.PUBLIC;
+    }
+
+    /**
+     * 已认证用户是否满足该路径的角色和权限要求
+     */
+    public boolean permits(AuthResult result) {
+        return (requiredRoles.isEmpty() || requiredRoles.intersects(result.getRoleBits()))
+            && result.getPermissionBits().containsAll(requiredPermissions);
+    }
+}
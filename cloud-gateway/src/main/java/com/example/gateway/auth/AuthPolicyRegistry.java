@@ -0,0 +1,57 @@
+package com.example.gateway.auth;
+
+import com.example.gateway.config.AuthPolicyProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+/**
+ * 持有当前编译好的策略树, Nacos推送gateway.auth变更时重新绑定、编译并原子替换,
+ * 新配置不合法时保留旧的策略树
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuthPolicyRegistry {
+
+    private final Environment environment;
+    private volatile PathPolicyMatcher matcher;
+
+    @PostConstruct
+    public void init() {
+        this.matcher = load();
+    }
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        boolean changed = event.getKeys().stream()
+            .anyMatch(key -> key.startsWith(AuthPolicyProperties.PREFIX + ".policies")
+                || key.startsWith(AuthPolicyProperties.PREFIX + ".default-access"));
+        if (!changed) {
+            return;
+        }
+        try {
+            this.matcher = load();
+            log.info("Reloaded gateway auth policies");
+        } catch (RuntimeException e) {
+            log.error("Invalid gateway auth policies, keeping the previous ones", e);
+        }
+    }
+
+    public AuthPolicy match(HttpMethod method, String path) {
+        return matcher.match(method, path);
+    }
+
+    private PathPolicyMatcher load() {
+        AuthPolicyProperties properties = Binder.get(environment)
+            .bind(AuthPolicyProperties.PREFIX, AuthPolicyProperties.class)
+            .orElseGet(AuthPolicyProperties::new);
+        return PathPolicyMatcher.compile(properties);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.gateway.auth;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+public class AuthResult {
+
+    private static final Map<Reason, AuthResult> INVALID = new EnumMap<>(Reason.class);
+
+    static {
+        for (Reason reason : Reason.values()) {
+            if (reason != Reason.VALID) {
+                INVALID.put(reason, new AuthResult(reason));
+            }
+        }
+    }
+
+    /**
+     * 校验结果的原因, 用作指标的outcome标签
+     */
+    public enum Reason {
+        VALID("valid"),
+        MALFORMED("malformed"),
+        BAD_SIGNATURE("bad_signature"),
+        EXPIRED("expired"),
+        REVOKED("revoked"),
+        WRONG_TYPE("wrong_type"),
+        // remote模式下cloud-security判定不合法, 不区分具体原因
+        REJECTED("rejected");
+
+        private final String tag;
+
+        Reason(String tag) {
+            this.tag = tag;
+        }
+
+        public String tag() {
+            return tag;
+        }
+    }
+
+    private final boolean valid;
+    private final Reason reason;
+    private final String username;
+    private final List<String> roles;
+    private final List<String> permissions;
+    // token过期时间(毫秒)
+    private final long expiresAt;
+    private final String sessionId;
+    // 签发时的用户token版本
+    private final long version;
+    // 角色、权限的位集, 构建时计算一次, 缓存命中时按路由策略校验只需位运算
+    private final AuthorityBits roleBits;
+    private final AuthorityBits permissionBits;
+    // 紧凑格式token的原始编码(角色id列表"1,3"、权限位图)和字典版本, 完整格式token为null
+    private final String authorityVersion;
+    private final String compactRoles;
+    private final String compactPermissions;
+
+    @Builder
+    public AuthResult(boolean valid, String username, List<String> roles, List<String> permissions,
+                      long expiresAt, String sessionId, long version,
+                      String authorityVersion, String compactRoles, String compactPermissions) {
+        this.valid = valid;
+        this.reason = valid ? Reason.VALID : Reason.REJECTED;
+        this.username = username;
+        this.roles = roles;
+        this.permissions = permissions;
+        this.expiresAt = expiresAt;
+        this.sessionId = sessionId;
+        this.version = version;
+        this.roleBits = AuthorityIndex.ROLES.bitsOf(roles);
+        this.permissionBits = AuthorityIndex.PERMISSIONS.bitsOf(permissions);
+        this.authorityVersion = authorityVersion;
+        this.compactRoles = compactRoles;
+        this.compactPermissions = compactPermissions;
+    }
+
+    private AuthResult(Reason reason) {
+        this.valid = false;
+        this.reason = reason;
+        this.username = null;
+        this.roles = Collections.emptyList();
+        this.permissions = Collections.emptyList();
+        this.expiresAt = 0L;
+        this.sessionId = null;
+        this.version = 0L;
+        this.roleBits = AuthorityIndex.ROLES.bitsOf(roles);
+        this.permissionBits = AuthorityIndex.PERMISSIONS.bitsOf(permissions);
+        this.authorityVersion = null;
+        this.compactRoles = null;
+        this.compactPermissions = null;
+    }
+
+    public static AuthResult invalid() {
+        return INVALID.get(Reason.REJECTED);
+    }
+
+    public static AuthResult invalid(Reason reason) {
+        return INVALID.get(reason);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.gateway.auth;
+
+/**
+ * 无法完成token校验(cloud-security超时、不可达或熔断), 区别于token本身不合法, 网关返回503
+ */
+public class AuthServiceUnavailableException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public AuthServiceUnavailableException(String message, Throwable cause) {
+        this(message, cause, 1);
+    }
+
+    public AuthServiceUnavailableException(String message, Throwable cause, long retryAfterSeconds) {
+        super(message, cause);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 建议客户端重试的等待秒数, 用于Retry-After响应头
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
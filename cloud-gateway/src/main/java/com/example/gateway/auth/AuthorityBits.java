@@ -0,0 +1,63 @@
+package com.example.gateway.auth;
+
+import java.util.Arrays;
+
+/**
+ * 不可变位集, 位下标由AuthorityIndex分配, 校验只需按字做位运算
+ */
+public final class AuthorityBits {
+
+    public static final AuthorityBits EMPTY = new AuthorityBits(new long[0]);
+
+    private final long[] words;
+
+    AuthorityBits(long[] words) {
+        this.words = words;
+    }
+
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 包含required中的所有位
+     */
+    public boolean containsAll(AuthorityBits required) {
+        long[] other = required.words;
+        for (int i = 0; i < other.length; i++) {
+            long word = i < words.length ? words[i] : 0L;
+            if ((other[i] & ~word) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 与other至少有一个共同的位
+     */
+    public boolean intersects(AuthorityBits other) {
+        int length = Math.min(words.length, other.words.length);
+        for (int i = 0; i < length; i++) {
+            if ((words[i] & other.words[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AuthorityBits bits && Arrays.equals(words, bits.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+}
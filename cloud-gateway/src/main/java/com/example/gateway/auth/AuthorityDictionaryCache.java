@@ -0,0 +1,124 @@
+package com.example.gateway.auth;
+
+import com.example.gateway.config.AuthProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * cloud-security的角色/权限字典, 用于解码紧凑格式token(角色id + 权限位图).
+ * 定时按ETag条件拉取, token中的字典版本与本地不一致时由LocalTokenValidator触发立即刷新
+ */
+@Slf4j
+public class AuthorityDictionaryCache implements AutoCloseable {
+
+    private final WebClient webClient;
+    private final String uri;
+    private final CoalescedRefresh refresh;
+    private final Disposable scheduled;
+    private volatile Dictionary dictionary = Dictionary.EMPTY;
+
+    public AuthorityDictionaryCache(WebClient webClient, AuthProperties.Dictionary properties) {
+        this.webClient = webClient;
+        this.uri = properties.getUri();
+        this.refresh = new CoalescedRefresh(this::fetch, properties.getMinRefreshInterval());
+        this.scheduled = Flux.interval(Duration.ZERO, properties.getRefreshInterval())
+            // 拉取耗时超过间隔时跳过积压的tick
+            .onBackpressureDrop()
+            .concatMap(i -> refresh())
+            .subscribe();
+    }
+
+    public Dictionary current() {
+        return dictionary;
+    }
+
+    /**
+     * 重新拉取字典, 距上次拉取不足min-refresh-interval时直接返回
+     */
+    public Mono<Void> refresh() {
+        return refresh.trigger();
+    }
+
+    @Override
+    public void close() {
+        scheduled.dispose();
+    }
+
+    private Mono<Void> fetch() {
+        Dictionary current = dictionary;
+        return webClient.get()
+            .uri(uri)
+            .headers(headers -> {
+                if (current.version() != null) {
+                    headers.setIfNoneMatch("\"" + current.version() + "\"");
+                }
+            })
+            .exchangeToMono(response -> {
+                if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                    return response.releaseBody().then(Mono.<JsonNode>empty());
+                }
+                return response.statusCode().is2xxSuccessful()
+                    ? response.bodyToMono(JsonNode.class)
+                    : response.createError();
+            })
+            .doOnNext(body -> {
+                this.dictionary = parse(body);
+                log.info("Loaded authority dictionary version {}", dictionary.version());
+            })
+            .doOnError(e -> log.warn("Failed to fetch authority dictionary from {}: {}", uri, e.getMessage()))
+            .onErrorResume(e -> Mono.empty())
+            .then();
+    }
+
+    private static Dictionary parse(JsonNode body) {
+        return new Dictionary(body.path("version").asText(null), ids(body.path("roles")), ids(body.path("permissions")));
+    }
+
+    private static Map<Long, String> ids(JsonNode node) {
+        Map<Long, String> names = new HashMap<>();
+        node.fields().forEachRemaining(entry -> names.put(Long.parseLong(entry.getKey()), entry.getValue().asText()));
+        return names;
+    }
+
+    /**
+     * 数据库id不复用, 用不同版本的字典解码结果一致; 本地字典缺少的id(新增的角色/权限)解码时忽略
+     */
+    public record Dictionary(String version, Map<Long, String> roles, Map<Long, String> permissions) {
+
+        static final Dictionary EMPTY = new Dictionary(null, Map.of(), Map.of());
+
+        public List<String> decodeRoles(Collection<? extends Number> ids) {
+            List<String> names = new ArrayList<>(ids.size());
+            for (Number id : ids) {
+                String name = roles.get(id.longValue());
+                if (name != null) {
+                    names.add(name);
+                }
+            }
+            return names;
+        }
+
+        /**
+         * @param encoded 以权限id为下标的位图(BitSet字节序), base64url
+         */
+        public List<String> decodePermissions(String encoded) {
+            BitSet bits = BitSet.valueOf(Base64.getUrlDecoder().decode(encoded));
+            List<String> names = new ArrayList<>(bits.cardinality());
+            for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+                String name = permissions.get((long) id);
+                if (name != null) {
+                    names.add(name);
+                }
+            }
+            return names;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.gateway.auth;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 角色/权限名到位下标的映射, 只增不减:
+ * 策略重新加载后下标不变, 已缓存的AuthResult中的位集仍然有效.
+ * 名称来自验签通过的token和网关配置, 数量与系统中定义的角色权限一致
+ */
+public final class AuthorityIndex {
+
+    public static final AuthorityIndex ROLES = new AuthorityIndex();
+    public static final AuthorityIndex PERMISSIONS = new AuthorityIndex();
+
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    private AuthorityIndex() {
+    }
+
+    public AuthorityBits bitsOf(Collection<String> names) {
+        if (names == null || names.isEmpty()) {
+            return AuthorityBits.EMPTY;
+        }
+        long[] words = new long[(next.get() + names.size() + 63) >>> 6];
+        for (String name : names) {
+            int index = indexOf(name);
+            int word = index >>> 6;
+            if (word >= words.length) {
+                words = Arrays.copyOf(words, word + 1);
+            }
+            words[word] |= 1L << index;
+        }
+        return new AuthorityBits(words);
+    }
+
+    private int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index != null ? index : indexes.computeIfAbsent(name, key -> next.getAndIncrement());
+    }
+}
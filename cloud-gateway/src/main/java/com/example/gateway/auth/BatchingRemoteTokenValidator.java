@@ -0,0 +1,120 @@
+package com.example.gateway.auth;
+
+import com.example.gateway.config.AuthProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 把一个时间窗口内并发的校验请求合并成一次/auth/validate/batch调用:
+ * 攒够maxSize个立即发送, 否则第一个请求到达后等待window再发送.
+ * 相同token的并发请求已由CachingTokenValidator合并, 这里合并的是不同token
+ */
+public class BatchingRemoteTokenValidator implements TokenValidator {
+
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> RESPONSE_TYPE =
+        new ParameterizedTypeReference<>() {};
+
+    private final WebClient webClient;
+    private final long windowNanos;
+    private final int maxSize;
+    private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final DistributionSummary batchSizes;
+
+    public BatchingRemoteTokenValidator(WebClient webClient, AuthProperties.Batch properties, MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.windowNanos = properties.getWindow().toNanos();
+        this.maxSize = properties.getMaxSize();
+        this.batchSizes = DistributionSummary.builder("auth.validation.batch.size")
+            .description("Tokens per coalesced validation call")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<AuthResult> validate(String token) {
+        return Mono.create(sink -> {
+            queue.add(new Pending(token, sink));
+            if (queued.incrementAndGet() >= maxSize) {
+                flush();
+            } else if (flushScheduled.compareAndSet(false, true)) {
+                Schedulers.parallel().schedule(this::onWindowElapsed, windowNanos, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    private void onWindowElapsed() {
+        // 先复位再取队列, 之后到达的请求会安排新的窗口
+        flushScheduled.set(false);
+        flush();
+    }
+
+    private void flush() {
+        List<Pending> batch = new ArrayList<>(maxSize);
+        Pending next;
+        while ((next = queue.poll()) != null) {
+            queued.decrementAndGet();
+            batch.add(next);
+            if (batch.size() == maxSize) {
+                send(batch);
+                batch = new ArrayList<>(maxSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        batchSizes.record(batch.size());
+        List<String> tokens = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            tokens.add(pending.token);
+        }
+        webClient.post()
+            .uri("lb://cloud-security/auth/validate/batch")
+            .bodyValue(tokens)
+            .retrieve()
+            .bodyToMono(RESPONSE_TYPE)
+            .subscribe(results -> {
+                if (results.size() != batch.size()) {
+                    fail(batch, new IllegalStateException(
+                        "Expected " + batch.size() + " validation results but got " + results.size()));
+                    return;
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    batch.get(i).sink.success(RemoteTokenValidator.toResult(results.get(i)));
+                }
+            }, error -> fail(batch, error));
+    }
+
+    private static void fail(List<Pending> batch, Throwable error) {
+        // 批量接口的4xx说明请求本身不被接受(如超过上限), 与token是否合法无关, 一律按服务不可用处理
+        AuthServiceUnavailableException unavailable = RemoteTokenValidator.unavailable(error);
+        batch.forEach(pending -> pending.sink.error(unavailable));
+    }
+
+    private static final class Pending {
+        private final String token;
+        private final MonoSink<AuthResult> sink;
+
+        Pending(String token, MonoSink<AuthResult> sink) {
+            this.token = token;
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.gateway.auth;
+
+import com.example.gateway.config.AuthProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * token校验结果缓存, 同一token的并发未命中只会触发一次下游校验
+ */
+public class CachingTokenValidator implements TokenValidator {
+
+    private final TokenValidator delegate;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final AsyncCache<String, AuthResult> cache;
+
+    public CachingTokenValidator(TokenValidator delegate,
+                                 AuthProperties.Cache properties,
+                                 TokenRevocationRegistry revocationRegistry,
+                                 MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.revocationRegistry = revocationRegistry;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfter(new ResultExpiry(properties.getTtl().toNanos(), properties.getNegativeTtl().toNanos()))
+            .recordStats()
+            .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "auth.validation");
+    }
+
+    @Override
+    public Mono<AuthResult> validate(String token) {
+        String key = hash(token);
+        return Mono.fromFuture(cache.get(key, (k, executor) -> delegate.validate(token).toFuture()), true)
+            .map(result -> {
+                // 命中后仍检查本地吊销表, 登出或会话吊销立即生效
+                if (result.isValid() && (revocationRegistry.isRevoked(result.getUsername(), result.getVersion())
+                    || revocationRegistry.isSessionRevoked(result.getSessionId()))) {
+                    cache.synchronous().invalidate(key);
+                    return AuthResult.invalid(AuthResult.Reason.REVOKED);
+                }
+                return result;
+            });
+    }
+
+    @Override
+    public void invalidate(String token) {
+        cache.synchronous().invalidate(hash(token));
+        delegate.invalidate(token);
+    }
+
+    private static String hash(String token) {
+        return TokenHashes.sha256(token);
+    }
+
+    private static class ResultExpiry implements Expiry<String, AuthResult> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        ResultExpiry(long ttlNanos, long negativeTtlNanos) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, AuthResult result, long currentTime) {
+            if (!result.isValid()) {
+                return negativeTtlNanos;
+            }
+            if (result.getExpiresAt() <= 0) {
+                return ttlNanos;
+            }
+            // 不超过token本身的exp
+            long untilExpiry = TimeUnit.MILLISECONDS.toNanos(result.getExpiresAt() - System.currentTimeMillis());
+            return Math.max(0, Math.min(ttlNanos, untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, AuthResult result, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, result, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, AuthResult result, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.gateway.auth;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * 按需刷新的远程数据(JWKS、权限字典): 并发触发共享同一次拉取, 两次拉取间隔不小于minInterval,
+ * 避免携带伪造kid或字典版本的请求把压力转嫁给cloud-security
+ */
+final class CoalescedRefresh {
+
+    private final Supplier<Mono<Void>> fetch;
+    private final long minIntervalNanos;
+    private final AtomicReference<Mono<Void>> inflight = new AtomicReference<>();
+    private volatile long nextAllowed = System.nanoTime();
+
+    /**
+     * @param fetch 拉取并更新本地数据, 需自行处理错误
+     */
+    CoalescedRefresh(Supplier<Mono<Void>> fetch, Duration minInterval) {
+        this.fetch = fetch;
+        this.minIntervalNanos = minInterval.toNanos();
+    }
+
+    Mono<Void> trigger() {
+        Mono<Void> current = inflight.get();
+        if (current != null) {
+            return current;
+        }
+        long now = System.nanoTime();
+        if (now - nextAllowed < 0) {
+            return Mono.empty();
+        }
+        Mono<Void> next = Mono.defer(fetch)
+            .doFinally(signal -> inflight.set(null))
+            .cache();
+        if (!inflight.compareAndSet(null, next)) {
+            Mono<Void> other = inflight.get();
+            return other != null ? other : Mono.empty();
+        }
+        this.nextAllowed = now + minIntervalNanos;
+        return next;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.gateway.auth;
+
+import com.example.gateway.config.AuthProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.*;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 从cloud-security拉取的校验公钥(kid -> 公钥). 定时刷新, 遇到未知kid时由LocalTokenValidator触发立即刷新;
+ * 拉取失败时保留已有公钥
+ */
+@Slf4j
+public class JwksKeyCache implements AutoCloseable {
+
+    private static final Map<String, String> CURVES = Map.of(
+        "P-256", "secp256r1",
+        "P-384", "secp384r1",
+        "P-521", "secp521r1");
+
+    private final WebClient webClient;
+    private final String uri;
+    private final CoalescedRefresh refresh;
+    private final Disposable scheduled;
+    private volatile Map<String, PublicKey> keys = Map.of();
+
+    public JwksKeyCache(WebClient webClient, AuthProperties.Jwks jwks) {
+        this.webClient = webClient;
+        this.uri = jwks.getUri();
+        this.refresh = new CoalescedRefresh(this::fetch, jwks.getMinRefreshInterval());
+        this.scheduled = Flux.interval(Duration.ZERO, jwks.getRefreshInterval())
+            // 拉取耗时超过间隔时跳过积压的tick
+            .onBackpressureDrop()
+            .concatMap(i -> refresh())
+            .subscribe();
+    }
+
+    public PublicKey get(String kid) {
+        return keys.get(kid);
+    }
+
+    /**
+     * 重新拉取JWKS, 距上次拉取不足min-refresh-interval时直接返回
+     */
+    public Mono<Void> refresh() {
+        return refresh.trigger();
+    }
+
+    @Override
+    public void close() {
+        scheduled.dispose();
+    }
+
+    private Mono<Void> fetch() {
+        return webClient.get()
+            .uri(uri)
+            .retrieve()
+            .bodyToMono(JsonNode.class)
+            .doOnNext(body -> this.keys = parse(body))
+            .doOnError(e -> log.warn("Failed to fetch JWKS from {}: {}", uri, e.getMessage()))
+            .onErrorResume(e -> Mono.empty())
+            .then();
+    }
+
+    private Map<String, PublicKey> parse(JsonNode body) {
+        Map<String, PublicKey> parsed = new HashMap<>();
+        for (JsonNode jwk : body.path("keys")) {
+            String kid = jwk.path("kid").asText(null);
+            if (kid == null) {
+                continue;
+            }
+            try {
+                PublicKey key = toPublicKey(jwk);
+                if (key != null) {
+                    parsed.put(kid, key);
+                }
+            } catch (GeneralSecurityException | IllegalArgumentException e) {
+                log.warn("Skipping malformed JWK {}: {}", kid, e.getMessage());
+            }
+        }
+        log.debug("Loaded {} signing keys from {}", parsed.size(), uri);
+        return parsed;
+    }
+
+    private static PublicKey toPublicKey(JsonNode jwk) throws GeneralSecurityException {
+        switch (jwk.path("kty").asText()) {
+            case "RSA":
+                return KeyFactory.getInstance("RSA").generatePublic(
+                    new RSAPublicKeySpec(unsigned(jwk, "n"), unsigned(jwk, "e")));
+            case "EC":
+                String curve = CURVES.get(jwk.path("crv").asText());
+                if (curve == null) {
+                    return null;
+                }
+                AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+                parameters.init(new ECGenParameterSpec(curve));
+                ECPoint point = new ECPoint(unsigned(jwk, "x"), unsigned(jwk, "y"));
+                return KeyFactory.getInstance("EC").generatePublic(
+                    new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+            default:
+                return null;
+        }
+    }
+
+    private static BigInteger unsigned(JsonNode jwk, String field) {
+        return new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path(field).asText()));
+    }
+}
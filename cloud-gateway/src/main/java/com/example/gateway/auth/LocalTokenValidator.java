@@ -0,0 +1,179 @@
+package com.example.gateway.auth;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * 在网关进程内完成验签、过期和吊销检查, 合法token不再访问cloud-security.
+ * 带kid的token用JWKS公钥验签, 不带kid的token用jwt.secret(HS256)验签
+ */
+@Slf4j
+public class LocalTokenValidator implements TokenValidator {
+
+    private static final String ACCESS_TOKEN_TYPE = "access";
+
+    private final JwtParser parser;
+    private final JwksKeyCache jwksKeys;
+    private final AuthorityDictionaryCache dictionaries;
+    private final TokenRevocationRegistry revocationRegistry;
+
+    public LocalTokenValidator(String secret, TokenRevocationRegistry revocationRegistry) {
+        this(secret, null, null, revocationRegistry);
+    }
+
+    /**
+     * @param secret       为空时只接受带kid的非对称签名token
+     * @param jwksKeys     为null时只接受HS256签名的token
+     * @param dictionaries 为null时紧凑格式token解码出的角色、权限为空
+     */
+    public LocalTokenValidator(String secret, JwksKeyCache jwksKeys, AuthorityDictionaryCache dictionaries,
+                               TokenRevocationRegistry revocationRegistry) {
+        if (!StringUtils.hasText(secret) && jwksKeys == null) {
+            throw new IllegalStateException("jwt.secret or gateway.auth.jwks.uri is required when gateway.auth.mode is local");
+        }
+        Key hmacKey = StringUtils.hasText(secret) ? Keys.hmacShaKeyFor(secret.getBytes()) : null;
+        // JwtParser线程安全, 只构建一次; 算法与密钥类型不匹配时jjwt直接拒绝
+        this.parser = Jwts.parserBuilder()
+            .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                @Override
+                public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                    String kid = header.getKeyId();
+                    if (kid == null) {
+                        if (hmacKey == null) {
+                            throw new SignatureException("Missing key id");
+                        }
+                        return hmacKey;
+                    }
+                    PublicKey key = jwksKeys != null ? jwksKeys.get(kid) : null;
+                    if (key == null) {
+                        throw new UnknownKeyIdException(kid);
+                    }
+                    return key;
+                }
+            })
+            .build();
+        this.jwksKeys = jwksKeys;
+        this.dictionaries = dictionaries;
+        this.revocationRegistry = revocationRegistry;
+    }
+
+    @Override
+    public Mono<AuthResult> validate(String token) {
+        AuthResult result = verify(token, jwksKeys != null || dictionaries != null);
+        if (result != null) {
+            return Mono.just(result);
+        }
+        // 签名密钥轮换后首次遇到新kid, 或角色/权限字典版本变化: 重新拉取后再校验一次
+        return Mono.when(jwksKeys != null ? jwksKeys.refresh() : Mono.empty(),
+                dictionaries != null ? dictionaries.refresh() : Mono.empty())
+            .then(Mono.fromCallable(() -> verify(token, false)));
+    }
+
+    /**
+     * @param refreshable kid未知或字典版本不一致时是否返回null, 以便刷新JWKS和字典后重试
+     */
+    @SuppressWarnings("unchecked")
+    AuthResult verify(String token, boolean refreshable) {
+        Claims claims;
+        try {
+            // 同时校验签名和exp
+            claims = parser.parseClaimsJws(token).getBody();
+        } catch (UnknownKeyIdException e) {
+            if (refreshable) {
+                return null;
+            }
+            log.debug("Token rejected: {}", e.getMessage());
+            return AuthResult.invalid(AuthResult.Reason.BAD_SIGNATURE);
+        } catch (ExpiredJwtException e) {
+            return AuthResult.invalid(AuthResult.Reason.EXPIRED);
+        } catch (SignatureException e) {
+            log.debug("Token rejected: {}", e.getMessage());
+            return AuthResult.invalid(AuthResult.Reason.BAD_SIGNATURE);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token rejected: {}", e.getMessage());
+            return AuthResult.invalid(AuthResult.Reason.MALFORMED);
+        }
+
+        String username = claims.getSubject();
+        if (!StringUtils.hasText(username)) {
+            return AuthResult.invalid(AuthResult.Reason.MALFORMED);
+        }
+        if (!ACCESS_TOKEN_TYPE.equals(claims.get("type", String.class))) {
+            return AuthResult.invalid(AuthResult.Reason.WRONG_TYPE);
+        }
+        Long version = claims.get("ver", Long.class);
+        String sessionId = claims.get("sid", String.class);
+        if (revocationRegistry.isRevoked(username, version != null ? version : 0L)
+            || revocationRegistry.isSessionRevoked(sessionId)) {
+            log.debug("Token rejected - revoked for user: {}", username);
+            return AuthResult.invalid(AuthResult.Reason.REVOKED);
+        }
+
+        String compactPermissions = claims.get("pb", String.class);
+        if (compactPermissions == null) {
+            return validResult(claims, username, sessionId, version)
+                .roles(toList(claims.get("roles")))
+                .permissions(toList(claims.get("permissions")))
+                .build();
+        }
+
+        // 紧凑格式: 角色id + 权限位图
+        String authorityVersion = claims.get("dv", String.class);
+        AuthorityDictionaryCache.Dictionary dictionary = dictionaries != null
+            ? dictionaries.current() : AuthorityDictionaryCache.Dictionary.EMPTY;
+        if (refreshable && !Objects.equals(dictionary.version(), authorityVersion)) {
+            return null;
+        }
+        List<Number> roleIds = claims.get("rid") instanceof List<?> ids ? (List<Number>) ids : Collections.emptyList();
+        try {
+            // 刷新后版本仍不一致时按本地字典解码, 本地缺少的角色/权限视为不具备
+            return validResult(claims, username, sessionId, version)
+                .roles(dictionary.decodeRoles(roleIds))
+                .permissions(dictionary.decodePermissions(compactPermissions))
+                .authorityVersion(authorityVersion)
+                .compactRoles(roleIds.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .compactPermissions(compactPermissions)
+                .build();
+        } catch (IllegalArgumentException | ClassCastException e) {
+            log.debug("Token rejected: {}", e.getMessage());
+            return AuthResult.invalid(AuthResult.Reason.MALFORMED);
+        }
+    }
+
+    private static AuthResult.AuthResultBuilder validResult(Claims claims, String username, String sessionId, Long version) {
+        return AuthResult.builder()
+            .valid(true)
+            .username(username)
+            .expiresAt(claims.getExpiration().getTime())
+            .sessionId(sessionId)
+            .version(version != null ? version : 0L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> toList(Object claim) {
+        return claim instanceof List ? (List<String>) claim : Collections.emptyList();
+    }
+
+    private static class UnknownKeyIdException extends SignatureException {
+        UnknownKeyIdException(String kid) {
+            super("Unknown signing key: " + kid);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.gateway.auth;
+
+import com.example.gateway.config.AuthPolicyProperties;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 按路径段编译的策略前缀树, 构建后只读, 可被多线程共享.
+ * 匹配时直接在规范化后的path上按下标比较, 不拆分字符串也不创建对象.
+ * 优先级: 字面量段 > * > **, 同一节点上限定了方法的策略优先于不限方法的策略
+ */
+public final class PathPolicyMatcher {
+
+    private static final int ANY_METHOD = -1;
+    private static final String SINGLE_WILDCARD = "*";
+    private static final String MULTI_WILDCARD = "**";
+
+    private final Node root;
+    private final AuthPolicy defaultPolicy;
+
+    private PathPolicyMatcher(Node root, AuthPolicy defaultPolicy) {
+        this.root = root;
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    /**
+     * @throws IllegalArgumentException 配置不合法
+     */
+    public static PathPolicyMatcher compile(AuthPolicyProperties properties) {
+        Builder root = new Builder();
+        for (AuthPolicyProperties.Policy policy : properties.getPolicies()) {
+            String pattern = policy.getPattern();
+            if (pattern == null || !pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Auth policy pattern must start with '/': " + pattern);
+            }
+            Builder node = root;
+            boolean multi = false;
+            String[] segments = pattern.substring(1).split("/", -1);
+            for (int i = 0; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.isEmpty() && i == segments.length - 1) {
+                    // 忽略结尾的'/'
+                    break;
+                }
+                if (MULTI_WILDCARD.equals(segment)) {
+                    if (i != segments.length - 1) {
+                        throw new IllegalArgumentException("'**' must be the last segment: " + pattern);
+                    }
+                    multi = true;
+                    break;
+                }
+                if (segment.contains("*") && !SINGLE_WILDCARD.equals(segment)) {
+                    throw new IllegalArgumentException("Partial wildcards are not supported: " + pattern);
+                }
+                node = SINGLE_WILDCARD.equals(segment)
+                    ? node.wildcard()
+                    : node.children.computeIfAbsent(segment, key -> new Builder());
+            }
+            Rule rule = new Rule(methodMask(policy.getMethods(), pattern),
+                new AuthPolicy(pattern, policy.getAccess(), policy.getRoles(), policy.getPermissions()));
+            (multi ? node.remainderRules : node.exactRules).add(rule);
+        }
+        AuthPolicy defaultPolicy = new AuthPolicy("<default>", properties.getDefaultAccess(), Set.of(), Set.of());
+        return new PathPolicyMatcher(root.build(), defaultPolicy);
+    }
+
+    /**
+     * 按下游(Spring MVC/Tomcat)的理解规范化原始请求路径, 匹配前调用:
+     * 逐段去掉';'之后的路径参数并百分号解码, 合并空段和结尾的'/'.
+     * 编码非法, 或解码后的段为'.'/'..'、含'/'、反斜杠、';'、'%'(二次编码)时返回null, 调用方应拒绝请求.
+     * 不含'%'、';'、反斜杠、'//'、'/.'的路径只去掉结尾的'/', 没有结尾'/'时原样返回, 不创建对象
+     */
+    public static String normalize(String rawPath) {
+        if (!needsNormalization(rawPath)) {
+            int last = rawPath.length() - 1;
+            return last > 0 && rawPath.charAt(last) == '/' ? rawPath.substring(0, last) : rawPath;
+        }
+        StringBuilder normalized = new StringBuilder(rawPath.length());
+        for (String segment : rawPath.split("/")) {
+            int params = segment.indexOf(';');
+            if (params >= 0) {
+                segment = segment.substring(0, params);
+            }
+            if (segment.isEmpty()) {
+                continue;
+            }
+            String decoded;
+            try {
+                decoded = UriUtils.decode(segment, StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            if (".".equals(decoded) || "..".equals(decoded) || decoded.indexOf('/') >= 0 || decoded.indexOf('\\') >= 0
+                || decoded.indexOf(';') >= 0 || decoded.indexOf('%') >= 0) {
+                return null;
+            }
+            normalized.append('/').append(decoded);
+        }
+        return normalized.length() > 0 ? normalized.toString() : "/";
+    }
+
+    private static boolean needsNormalization(String path) {
+        return path.indexOf('%') >= 0 || path.indexOf(';') >= 0 || path.indexOf('\\') >= 0
+            || path.contains("//") || path.contains("/.");
+    }
+
+    /**
+     * @param path {@link #normalize}之后的路径
+     */
+    public AuthPolicy match(HttpMethod method, String path) {
+        int start = !path.isEmpty() && path.charAt(0) == '/' ? 1 : 0;
+        AuthPolicy policy = match(root, path, start, methodBit(method));
+        return policy != null ? policy : defaultPolicy;
+    }
+
+    private static AuthPolicy match(Node node, String path, int start, int methodBit) {
+        if (start >= path.length()) {
+            AuthPolicy policy = find(node.exactRules, methodBit);
+            return policy != null ? policy : find(node.remainderRules, methodBit);
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+
+        Node literal = node.child(path, start, end);
+        if (literal != null) {
+            AuthPolicy policy = match(literal, path, end + 1, methodBit);
+            if (policy != null) {
+                return policy;
+            }
+        }
+        if (node.wildcard != null) {
+            AuthPolicy policy = match(node.wildcard, path, end + 1, methodBit);
+            if (policy != null) {
+                return policy;
+            }
+        }
+        return find(node.remainderRules, methodBit);
+    }
+
+    private static AuthPolicy find(Rule[] rules, int methodBit) {
+        for (Rule rule : rules) {
+            if ((rule.methodMask & methodBit) != 0) {
+                return rule.policy;
+            }
+        }
+        return null;
+    }
+
+    private static int methodMask(List<String> methods, String pattern) {
+        if (methods == null || methods.isEmpty()) {
+            return ANY_METHOD;
+        }
+        int mask = 0;
+        for (String method : methods) {
+            HttpMethod httpMethod = HttpMethod.valueOf(method.trim().toUpperCase(Locale.ROOT));
+            int bit = methodBit(httpMethod);
+            if (bit == 0) {
+                throw new IllegalArgumentException("Unsupported method " + method + " in auth policy " + pattern);
+            }
+            mask |= bit;
+        }
+        return mask;
+    }
+
+    private static int methodBit(HttpMethod method) {
+        return switch (method.name()) {
+            case "GET" -> 1;
+            case "HEAD" -> 1 << 1;
+            case "POST" -> 1 << 2;
+            case "PUT" -> 1 << 3;
+            case "PATCH" -> 1 << 4;
+            case "DELETE" -> 1 << 5;
+            case "OPTIONS" -> 1 << 6;
+            case "TRACE" -> 1 << 7;
+            default -> 0;
+        };
+    }
+
+    private static int hash(String value, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return h;
+    }
+
+    private static final class Rule {
+        private final int methodMask;
+        private final AuthPolicy policy;
+
+        Rule(int methodMask, AuthPolicy policy) {
+            this.methodMask = methodMask;
+            this.policy = policy;
+        }
+    }
+
+    private static final class Node {
+        // 子节点按段的hash排序, 匹配时二分查找后再逐字符比较
+        private final int[] childHashes;
+        private final String[] childSegments;
+        private final Node[] children;
+        private final Node wildcard;
+        private final Rule[] exactRules;
+        private final Rule[] remainderRules;
+
+        Node(int[] childHashes, String[] childSegments, Node[] children, Node wildcard,
+             Rule[] exactRules, Rule[] remainderRules) {
+            this.childHashes = childHashes;
+            this.childSegments = childSegments;
+            this.children = children;
+            this.wildcard = wildcard;
+            this.exactRules = exactRules;
+            this.remainderRules = remainderRules;
+        }
+
+        Node child(String path, int start, int end) {
+            int h = hash(path, start, end);
+            int index = Arrays.binarySearch(childHashes, h);
+            if (index < 0) {
+                return null;
+            }
+            // hash冲突时相同hash的段相邻
+            while (index > 0 && childHashes[index - 1] == h) {
+                index--;
+            }
+            int length = end - start;
+            for (; index < childHashes.length && childHashes[index] == h; index++) {
+                String segment = childSegments[index];
+                if (segment.length() == length && path.regionMatches(start, segment, 0, length)) {
+                    return children[index];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Builder {
+        private final Map<String, Builder> children = new HashMap<>();
+        private Builder wildcard;
+        private final List<Rule> exactRules = new ArrayList<>();
+        private final List<Rule> remainderRules = new ArrayList<>();
+
+        Builder wildcard() {
+            if (wildcard == null) {
+                wildcard = new Builder();
+            }
+            return wildcard;
+        }
+
+        Node build() {
+            List<String> segments = new ArrayList<>(children.keySet());
+            segments.sort(Comparator.comparingInt(String::hashCode));
+            int[] hashes = new int[segments.size()];
+            Node[] nodes = new Node[segments.size()];
+            for (int i = 0; i < segments.size(); i++) {
+                hashes[i] = segments.get(i).hashCode();
+                nodes[i] = children.get(segments.get(i)).build();
+            }
+            return new Node(hashes, segments.toArray(new String[0]), nodes,
+                wildcard != null ? wildcard.build() : null,
+                sorted(exactRules), sorted(remainderRules));
+        }
+
+        private static Rule[] sorted(List<Rule> rules) {
+            // 限定方法的策略优先, 其余保持配置顺序
+            return rules.stream()
+                .sorted(Comparator.comparingInt(rule -> rule.methodMask == ANY_METHOD ? 1 : 0))
+                .toArray(Rule[]::new);
+        }
+    }
+}
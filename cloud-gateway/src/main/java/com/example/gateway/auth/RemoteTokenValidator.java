@@ -0,0 +1,69 @@
+package com.example.gateway.auth;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 调用cloud-security的/auth/validate校验token, 超时和连接池见WebClientConfig
+ */
+@RequiredArgsConstructor
+public class RemoteTokenValidator implements TokenValidator {
+
+    private final WebClient webClient;
+
+    @Override
+    public Mono<AuthResult> validate(String token) {
+        return webClient.get()
+            .uri("lb://cloud-security/auth/validate")
+            .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+            .retrieve()
+            .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+            // 超时、连接失败和5xx属于服务不可用, 4xx按token不合法处理
+            .onErrorResume(WebClientResponseException.class, e -> e.getStatusCode().is5xxServerError()
+                ? Mono.error(unavailable(e))
+                : Mono.just(Map.of()))
+            .onErrorMap(e -> !(e instanceof AuthServiceUnavailableException), RemoteTokenValidator::unavailable)
+            .map(RemoteTokenValidator::toResult);
+    }
+
+    static AuthServiceUnavailableException unavailable(Throwable e) {
+        if (e instanceof AuthServiceUnavailableException unavailable) {
+            return unavailable;
+        }
+        if (e instanceof WebClientResponseException response) {
+            return new AuthServiceUnavailableException("Token validation failed with " + response.getStatusCode(), e);
+        }
+        return new AuthServiceUnavailableException("Token validation unavailable: " + e.getMessage(), e);
+    }
+
+    /**
+     * 解析cloud-security的校验响应体
+     */
+    @SuppressWarnings("unchecked")
+    static AuthResult toResult(Map<String, Object> response) {
+        if (response == null || !Boolean.TRUE.equals(response.get("isValid"))) {
+            return AuthResult.invalid();
+        }
+        Object roles = response.get("roles");
+        Object permissions = response.get("permissions");
+        Object expiresAt = response.get("expiresAt");
+        Object version = response.get("version");
+        return AuthResult.builder()
+            .valid(true)
+            .username((String) response.get("username"))
+            .roles(roles instanceof List ? (List<String>) roles : Collections.emptyList())
+            .permissions(permissions instanceof List ? (List<String>) permissions : Collections.emptyList())
+            .expiresAt(expiresAt instanceof Number ? ((Number) expiresAt).longValue() : 0L)
+            .sessionId((String) response.get("sessionId"))
+            .version(version instanceof Number ? ((Number) version).longValue() : 0L)
+            .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.gateway.auth;
+
+import com.example.gateway.config.AuthProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * 远程校验的熔断和降级: cloud-security连续超时或出错时熔断, 不再占用连接池排队;
+ * 熔断期间用最近校验通过且未过期、未吊销的结果继续放行, 其余请求返回503而不是401
+ */
+@Slf4j
+public class ResilientTokenValidator implements TokenValidator {
+
+    private final TokenValidator delegate;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final CircuitBreaker circuitBreaker;
+    private final long retryAfterSeconds;
+    // tokenHash -> 最近一次校验通过的结果, 只在服务不可用时读取
+    private final Cache<String, AuthResult> lastKnownGood;
+    private final Counter degradedHits;
+
+    public ResilientTokenValidator(TokenValidator delegate,
+                                   AuthProperties.Remote properties,
+                                   TokenRevocationRegistry revocationRegistry,
+                                   MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.revocationRegistry = revocationRegistry;
+
+        AuthProperties.CircuitBreaker cb = properties.getCircuitBreaker();
+        this.circuitBreaker = CircuitBreaker.of("auth-validation", CircuitBreakerConfig.custom()
+            .failureRateThreshold(cb.getFailureRateThreshold())
+            .slowCallDurationThreshold(cb.getSlowCallDurationThreshold())
+            .slowCallRateThreshold(cb.getSlowCallRateThreshold())
+            .slidingWindowSize(cb.getSlidingWindowSize())
+            .minimumNumberOfCalls(cb.getMinimumNumberOfCalls())
+            .waitDurationInOpenState(cb.getWaitDurationInOpenState())
+            .permittedNumberOfCallsInHalfOpenState(cb.getPermittedCallsInHalfOpenState())
+            .automaticTransitionFromOpenToHalfOpenEnabled(true)
+            // 只有服务不可用计入失败率, token不合法属于正常结果
+            .recordExceptions(AuthServiceUnavailableException.class)
+            .build());
+        this.retryAfterSeconds = Math.max(1, cb.getWaitDurationInOpenState().toSeconds());
+        this.circuitBreaker.getEventPublisher()
+            .onStateTransition(event -> log.warn("Auth validation circuit breaker {}", event.getStateTransition()));
+
+        AuthProperties.Degraded degraded = properties.getDegraded();
+        this.lastKnownGood = degraded.isEnabled()
+            ? Caffeine.newBuilder()
+                .maximumSize(degraded.getMaximumSize())
+                .expireAfterWrite(degraded.getTtl())
+                .build()
+            : null;
+
+        Gauge.builder("auth.validation.circuit.state", circuitBreaker, breaker -> breaker.getState().getOrder())
+            .description("0=closed, 1=open, 2=half_open, 3=disabled, 4=forced_open, 5=metrics_only")
+            .register(meterRegistry);
+        this.degradedHits = Counter.builder("auth.validation.degraded")
+            .description("Requests authenticated from last known good results while cloud-security was unavailable")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<AuthResult> validate(String token) {
+        String key = TokenHashes.sha256(token);
+        return delegate.validate(token)
+            .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+            .doOnNext(result -> remember(key, result))
+            .onErrorResume(error -> fallback(key, error));
+    }
+
+    @Override
+    public void invalidate(String token) {
+        if (lastKnownGood != null) {
+            lastKnownGood.invalidate(TokenHashes.sha256(token));
+        }
+        delegate.invalidate(token);
+    }
+
+    private void remember(String key, AuthResult result) {
+        if (lastKnownGood == null) {
+            return;
+        }
+        if (result.isValid()) {
+            lastKnownGood.put(key, result);
+        } else {
+            lastKnownGood.invalidate(key);
+        }
+    }
+
+    private Mono<AuthResult> fallback(String key, Throwable error) {
+        AuthResult result = lastKnownGood != null ? lastKnownGood.getIfPresent(key) : null;
+        if (result != null && usable(result)) {
+            degradedHits.increment();
+            return Mono.just(result);
+        }
+        if (error instanceof CallNotPermittedException) {
+            return Mono.error(new AuthServiceUnavailableException("Auth validation circuit is open", error, retryAfterSeconds));
+        }
+        return Mono.error(error);
+    }
+
+    private boolean usable(AuthResult result) {
+        if (result.getExpiresAt() > 0 && result.getExpiresAt() <= System.currentTimeMillis()) {
+            return false;
+        }
+        // 吊销表由Redis pub/sub维护, 不依赖cloud-security
+        return !revocationRegistry.isRevoked(result.getUsername(), result.getVersion())
+            && !revocationRegistry.isSessionRevoked(result.getSessionId());
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.gateway.auth;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 本地维护的token吊销表(用户 -> 已吊销的最大token版本, 以及被吊销的会话), 由cloud-security通过Redis pub/sub推送,
+ * 并定时扫描Redis补齐丢失的消息; 校验时只读本地内存, 不访问Redis
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationRegistry {
+
+    // 与cloud-security RedisRevocationStore保持一致
+    private static final String REVOKED_KEY_PREFIX = "token_revoked:";
+    private static final String REVOKED_CHANNEL = "token:revoked";
+    private static final String SESSION_REVOKED_KEY_PREFIX = "session_revoked:";
+    private static final String SESSION_REVOKED_CHANNEL = "token:revoked:session";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    @Value("${jwt.access-token-expiration}")
+    private long accessTokenExpiration;
+
+    // username -> 已吊销的最大版本, 该版本及之前签发的token均视为失效
+    private final Map<String, Revocation> revoked = new ConcurrentHashMap<>();
+    // sid -> 记录时间
+    private final Map<String, Long> revokedSessions = new ConcurrentHashMap<>();
+    private final Disposable.Composite subscriptions = Disposables.composite();
+
+    @PostConstruct
+    public void init() {
+        subscriptions.add(redisTemplate.listenToChannel(REVOKED_CHANNEL, SESSION_REVOKED_CHANNEL)
+            // 每次(重新)订阅成功后全量加载一次, 补齐断连期间错过的消息
+            .doOnSubscribe(s -> loadAll())
+            .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+            .subscribe(message -> {
+                if (SESSION_REVOKED_CHANNEL.equals(message.getChannel())) {
+                    recordSession(message.getMessage());
+                } else {
+                    onRevoked(message.getMessage());
+                }
+            }));
+
+        subscriptions.add(Flux.interval(Duration.ofMinutes(1))
+            .subscribe(tick -> {
+                loadAll();
+                prune();
+            }));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        subscriptions.dispose();
+    }
+
+    /**
+     * @param version token的ver claim
+     */
+    public boolean isRevoked(String username, long version) {
+        Revocation revocation = revoked.get(username);
+        return revocation != null && version <= revocation.version;
+    }
+
+    public boolean isSessionRevoked(String sessionId) {
+        return sessionId != null && revokedSessions.containsKey(sessionId);
+    }
+
+    private void loadAll() {
+        scan(REVOKED_KEY_PREFIX, (username, version) -> record(username, Long.parseLong(version)));
+        scan(SESSION_REVOKED_KEY_PREFIX, (sessionId, value) -> recordSession(sessionId));
+    }
+
+    private void scan(String prefix, BiConsumer<String, String> consumer) {
+        redisTemplate.scan(ScanOptions.scanOptions().match(prefix + "*").count(1000).build())
+            .flatMap(key -> redisTemplate.opsForValue().get(key)
+                .doOnNext(value -> consumer.accept(key.substring(prefix.length()), value)))
+            .subscribe(null, error -> log.warn("Failed to load revoked tokens: {}", error.getMessage()));
+    }
+
+    private void onRevoked(String message) {
+        // 消息格式: username:version
+        int idx = message.lastIndexOf(':');
+        if (idx <= 0) {
+            log.warn("Ignoring malformed revocation message: {}", message);
+            return;
+        }
+        try {
+            record(message.substring(0, idx), Long.parseLong(message.substring(idx + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed revocation message: {}", message);
+        }
+    }
+
+    private void record(String username, long version) {
+        revoked.merge(username, new Revocation(version, System.currentTimeMillis()),
+            (existing, update) -> update.version > existing.version ? update : existing);
+        log.debug("Tokens revoked for user {} up to version {}", username, version);
+    }
+
+    private void recordSession(String sessionId) {
+        revokedSessions.putIfAbsent(sessionId, System.currentTimeMillis());
+        log.debug("Tokens revoked for session {}", sessionId);
+    }
+
+    private void prune() {
+        // 超过access token有效期的吊销记录已无意义
+        long threshold = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(accessTokenExpiration);
+        revoked.values().removeIf(revocation -> revocation.recordedAt < threshold);
+        revokedSessions.values().removeIf(recordedAt -> recordedAt < threshold);
+    }
+
+    private static class Revocation {
+        private final long version;
+        private final long recordedAt;
+
+        Revocation(long version, long recordedAt) {
+            this.version = version;
+            this.recordedAt = recordedAt;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.gateway.auth;
+
+import reactor.core.publisher.Mono;
+
+public interface TokenValidator {
+
+    /**
+     * 校验access token, 不合法时返回 {@link AuthResult#invalid(AuthResult.Reason)}
+     */
+    Mono<AuthResult> validate(String token);
+
+    /**
+     * 丢弃该token的缓存结果(如logout), 默认无缓存
+     */
+    default void invalidate(String token) {
+    }
+}
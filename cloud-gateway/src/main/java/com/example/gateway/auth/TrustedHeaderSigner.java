@@ -0,0 +1,97 @@
+package com.example.gateway.auth;
+
+import com.example.gateway.config.AuthProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * 把认证结果写成下游可信的X-User-*请求头, 并用HMAC-SHA256签名防止伪造.
+ * 签名内容: username\nroles\npermissions\nexpires, 下游(cloud-api)用同一密钥校验.
+ * 紧凑格式时roles为角色id列表、permissions为权限位图, 签名内容末尾追加\n字典版本
+ */
+@Component
+public class TrustedHeaderSigner {
+
+    // 与cloud-api TrustedHeaderAuthenticationFilter保持一致
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_ROLES = "X-User-Roles";
+    public static final String USER_PERMISSIONS = "X-User-Permissions";
+    public static final String USER_EXPIRES = "X-User-Expires";
+    public static final String USER_SIGNATURE = "X-User-Signature";
+    public static final String USER_AUTHORITY_VERSION = "X-User-Authority-Version";
+    private static final String[] USER_HEADERS = {USER_ID, USER_ROLES, USER_PERMISSIONS, USER_EXPIRES, USER_SIGNATURE,
+        USER_AUTHORITY_VERSION};
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKeySpec key;
+    private final boolean compact;
+    // Mac不是线程安全的, 每个事件循环线程复用一个实例
+    private final ThreadLocal<Mac> mac;
+
+    public TrustedHeaderSigner(AuthProperties authProperties) {
+        String secret = authProperties.getTrustedHeader().getSecret();
+        if (!StringUtils.hasText(secret)) {
+            throw new IllegalStateException("gateway.auth.trusted-header.secret must be set");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.compact = authProperties.getTrustedHeader().isCompact();
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * 客户端自带的X-User-*头不可信
+     */
+    public static boolean hasUserHeaders(HttpHeaders headers) {
+        for (String header : USER_HEADERS) {
+            if (headers.containsKey(header)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static void removeUserHeaders(HttpHeaders headers) {
+        for (String header : USER_HEADERS) {
+            headers.remove(header);
+        }
+    }
+
+    public void sign(HttpHeaders headers, AuthResult result) {
+        // 紧凑格式只能转发紧凑格式token的原始编码, 其他token仍按名称转发
+        String authorityVersion = compact ? result.getAuthorityVersion() : null;
+        String roles = authorityVersion != null ? result.getCompactRoles() : String.join(",", result.getRoles());
+        String permissions = authorityVersion != null
+            ? result.getCompactPermissions() : String.join(",", result.getPermissions());
+        String expires = String.valueOf(result.getExpiresAt());
+        String payload = result.getUsername() + "\n" + roles + "\n" + permissions + "\n" + expires;
+        if (authorityVersion != null) {
+            payload += "\n" + authorityVersion;
+            headers.set(USER_AUTHORITY_VERSION, authorityVersion);
+        }
+        byte[] signature = mac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+
+        headers.set(USER_ID, result.getUsername());
+        headers.set(USER_ROLES, roles);
+        headers.set(USER_PERMISSIONS, permissions);
+        headers.set(USER_EXPIRES, expires);
+        headers.set(USER_SIGNATURE, Base64.getUrlEncoder().withoutPadding().encodeToString(signature));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.gateway.config;
+
+import com.example.gateway.auth.AuthorityDictionaryCache;
+import com.example.gateway.auth.BatchingRemoteTokenValidator;
+import com.example.gateway.auth.CachingTokenValidator;
+import com.example.gateway.auth.JwksKeyCache;
+import com.example.gateway.auth.LocalTokenValidator;
+import com.example.gateway.auth.RemoteTokenValidator;
+import com.example.gateway.auth.ResilientTokenValidator;
+import com.example.gateway.auth.TokenRevocationRegistry;
+import com.example.gateway.auth.TokenValidator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+@Configuration
+public class AuthConfig {
+
+    @Bean
+    @ConditionalOnExpression("'${gateway.auth.mode:local}'.equalsIgnoreCase('local') && ${gateway.auth.jwks.enabled:true}")
+    public JwksKeyCache jwksKeyCache(AuthProperties authProperties, WebClient webClient) {
+        return new JwksKeyCache(webClient, authProperties.getJwks());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.auth.mode", havingValue = "local", matchIfMissing = true)
+    public AuthorityDictionaryCache authorityDictionaryCache(AuthProperties authProperties, WebClient webClient) {
+        return new AuthorityDictionaryCache(webClient, authProperties.getDictionary());
+    }
+
+    @Bean
+    public TokenValidator tokenValidator(AuthProperties authProperties,
+                                         WebClient webClient,
+                                         TokenRevocationRegistry revocationRegistry,
+                                         MeterRegistry meterRegistry,
+                                         ObjectProvider<JwksKeyCache> jwksKeyCache,
+                                         ObjectProvider<AuthorityDictionaryCache> dictionaryCache,
+                                         @Value("${jwt.secret:}") String secret) {
+        TokenValidator validator = authProperties.getMode() == AuthProperties.Mode.REMOTE
+            ? new ResilientTokenValidator(remoteValidator(authProperties.getRemote(), webClient, meterRegistry),
+                authProperties.getRemote(), revocationRegistry, meterRegistry)
+            : new LocalTokenValidator(secret, jwksKeyCache.getIfAvailable(), dictionaryCache.getIfAvailable(),
+                revocationRegistry);
+        if (authProperties.getCache().isEnabled()) {
+            validator = new CachingTokenValidator(validator, authProperties.getCache(), revocationRegistry, meterRegistry);
+        }
+        return validator;
+    }
+
+    private static TokenValidator remoteValidator(AuthProperties.Remote remote, WebClient webClient, MeterRegistry meterRegistry) {
+        return remote.getBatch().isEnabled()
+            ? new BatchingRemoteTokenValidator(webClient, remote.getBatch(), meterRegistry)
+            : new RemoteTokenValidator(webClient);
+    }
+}
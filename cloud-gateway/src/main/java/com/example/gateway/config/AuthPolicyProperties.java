@@ -0,0 +1,41 @@
+package com.example.gateway.config;
+
+import com.example.gateway.auth.AuthPolicy;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * gateway.auth下的路径策略, 不注册为Bean:
+ * 由AuthPolicyRegistry在启动及Nacos推送变更时用Binder绑定新实例, 编译后整体替换
+ */
+@Data
+public class AuthPolicyProperties {
+
+    public static final String PREFIX = "gateway.auth";
+
+    /**
+     * 未匹配任何策略的路径
+     */
+    private AuthPolicy.Access defaultAccess = AuthPolicy.Access.AUTHENTICATED;
+
+    private List<Policy> policies = new ArrayList<>();
+
+    @Data
+    public static class Policy {
+        /**
+         * 按'/'分段, 每段为字面量、*(任意一段)或**(其后任意多段, 只能是最后一段)
+         */
+        private String pattern;
+        /**
+         * 为空表示所有方法
+         */
+        private List<String> methods = new ArrayList<>();
+        private AuthPolicy.Access access = AuthPolicy.Access.AUTHENTICATED;
+        private Set<String> roles = new HashSet<>();
+        private Set<String> permissions = new HashSet<>();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.auth")
+public class AuthProperties {
+
+    /**
+     * token校验方式
+     */
+    private Mode mode = Mode.LOCAL;
+
+    private Cache cache = new Cache();
+
+    private TrustedHeader trustedHeader = new TrustedHeader();
+
+    /**
+     * remote模式下调用cloud-security的超时、连接池、熔断和降级配置
+     */
+    private Remote remote = new Remote();
+
+    /**
+     * local模式下校验非对称签名token的公钥来源
+     */
+    private Jwks jwks = new Jwks();
+
+    /**
+     * local模式下解码紧凑格式token的角色/权限字典
+     */
+    private Dictionary dictionary = new Dictionary();
+
+    public enum Mode {
+        LOCAL,
+        REMOTE
+    }
+
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+        private long maximumSize = 100_000;
+        private Duration ttl = Duration.ofMinutes(5);
+        private Duration negativeTtl = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class TrustedHeader {
+        /**
+         * X-User-*请求头的HMAC密钥, 需与下游服务一致
+         */
+        private String secret;
+        /**
+         * 紧凑格式token的角色、权限按id和位图转发, 下游需支持X-User-Authority-Version
+         */
+        private boolean compact = false;
+    }
+
+    @Data
+    public static class Remote {
+        private Duration connectTimeout = Duration.ofMillis(500);
+        private Duration responseTimeout = Duration.ofSeconds(2);
+        private int maxConnections = 200;
+        /**
+         * 等待连接的请求数上限, 超出立即失败而不是排队
+         */
+        private int pendingAcquireMaxCount = 500;
+        private Duration pendingAcquireTimeout = Duration.ofMillis(500);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Batch batch = new Batch();
+        private CircuitBreaker circuitBreaker = new CircuitBreaker();
+        private Degraded degraded = new Degraded();
+    }
+
+    @Data
+    public static class Jwks {
+        /**
+         * 关闭时只接受HS256(jwt.secret)签名的token
+         */
+        private boolean enabled = true;
+        private String uri = "lb://cloud-security/auth/.well-known/jwks.json";
+        private Duration refreshInterval = Duration.ofMinutes(5);
+        /**
+         * 遇到未知kid触发拉取的最小间隔
+         */
+        private Duration minRefreshInterval = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Dictionary {
+        private String uri = "lb://cloud-security/auth/authorities/dictionary";
+        private Duration refreshInterval = Duration.ofMinutes(5);
+        /**
+         * token中的字典版本与本地不一致时触发拉取的最小间隔
+         */
+        private Duration minRefreshInterval = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class Batch {
+        /**
+         * 合并并发的校验请求, 调用/auth/validate/batch
+         */
+        private boolean enabled = true;
+        private Duration window = Duration.ofMillis(2);
+        /**
+         * 不超过cloud-security的jwt.validate.max-batch-size
+         */
+        private int maxSize = 100;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        private float failureRateThreshold = 50;
+        private Duration slowCallDurationThreshold = Duration.ofSeconds(1);
+        private float slowCallRateThreshold = 80;
+        private int slidingWindowSize = 50;
+        private int minimumNumberOfCalls = 20;
+        /**
+         * 打开后经过该时间进入半开状态, 放行少量探测请求
+         */
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+        private int permittedCallsInHalfOpenState = 5;
+    }
+
+    @Data
+    public static class Degraded {
+        /**
+         * cloud-security不可用时, 用最近校验通过的结果继续放行未过期的token
+         */
+        private boolean enabled = true;
+        private long maximumSize = 50_000;
+        private Duration ttl = Duration.ofMinutes(30);
+    }
+}
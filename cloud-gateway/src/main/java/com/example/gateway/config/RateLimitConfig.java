@@ -0,0 +1,19 @@
+package com.example.gateway.config;
+
+import com.example.gateway.ratelimit.LocalRateLimiter;
+import com.example.gateway.ratelimit.RateLimiter;
+import com.example.gateway.ratelimit.RedisRateLimiter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+@Configuration
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimiter rateLimiter(RateLimitProperties properties, ReactiveStringRedisTemplate redisTemplate) {
+        return properties.getMode() == RateLimitProperties.Mode.REDIS
+            ? new RedisRateLimiter(redisTemplate, properties)
+            : new LocalRateLimiter(properties);
+    }
+}
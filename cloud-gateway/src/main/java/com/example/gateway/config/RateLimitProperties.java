@@ -0,0 +1,74 @@
+package com.example.gateway.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * local: 每个网关实例单独计数; redis: 所有实例共享计数
+     */
+    private Mode mode = Mode.LOCAL;
+
+    /**
+     * 需要限流的路径(精确匹配)
+     */
+    private List<String> paths = new ArrayList<>(List.of("/auth/login", "/auth/register"));
+
+    /**
+     * 登录失败(401)后按用户名退避
+     */
+    private String loginPath = "/auth/login";
+
+    /**
+     * 网关前面有可信的负载均衡时, 从X-Forwarded-For取客户端IP
+     */
+    private boolean trustForwardedFor = false;
+
+    /**
+     * 本地模式下保留的计数key上限
+     */
+    private long maximumKeys = 100_000;
+
+    private Limit ip = new Limit(20, 1.0);
+
+    private Limit username = new Limit(5, 0.2);
+
+    private Backoff backoff = new Backoff();
+
+    public enum Mode {
+        LOCAL,
+        REDIS
+    }
+
+    /**
+     * 令牌桶: capacity为突发上限, refillPerSecond为每秒补充的令牌数
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private int capacity;
+        private double refillPerSecond;
+    }
+
+    @Data
+    public static class Backoff {
+        /**
+         * 连续失败达到该次数后开始退避
+         */
+        private int threshold = 3;
+        private Duration initial = Duration.ofSeconds(1);
+        private Duration max = Duration.ofMinutes(15);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 路由ResponseCache过滤器共用的响应缓存, 各路由的ttl等在路由的filters中配置
+ */
+@Data
+@ConfigurationProperties(prefix = "gateway.response-cache")
+public class ResponseCacheProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * 所有缓存响应体的总大小上限, 超出时淘汰最近最少使用的条目
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 单个响应体上限; 超出或没有Content-Length(chunked)的响应不缓存, 直接转发
+     */
+    private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+}
@@ -1,21 +1,42 @@
 package com.example.gateway.config;
 
+import io.micrometer.observation.ObservationRegistry;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 @Configuration
 public class WebClientConfig {
 
     @Bean
     @LoadBalanced
-    public WebClient.Builder loadBalancedWebClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder loadBalancedWebClientBuilder(AuthProperties authProperties,
+                                                          ObjectProvider<ObservationRegistry> observationRegistry) {
+        AuthProperties.Remote remote = authProperties.getRemote();
+        // 独立的有界连接池, cloud-security变慢时排队请求快速失败, 不拖垮网关
+        ConnectionProvider provider = ConnectionProvider.builder("auth-validation")
+            .maxConnections(remote.getMaxConnections())
+            .pendingAcquireMaxCount(remote.getPendingAcquireMaxCount())
+            .pendingAcquireTimeout(remote.getPendingAcquireTimeout())
+            .maxIdleTime(remote.getMaxIdleTime())
+            .build();
+        HttpClient httpClient = HttpClient.create(provider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) remote.getConnectTimeout().toMillis())
+            .responseTimeout(remote.getResponseTimeout());
+        return WebClient.builder()
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            // 记录http.client.requests并把traceparent传给cloud-security
+            .observationRegistry(observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP));
     }
 
     @Bean
     public WebClient webClient(WebClient.Builder builder) {
         return builder.build();
     }
-} 
\ No newline at end of file
+} 
@@ -1,67 +1,112 @@
 package com.example.gateway.filter;
 
-import lombok.RequiredArgsConstructor;
+import com.example.gateway.auth.AuthPolicy;
+import com.example.gateway.auth.AuthPolicyRegistry;
+import com.example.gateway.auth.AuthServiceUnavailableException;
+import com.example.gateway.auth.PathPolicyMatcher;
+import com.example.gateway.auth.TokenValidator;
+import com.example.gateway.auth.TrustedHeaderSigner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Component
-@RequiredArgsConstructor
 public class AuthGlobalFilter implements GlobalFilter, Ordered {
 
-    private final WebClient webClient;
-    private static final List<String> WHITELIST = List.of(
-        "/auth/login",
-        "/auth/register",
-        "/auth/refresh",
-        "/auth/validate",
-        "/public/"
-    );
+    private static final String LOGOUT_PATH = "/auth/logout";
+    private static final String VALIDATE_TIMER = "gateway.auth.validate";
+    // 除AuthResult.Reason外的outcome
+    private static final String OUTCOME_MISSING_TOKEN = "missing_token";
+    private static final String OUTCOME_FORBIDDEN = "forbidden";
+    private static final String OUTCOME_UNAVAILABLE = "unavailable";
+    private static final String OUTCOME_ERROR = "error";
+
+    private final TokenValidator tokenValidator;
+    private final AuthPolicyRegistry policyRegistry;
+    private final TrustedHeaderSigner headerSigner;
+    private final MeterRegistry meterRegistry;
+    // outcome -> timer, 避免每个请求按标签查找注册表
+    private final Map<String, Timer> validateTimers = new ConcurrentHashMap<>();
+
+    public AuthGlobalFilter(TokenValidator tokenValidator,
+                            AuthPolicyRegistry policyRegistry,
+                            TrustedHeaderSigner headerSigner,
+                            MeterRegistry meterRegistry) {
+        this.tokenValidator = tokenValidator;
+        this.policyRegistry = policyRegistry;
+        this.headerSigner = headerSigner;
+        this.meterRegistry = meterRegistry;
+    }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        // 客户端伪造的用户头一律清除, 只有网关签名写入的才会到达下游
+        if (TrustedHeaderSigner.hasUserHeaders(exchange.getRequest().getHeaders())) {
+            exchange = exchange.mutate()
+                .request(builder -> builder.headers(TrustedHeaderSigner::removeUserHeaders))
+                .build();
+        }
+        return authenticate(exchange, chain);
+    }
+
+    private Mono<Void> authenticate(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
-        String path = request.getPath().value();
+        // 下游会解码路径并去掉;参数, 按同样规则规范化后再匹配, 否则/auth/%72evoke可绕过/auth/revoke的策略
+        String path = PathPolicyMatcher.normalize(request.getPath().value());
+        if (path == null) {
+            exchange.getResponse().setStatusCode(HttpStatus.BAD_REQUEST);
+            return exchange.getResponse().setComplete();
+        }
 
-        if (WHITELIST.stream().anyMatch(path::startsWith)) {
+        // 按gateway.auth.policies匹配访问策略
+        AuthPolicy policy = policyRegistry.match(request.getMethod(), path);
+        if (policy.isPublic()) {
             return chain.filter(exchange);
         }
 
         // 获取token
         String token = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
         if (token == null || !token.startsWith("Bearer ")) {
+            record(OUTCOME_MISSING_TOKEN, System.nanoTime());
             exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
             return exchange.getResponse().setComplete();
         }
 
-        // 调用security服务验证token
-        return webClient.get()
-            .uri("lb://cloud-security/auth/validate")
-            .header(HttpHeaders.AUTHORIZATION, token)
-            .retrieve()
-            .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-            .flatMap(response -> {
-        boolean isValid = (boolean) response.get("isValid");
-        if (isValid) {
-            String username = (String) response.get("username");
-            @SuppressWarnings("unchecked")
-            List<String> roles = (List<String>) response.get("roles");
-            
-            // 将用户信息添加到请求头中，传递给下游微服务
+        // 校验token (默认在网关本地验签, 见 gateway.auth.mode)
+        String jwt = token.substring(7);
+        long start = System.nanoTime();
+        return tokenValidator.validate(jwt)
+            // 只统计校验本身的耗时和结果, 不含下游转发
+            .doOnNext(result -> record(result.isValid() && !policy.permits(result)
+                ? OUTCOME_FORBIDDEN : result.getReason().tag(), start))
+            .doOnError(error -> record(error instanceof AuthServiceUnavailableException
+                ? OUTCOME_UNAVAILABLE : OUTCOME_ERROR, start))
+            .flatMap(result -> {
+        if (result.isValid()) {
+            // 角色或权限不满足路由策略时直接拒绝, 不转发到下游
+            if (!policy.permits(result)) {
+                exchange.getResponse().setStatusCode(HttpStatus.FORBIDDEN);
+                return exchange.getResponse().setComplete();
+            }
+            if (LOGOUT_PATH.equals(path)) {
+                tokenValidator.invalidate(jwt);
+            }
+
+            // 将用户信息签名后添加到请求头中，传递给下游微服务
             ServerHttpRequest modifiedRequest = exchange.getRequest().mutate()
-                .header("X-User-Id", username)
-                .header("X-User-Roles", String.join(",", roles))
+                .headers(headers -> headerSigner.sign(headers, result))
                 .build();
             
             // 使用修改后的请求构建新的 ServerWebExchange
@@ -74,11 +119,27 @@ public class AuthGlobalFilter implements GlobalFilter, Ordered {
                 }
             })
             .onErrorResume(error -> {
+                if (error instanceof AuthServiceUnavailableException unavailable) {
+                    // 无法确认token是否合法, 返回503让客户端重试而不是要求重新登录
+                    exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                    exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                        String.valueOf(unavailable.getRetryAfterSeconds()));
+                    return exchange.getResponse().setComplete();
+                }
                 exchange.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED);
                 return exchange.getResponse().setComplete();
             });
     }
 
+    private void record(String outcome, long start) {
+        validateTimers.computeIfAbsent(outcome, key -> Timer.builder(VALIDATE_TIMER)
+                .description("Gateway token validation latency by outcome")
+                .tag("outcome", key)
+                .publishPercentileHistogram()
+                .register(meterRegistry))
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
     @Override
     public int getOrder() {
         return -100; // 确保这个过滤器最先执行
@@ -0,0 +1,154 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.auth.PathPolicyMatcher;
+import com.example.gateway.config.RateLimitProperties;
+import com.example.gateway.ratelimit.RateLimiter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * 登录、注册接口按IP和用户名限流, 登录连续失败的用户名按指数退避.
+ * 先按IP判定(不读取请求体), 通过后才缓存请求体解析用户名
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    private static final String IP_KEY_PREFIX = "ip:";
+    private static final String USER_KEY_PREFIX = "user:";
+    // 只解析较小的请求体
+    private static final int MAX_BODY_BYTES = 4096;
+
+    private final RateLimitProperties properties;
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        String path = limitedPath(exchange.getRequest().getPath().value());
+        if (path == null) {
+            return chain.filter(exchange);
+        }
+
+        return rateLimiter.acquire(IP_KEY_PREFIX + clientIp(exchange.getRequest()), properties.getIp())
+            .flatMap(wait -> wait > 0
+                ? reject(exchange, wait)
+                : ServerWebExchangeUtils.cacheRequestBodyAndRequest(exchange,
+                    request -> limitUsername(exchange.mutate().request(request).build(), chain, path)));
+    }
+
+    /**
+     * 按规范化后的路径匹配(与AuthGlobalFilter一致), 否则/auth/%6Cogin、/auth/login;x=1可绕过限流;
+     * 以配置路径结尾的也算命中, 覆盖带服务名前缀的路由(如/cloud-security/auth/login).
+     * 返回命中的配置路径, 无法规范化的路径由AuthGlobalFilter返回400
+     */
+    private String limitedPath(String rawPath) {
+        String path = PathPolicyMatcher.normalize(rawPath);
+        if (path == null) {
+            return null;
+        }
+        for (String limited : properties.getPaths()) {
+            // 配置路径以'/'开头, 后缀匹配即在段边界上
+            if (path.endsWith(limited)) {
+                return limited;
+            }
+        }
+        return null;
+    }
+
+    private Mono<Void> limitUsername(ServerWebExchange exchange, GatewayFilterChain chain, String path) {
+        String username = readUsername(exchange);
+        if (username == null) {
+            return chain.filter(exchange);
+        }
+        return rateLimiter.acquire(USER_KEY_PREFIX + username, properties.getUsername())
+            .flatMap(wait -> {
+                if (wait > 0) {
+                    return reject(exchange, wait);
+                }
+                Mono<Void> result = chain.filter(exchange);
+                if (!properties.getLoginPath().equals(path)) {
+                    return result;
+                }
+                return result.doOnSuccess(v -> recordLoginOutcome(exchange, username));
+            });
+    }
+
+    private void recordLoginOutcome(ServerWebExchange exchange, String username) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status == null) {
+            return;
+        }
+        if (status.value() == HttpStatus.UNAUTHORIZED.value()) {
+            rateLimiter.recordFailure(USER_KEY_PREFIX + username);
+        } else if (status.is2xxSuccessful()) {
+            rateLimiter.recordSuccess(USER_KEY_PREFIX + username);
+        }
+    }
+
+    private String readUsername(ServerWebExchange exchange) {
+        DataBuffer body = exchange.getAttribute(ServerWebExchangeUtils.CACHED_REQUEST_BODY_ATTR);
+        if (body == null || body.readableByteCount() == 0 || body.readableByteCount() > MAX_BODY_BYTES) {
+            return null;
+        }
+        try {
+            // toString不移动读指针, 请求体仍会完整转发到下游
+            JsonNode username = objectMapper.readTree(body.toString(StandardCharsets.UTF_8)).get("username");
+            if (username == null || !username.isTextual() || username.asText().isBlank()) {
+                return null;
+            }
+            // 用户名不区分大小写, 避免换大小写绕过
+            return username.asText().trim().toLowerCase(Locale.ROOT);
+        } catch (Exception e) {
+            log.debug("Unable to read username from request body: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private String clientIp(ServerHttpRequest request) {
+        if (properties.isTrustForwardedFor()) {
+            String forwardedFor = request.getHeaders().getFirst("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                int comma = forwardedFor.indexOf(',');
+                return (comma > 0 ? forwardedFor.substring(0, comma) : forwardedFor).trim();
+            }
+        }
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null && remoteAddress.getAddress() != null
+            ? remoteAddress.getAddress().getHostAddress()
+            : "unknown";
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, long waitMillis) {
+        exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf((waitMillis + 999) / 1000));
+        return exchange.getResponse().setComplete();
+    }
+
+    @Override
+    public int getOrder() {
+        return -200; // 在鉴权过滤器之前执行
+    }
+}
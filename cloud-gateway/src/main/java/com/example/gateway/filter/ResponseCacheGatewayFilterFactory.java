@@ -0,0 +1,352 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.auth.TrustedHeaderSigner;
+import com.example.gateway.config.ResponseCacheProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 路由级响应缓存, 用法: filters: - name: ResponseCache, args: {ttl: 60s, vary-headers: [Accept-Language], per-user: true}.
+ * 只缓存GET的200响应, 键为路由+路径+查询串+vary-headers的值(per-user时再加网关签发的用户名和权限头),
+ * 缓存时间取上游max-age/s-maxage与ttl的较小值, 上游no-store/no-cache/Set-Cookie的响应不缓存.
+ * 同一键并发未命中时只有一个请求访问上游, 其余等待其结果; 响应带ETag, If-None-Match匹配时返回304
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    static final String CACHE_STATUS = "X-Cache";
+    // 命中时回放的上游响应头, 其余(如CORS、链路追踪)由网关按当前请求生成
+    private static final List<String> STORED_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING,
+        HttpHeaders.CONTENT_LANGUAGE, HttpHeaders.CACHE_CONTROL, HttpHeaders.LAST_MODIFIED, HttpHeaders.VARY);
+    // per-user时计入键的网关签发头: 角色、权限或权限字典版本变化后(如撤销角色后重新签发token)不再命中旧响应
+    private static final List<String> USER_KEY_HEADERS = List.of(TrustedHeaderSigner.USER_ROLES,
+        TrustedHeaderSigner.USER_PERMISSIONS, TrustedHeaderSigner.USER_AUTHORITY_VERSION);
+
+    private final ResponseCacheProperties properties;
+    private final AsyncCache<String, CachedResponse> cache;
+    private final Counter hits;
+    private final Counter coalesced;
+    private final Counter misses;
+    private final Counter bypassed;
+
+    public ResponseCacheGatewayFilterFactory(ResponseCacheProperties properties, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.properties = properties;
+        // 按响应体字节数计权; Caffeine的W-TinyLFU淘汰近似LRU, 但不会被一次性扫描冲掉热点
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxSize().toBytes())
+            .weigher((String key, CachedResponse response) -> key.length() + response.body().length)
+            .expireAfter(new TtlExpiry())
+            .buildAsync();
+        this.hits = counter(meterRegistry, "hit");
+        this.coalesced = counter(meterRegistry, "coalesced");
+        this.misses = counter(meterRegistry, "miss");
+        this.bypassed = counter(meterRegistry, "bypass");
+        Gauge.builder("gateway.response.cache.bytes", cache,
+                c -> c.synchronous().policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+            .register(meterRegistry);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("ttl");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> filter(exchange, chain, config);
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, Config config) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!properties.isEnabled() || request.getMethod() != HttpMethod.GET) {
+            return chain.filter(exchange);
+        }
+        Map<String, String> directives = directives(request.getHeaders().getCacheControl());
+        String key = key(exchange, config);
+        if (key == null || directives.containsKey("no-store")) {
+            bypassed.increment();
+            return chain.filter(exchange);
+        }
+        // 客户端要求重新验证时丢弃已有条目, 由本请求回源
+        if (directives.containsKey("no-cache") || "0".equals(directives.get("max-age"))) {
+            cache.synchronous().invalidate(key);
+        }
+
+        CompletableFuture<CachedResponse> created = new CompletableFuture<>();
+        CompletableFuture<CachedResponse> existing = cache.asMap().putIfAbsent(key, created);
+        if (existing == null) {
+            misses.increment();
+            return fetch(exchange, chain, config, created);
+        }
+        boolean hit = existing.isDone();
+        // 上游响应不可缓存或回源失败时(future为null或异常), 各自访问上游
+        return Mono.fromFuture(existing, true)
+            .map(Optional::of)
+            .onErrorReturn(Optional.empty())
+            .defaultIfEmpty(Optional.empty())
+            .flatMap(cached -> {
+                if (cached.isEmpty()) {
+                    return chain.filter(exchange);
+                }
+                (hit ? hits : coalesced).increment();
+                return write(exchange, cached.get(), hit ? "HIT" : "COALESCED");
+            });
+    }
+
+    /**
+     * 回源并在写出响应体时填充缓存; 无论响应是否可缓存都会完成future, 等待中的请求不会挂起
+     */
+    private Mono<Void> fetch(ServerWebExchange exchange, GatewayFilterChain chain, Config config,
+                             CompletableFuture<CachedResponse> created) {
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponseDecorator response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                Duration ttl = cacheableFor(getStatusCode(), getHeaders(), config);
+                if (ttl == null) {
+                    created.complete(null);
+                    return super.writeWith(body);
+                }
+                return DataBufferUtils.join(body).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+                    CachedResponse cached = CachedResponse.of(getHeaders(), bytes, ttl);
+                    created.complete(cached);
+                    getHeaders().setETag(cached.etag());
+                    if (notModified(request, cached.etag())) {
+                        return notModifiedResponse(getDelegate());
+                    }
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                // 流式响应不缓存
+                created.complete(null);
+                return super.writeAndFlushWith(body);
+            }
+        };
+        response.getHeaders().set(CACHE_STATUS, "MISS");
+        // 出错、取消或没有响应体时不缓存
+        return chain.filter(exchange.mutate().response(response).build())
+            .doFinally(signal -> created.complete(null));
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, CachedResponse cached, String status) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        cached.headers().forEach((name, values) -> headers.put(name, new ArrayList<>(values)));
+        headers.setETag(cached.etag());
+        headers.set(HttpHeaders.AGE, String.valueOf(cached.ageSeconds()));
+        headers.set(CACHE_STATUS, status);
+        if (notModified(exchange.getRequest(), cached.etag())) {
+            return notModifiedResponse(response);
+        }
+        response.setStatusCode(HttpStatus.OK);
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(cached.body())));
+    }
+
+    private static Mono<Void> notModifiedResponse(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        return response.setComplete();
+    }
+
+    /**
+     * 可缓存时返回缓存时间, 否则返回null
+     */
+    private Duration cacheableFor(HttpStatusCode status, HttpHeaders headers, Config config) {
+        if (status == null || status.value() != HttpStatus.OK.value() || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return null;
+        }
+        // 没有Content-Length时无法预先判断大小, 不缓存
+        long length = headers.getContentLength();
+        if (length < 0 || length > properties.getMaxEntrySize().toBytes()) {
+            return null;
+        }
+        // 上游按未计入键的请求头区分响应时不能缓存
+        for (String vary : headers.getVary()) {
+            if ("*".equals(vary) || config.getVaryHeaders().stream().noneMatch(vary::equalsIgnoreCase)) {
+                return null;
+            }
+        }
+        Map<String, String> directives = directives(headers.getCacheControl());
+        if (directives.containsKey("no-store") || directives.containsKey("no-cache")
+            || directives.containsKey("private") && !config.isPerUser()) {
+            return null;
+        }
+        Duration ttl = config.getTtl();
+        String maxAge = directives.getOrDefault("s-maxage", directives.get("max-age"));
+        if (maxAge != null) {
+            try {
+                ttl = Duration.ofSeconds(Math.min(ttl.getSeconds(), Long.parseLong(maxAge)));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return ttl.isZero() || ttl.isNegative() ? null : ttl;
+    }
+
+    /**
+     * per-user路由没有X-User-Id(未登录)时返回null, 不缓存
+     */
+    private static String key(ServerWebExchange exchange, Config config) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        StringBuilder key = new StringBuilder(route != null ? route.getId() : "")
+            .append(' ').append(request.getURI().getRawPath());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        for (String header : config.getVaryHeaders()) {
+            key.append('\n').append(header).append(':').append(String.join(",", request.getHeaders().getOrEmpty(header)));
+        }
+        if (config.isPerUser()) {
+            // AuthGlobalFilter已清除客户端传入的X-User-*, 这里的值由网关签发
+            String userId = request.getHeaders().getFirst(TrustedHeaderSigner.USER_ID);
+            if (userId == null) {
+                return null;
+            }
+            key.append('\n').append(TrustedHeaderSigner.USER_ID).append(':').append(userId);
+            for (String header : USER_KEY_HEADERS) {
+                String value = request.getHeaders().getFirst(header);
+                if (value != null) {
+                    key.append('\n').append(header).append(':').append(value);
+                }
+            }
+        }
+        return key.toString();
+    }
+
+    private static boolean notModified(ServerHttpRequest request, String etag) {
+        for (String candidate : request.getHeaders().getIfNoneMatch()) {
+            // If-None-Match使用弱比较
+            if ("*".equals(candidate) || opaque(candidate).equals(opaque(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaque(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static Map<String, String> directives(String cacheControl) {
+        if (cacheControl == null || cacheControl.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> directives = new HashMap<>();
+        for (String directive : cacheControl.split(",")) {
+            int idx = directive.indexOf('=');
+            String name = (idx < 0 ? directive : directive.substring(0, idx)).trim().toLowerCase(Locale.ROOT);
+            String value = idx < 0 ? "" : directive.substring(idx + 1).trim().replace("\"", "");
+            directives.put(name, value);
+        }
+        return directives;
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.response.cache").tag("result", result).register(meterRegistry);
+    }
+
+    @Data
+    public static class Config {
+
+        /**
+         * 缓存时间上限, 上游max-age更短时以上游为准
+         */
+        private Duration ttl = Duration.ofSeconds(60);
+
+        /**
+         * 计入缓存键的请求头, 上游Vary只能包含这些头
+         */
+        private List<String> varyHeaders = new ArrayList<>();
+
+        /**
+         * 按用户缓存: 键包含X-User-Id及角色、权限头, 允许缓存Cache-Control: private的响应
+         */
+        private boolean perUser;
+    }
+
+    private record CachedResponse(HttpHeaders headers, byte[] body, String etag, long storedNanos, long ttlNanos) {
+
+        static CachedResponse of(HttpHeaders upstream, byte[] body, Duration ttl) {
+            HttpHeaders headers = new HttpHeaders();
+            STORED_HEADERS.forEach(name -> {
+                List<String> values = upstream.get(name);
+                if (values != null) {
+                    headers.put(name, List.copyOf(values));
+                }
+            });
+            String etag = upstream.getETag() != null ? upstream.getETag() : etag(body);
+            return new CachedResponse(headers, body, etag, System.nanoTime(), ttl.toNanos());
+        }
+
+        long ageSeconds() {
+            return Duration.ofNanos(System.nanoTime() - storedNanos).getSeconds();
+        }
+
+        // 上游没有ETag时按响应体生成强ETag
+        private static String etag(byte[] body) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+                return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"";
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class TtlExpiry implements Expiry<String, CachedResponse> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return value.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.gateway.ratelimit;
+
+import com.example.gateway.config.RateLimitProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内限流: 每个key一个GCRA令牌桶, 状态只有一个long(理论到达时间), 用CAS更新, 无锁
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    private static final Mono<Long> ALLOWED = Mono.just(0L);
+
+    private final RateLimitProperties.Backoff backoff;
+    private final Cache<String, AtomicLong> buckets;
+    // key -> 退避状态
+    private final Cache<String, Failures> failures;
+
+    public LocalRateLimiter(RateLimitProperties properties) {
+        this.backoff = properties.getBackoff();
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumKeys())
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+        this.failures = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumKeys())
+            .expireAfterWrite(backoff.getMax())
+            .build();
+    }
+
+    @Override
+    public Mono<Long> acquire(String key, RateLimitProperties.Limit limit) {
+        long now = System.nanoTime();
+        Failures state = failures.getIfPresent(key);
+        if (state != null && state.blockedUntil - now > 0) {
+            return Mono.just(TimeUnit.NANOSECONDS.toMillis(state.blockedUntil - now) + 1);
+        }
+
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getRefillPerSecond());
+        long tolerance = interval * (limit.getCapacity() - 1);
+        AtomicLong tat = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = tat.get();
+            long start = current - now > 0 ? current : now;
+            long wait = start - now - tolerance;
+            if (wait > 0) {
+                return Mono.just(TimeUnit.NANOSECONDS.toMillis(wait) + 1);
+            }
+            if (tat.compareAndSet(current, start + interval)) {
+                return ALLOWED;
+            }
+        }
+    }
+
+    @Override
+    public void recordFailure(String key) {
+        failures.asMap().compute(key, (k, current) -> {
+            int count = current != null ? current.count + 1 : 1;
+            return new Failures(count, System.nanoTime() + backoffNanos(count));
+        });
+    }
+
+    @Override
+    public void recordSuccess(String key) {
+        failures.invalidate(key);
+    }
+
+    private long backoffNanos(int count) {
+        int exponent = count - backoff.getThreshold();
+        if (exponent < 0) {
+            return 0L;
+        }
+        long initial = backoff.getInitial().toNanos();
+        long max = backoff.getMax().toNanos();
+        // initial * 2^exponent, 不超过max
+        return exponent >= 62 || initial > (max >> Math.min(exponent, 62)) ? max : initial << exponent;
+    }
+
+    private static final class Failures {
+        private final int count;
+        private final long blockedUntil;
+
+        Failures(int count, long blockedUntil) {
+            this.count = count;
+            this.blockedUntil = blockedUntil;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.gateway.ratelimit;
+
+import com.example.gateway.config.RateLimitProperties;
+import reactor.core.publisher.Mono;
+
+/**
+ * 令牌桶限流, 并对连续登录失败的key做指数退避
+ */
+public interface RateLimiter {
+
+    /**
+     * 取一个令牌, key处于退避期时同样拒绝
+     * @return 0表示放行, 否则为建议的等待毫秒数
+     */
+    Mono<Long> acquire(String key, RateLimitProperties.Limit limit);
+
+    void recordFailure(String key);
+
+    void recordSuccess(String key);
+}
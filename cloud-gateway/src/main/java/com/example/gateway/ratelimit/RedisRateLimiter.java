@@ -0,0 +1,94 @@
+package com.example.gateway.ratelimit;
+
+import com.example.gateway.config.RateLimitProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * 多个网关实例共享的限流: 同样是GCRA令牌桶, 每次判定一次Lua脚本往返.
+ * Redis不可用时放行(fail-open), 不因限流组件故障影响登录
+ */
+@Slf4j
+public class RedisRateLimiter implements RateLimiter {
+
+    private static final String BUCKET_KEY_PREFIX = "rate_limit:";
+    private static final String FAILURES_KEY_PREFIX = "login_failures:";
+    private static final String BLOCKED_KEY_PREFIX = "login_blocked:";
+
+    // KEYS: 令牌桶key, 退避key; ARGV: 令牌间隔(ms), 突发容忍(ms)
+    // 返回0表示放行, 否则为等待毫秒数
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = RedisScript.of("""
+        local blocked = redis.call('PTTL', KEYS[2])
+        if blocked > 0 then
+            return blocked
+        end
+        local time = redis.call('TIME')
+        local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+        local interval = tonumber(ARGV[1])
+        local tat = tonumber(redis.call('GET', KEYS[1]) or now)
+        if tat < now then
+            tat = now
+        end
+        local wait = tat - now - tonumber(ARGV[2])
+        if wait > 0 then
+            return wait
+        end
+        redis.call('SET', KEYS[1], tat + interval, 'PX', tat + interval - now)
+        return 0
+        """, Long.class);
+
+    // KEYS: 失败计数key, 退避key; ARGV: 阈值, 初始退避(ms), 最大退避(ms)
+    private static final RedisScript<Long> FAILURE_SCRIPT = RedisScript.of("""
+        local count = redis.call('INCR', KEYS[1])
+        redis.call('PEXPIRE', KEYS[1], ARGV[3])
+        local exponent = count - tonumber(ARGV[1])
+        if exponent >= 0 then
+            local delay = math.min(tonumber(ARGV[2]) * math.pow(2, math.min(exponent, 40)), tonumber(ARGV[3]))
+            redis.call('SET', KEYS[2], '1', 'PX', math.floor(delay))
+        end
+        return count
+        """, Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RateLimitProperties.Backoff backoff;
+
+    public RedisRateLimiter(ReactiveStringRedisTemplate redisTemplate, RateLimitProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.backoff = properties.getBackoff();
+    }
+
+    @Override
+    public Mono<Long> acquire(String key, RateLimitProperties.Limit limit) {
+        long interval = Math.max(1L, (long) (1000 / limit.getRefillPerSecond()));
+        long tolerance = interval * (limit.getCapacity() - 1);
+        return redisTemplate.execute(ACQUIRE_SCRIPT,
+                List.of(BUCKET_KEY_PREFIX + key, BLOCKED_KEY_PREFIX + key),
+                List.of(String.valueOf(interval), String.valueOf(tolerance)))
+            .next()
+            .defaultIfEmpty(0L)
+            .onErrorResume(e -> {
+                log.warn("Rate limiter unavailable, allowing request: {}", e.getMessage());
+                return Mono.just(0L);
+            });
+    }
+
+    @Override
+    public void recordFailure(String key) {
+        redisTemplate.execute(FAILURE_SCRIPT,
+                List.of(FAILURES_KEY_PREFIX + key, BLOCKED_KEY_PREFIX + key),
+                List.of(String.valueOf(backoff.getThreshold()),
+                    String.valueOf(backoff.getInitial().toMillis()),
+                    String.valueOf(backoff.getMax().toMillis())))
+            .subscribe(count -> { }, e -> log.warn("Failed to record login failure: {}", e.getMessage()));
+    }
+
+    @Override
+    public void recordSuccess(String key) {
+        redisTemplate.delete(FAILURES_KEY_PREFIX + key, BLOCKED_KEY_PREFIX + key)
+            .subscribe(count -> { }, e -> log.warn("Failed to reset login failures: {}", e.getMessage()));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.gateway.auth;
+
+import com.example.gateway.config.AuthPolicyProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpMethod;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PathPolicyMatcherTest {
+
+    private static final PathPolicyMatcher MATCHER = PathPolicyMatcher.compile(properties(
+        policy("/auth/login", List.of(), AuthPolicy.Access.PUBLIC, Set.of()),
+        policy("/auth/**", List.of(), AuthPolicy.Access.AUTHENTICATED, Set.of()),
+        policy("/auth/users/**", List.of(), AuthPolicy.Access.AUTHENTICATED, Set.of("ADMIN")),
+        policy("/auth/users/*", List.of("GET"), AuthPolicy.Access.AUTHENTICATED, Set.of("SUPPORT")),
+        // 不限方法的策略写在前面, 限定方法的仍然优先
+        policy("/orders", List.of(), AuthPolicy.Access.AUTHENTICATED, Set.of("READER")),
+        policy("/orders", List.of("POST", "PUT"), AuthPolicy.Access.AUTHENTICATED, Set.of("WRITER")),
+        policy("/api/*/items", List.of(), AuthPolicy.Access.AUTHENTICATED, Set.of("API"))));
+
+    // 期望值为空表示返回null(拒绝请求)
+    @ParameterizedTest(name = "normalize({0}) = {1}")
+    @CsvSource(delimiter = '|', nullValues = "null", value = {
+        "/auth/login                 | /auth/login",
+        "/                           | /",
+        "/auth/login/                | /auth/login",
+        "//auth//login               | /auth/login",
+        "//auth//login//             | /auth/login",
+        "/auth/%6Cogin               | /auth/login",
+        "/auth/%6c%6F%67%69%6e       | /auth/login",
+        "/auth/login;jsessionid=abc  | /auth/login",
+        "/auth;x=1/login;y=2         | /auth/login",
+        "/auth/login;                | /auth/login",
+        "/auth/;x/login              | /auth/login",
+        "/api/caf%C3%A9/items        | /api/café/items",
+        "/auth/%20                   | '/auth/ '",
+        "/auth/../admin              | null",
+        "/auth/./login               | null",
+        "/auth/%2e%2e/admin          | null",
+        "/auth/%2E/login             | null",
+        "/auth/.%2e/admin            | null",
+        "/auth/..;x/admin            | null",
+        "/auth/users%2F1             | null",
+        "/auth/users%5C1             | null",
+        "/auth\\login                | null",
+        "/auth/%3Bx                  | null",
+        "/auth/%252e%252e            | null",
+        "/auth/%zz                   | null",
+    })
+    void normalizesLikeDownstream(String rawPath, String expected) {
+        assertThat(PathPolicyMatcher.normalize(rawPath)).isEqualTo(expected);
+    }
+
+    @Test
+    void returnsPathWithoutCopyingWhenAlreadyNormal() {
+        String path = "/auth/users/42";
+
+        assertThat(PathPolicyMatcher.normalize(path)).isSameAs(path);
+    }
+
+    @ParameterizedTest(name = "{0} {1} -> {2}")
+    @CsvSource(delimiter = '|', value = {
+        "GET    | /auth/login           | /auth/login",
+        "POST   | /auth/login           | /auth/login",
+        "GET    | /auth                 | /auth/**",
+        "GET    | /auth/profile         | /auth/**",
+        "GET    | /auth/login/extra     | /auth/**",
+        "GET    | /auth/users           | /auth/users/** [ADMIN]",
+        // 字面量段 > * > **, 限定方法的 * 优先
+        "GET    | /auth/users/42        | /auth/users/* [SUPPORT]",
+        "HEAD   | /auth/users/42        | /auth/users/** [ADMIN]",
+        "DELETE | /auth/users/42        | /auth/users/** [ADMIN]",
+        "GET    | /auth/users/42/roles  | /auth/users/** [ADMIN]",
+        "POST   | /orders               | /orders [WRITER]",
+        "PUT    | /orders               | /orders [WRITER]",
+        "GET    | /orders               | /orders [READER]",
+        "DELETE | /orders               | /orders [READER]",
+        "GET    | /orders/1             | <default>",
+        "GET    | /api/v1/items         | /api/*/items [API]",
+        "GET    | /api/v1/items/1       | <default>",
+        "GET    | /api/items            | <default>",
+        "GET    | /                     | <default>",
+        "GET    | /unknown              | <default>",
+    })
+    void matchesMostSpecificPolicy(String method, String path, String expected) {
+        assertThat(describe(MATCHER.match(HttpMethod.valueOf(method), path))).isEqualTo(expected);
+    }
+
+    /**
+     * 经规范化后匹配, 编码、路径参数、重复'/'不能绕过更严格的策略
+     */
+    @ParameterizedTest(name = "{0} {1} -> {2}")
+    @CsvSource(delimiter = '|', value = {
+        "GET    | /auth/%75sers/42          | /auth/users/* [SUPPORT]",
+        "DELETE | /auth/users;x=1/42        | /auth/users/** [ADMIN]",
+        "DELETE | //auth//users//42//       | /auth/users/** [ADMIN]",
+        "POST   | /%6Frders;jsessionid=1    | /orders [WRITER]",
+        "POST   | /orders/                  | /orders [WRITER]",
+    })
+    void matchesAfterNormalization(String method, String rawPath, String expected) {
+        String path = PathPolicyMatcher.normalize(rawPath);
+
+        assertThat(describe(MATCHER.match(HttpMethod.valueOf(method), path))).isEqualTo(expected);
+    }
+
+    @Test
+    void unmatchedPathsUseDefaultAccess() {
+        AuthPolicyProperties properties = properties(policy("/public/**", List.of(), AuthPolicy.Access.PUBLIC, Set.of()));
+        properties.setDefaultAccess(AuthPolicy.Access.PUBLIC);
+
+        AuthPolicy policy = PathPolicyMatcher.compile(properties).match(HttpMethod.GET, "/anything");
+
+        assertThat(policy.getPattern()).isEqualTo("<default>");
+        assertThat(policy.isPublic()).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"auth/login", "/auth/**/users", "/auth/user*", "/auth/**x"})
+    void rejectsInvalidPatterns(String pattern) {
+        AuthPolicyProperties properties = properties(policy(pattern, List.of(), AuthPolicy.Access.PUBLIC, Set.of()));
+
+        assertThatThrownBy(() -> PathPolicyMatcher.compile(properties)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsUnsupportedMethods() {
+        AuthPolicyProperties properties = properties(policy("/auth", List.of("CONNECT"), AuthPolicy.Access.PUBLIC, Set.of()));
+
+        assertThatThrownBy(() -> PathPolicyMatcher.compile(properties)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String describe(AuthPolicy policy) {
+        return policy.getRoles().isEmpty()
+            ? policy.getPattern()
+            : policy.getPattern() + " " + new TreeSet<>(policy.getRoles());
+    }
+
+    private static AuthPolicyProperties properties(AuthPolicyProperties.Policy... policies) {
+        AuthPolicyProperties properties = new AuthPolicyProperties();
+        properties.setPolicies(List.of(policies));
+        return properties;
+    }
+
+    private static AuthPolicyProperties.Policy policy(String pattern, List<String> methods, AuthPolicy.Access access,
+                                                      Set<String> roles) {
+        AuthPolicyProperties.Policy policy = new AuthPolicyProperties.Policy();
+        policy.setPattern(pattern);
+        policy.setMethods(methods);
+        policy.setAccess(access);
+        policy.setRoles(roles);
+        return policy;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.config.RateLimitProperties;
+import com.example.gateway.ratelimit.RateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final StubRateLimiter rateLimiter = new StubRateLimiter();
+    private final RateLimitProperties properties = new RateLimitProperties();
+    private final RateLimitFilter filter = new RateLimitFilter(properties, rateLimiter, new ObjectMapper());
+
+    /**
+     * Retry-After按秒向上取整
+     */
+    @ParameterizedTest(name = "wait {0}ms -> Retry-After {1}")
+    @CsvSource({
+        "1,      1",
+        "999,    1",
+        "1000,   1",
+        "1001,   2",
+        "15000,  15",
+        "900001, 901",
+    })
+    void rejectsWithRetryAfterRoundedUpToSeconds(long waitMillis, String retryAfter) {
+        rateLimiter.waits.put("ip:10.0.0.1", waitMillis);
+        RecordingChain chain = new RecordingChain(HttpStatus.OK);
+
+        MockServerWebExchange exchange = exchange("/auth/login", "{\"username\":\"alice\"}");
+        filter.filter(exchange, chain).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo(retryAfter);
+        assertThat(chain.calls).isZero();
+        // IP被拒绝时不再读取请求体
+        assertThat(rateLimiter.acquired).containsExactly("ip:10.0.0.1");
+    }
+
+    @Test
+    void rejectsByUsernameAfterIpPasses() {
+        rateLimiter.waits.put("user:alice", 2500L);
+        RecordingChain chain = new RecordingChain(HttpStatus.OK);
+
+        MockServerWebExchange exchange = exchange("/auth/login", "{\"username\":\" Alice \"}");
+        filter.filter(exchange, chain).block();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(exchange.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        assertThat(rateLimiter.acquired).containsExactly("ip:10.0.0.1", "user:alice");
+        assertThat(chain.calls).isZero();
+    }
+
+    /**
+     * 编码、路径参数、重复'/'、结尾'/'和服务名前缀都不能绕过限流
+     */
+    @ParameterizedTest(name = "{0} limited={1}")
+    @CsvSource({
+        "/auth/login,                    true",
+        "/auth/register,                 true",
+        "/auth/%6Cogin,                  true",
+        "/auth/login;x=1,                true",
+        "/auth//login,                   true",
+        "/auth/login/,                   true",
+        "/cloud-security/auth/login,     true",
+        "/cloud-security/auth/login/,    true",
+        "/xauth/login,                   false",
+        "/auth/login/extra,              false",
+        "/auth/logout,                   false",
+        "/auth/%2e%2e/login,             false",
+    })
+    void limitsConfiguredPathsAfterNormalization(String path, boolean limited) {
+        RecordingChain chain = new RecordingChain(HttpStatus.OK);
+
+        filter.filter(exchange(path, "{\"username\":\"alice\"}"), chain).block();
+
+        assertThat(chain.calls).isEqualTo(1);
+        if (limited) {
+            assertThat(rateLimiter.acquired).containsExactly("ip:10.0.0.1", "user:alice");
+        } else {
+            assertThat(rateLimiter.acquired).isEmpty();
+        }
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource({
+        "401, failure",
+        "200, success",
+        "204, success",
+        "400, none",
+        "429, none",
+        "500, none",
+    })
+    void recordsLoginOutcome(int status, String outcome) {
+        RecordingChain chain = new RecordingChain(HttpStatus.valueOf(status));
+
+        filter.filter(exchange("/auth/login", "{\"username\":\"Alice\"}"), chain).block();
+
+        assertThat(rateLimiter.failures).isEqualTo(outcome.equals("failure") ? List.of("user:alice") : List.of());
+        assertThat(rateLimiter.successes).isEqualTo(outcome.equals("success") ? List.of("user:alice") : List.of());
+    }
+
+    @Test
+    void doesNotRecordOutcomeOfOtherLimitedPaths() {
+        filter.filter(exchange("/auth/register", "{\"username\":\"alice\"}"), new RecordingChain(HttpStatus.UNAUTHORIZED))
+            .block();
+
+        assertThat(rateLimiter.acquired).containsExactly("ip:10.0.0.1", "user:alice");
+        assertThat(rateLimiter.failures).isEmpty();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+        "''",
+        "not json",
+        "{\"username\":\"\"}",
+        "{\"username\":42}",
+        "{\"name\":\"alice\"}",
+    })
+    void skipsUsernameLimitWithoutUsername(String body) {
+        RecordingChain chain = new RecordingChain(HttpStatus.UNAUTHORIZED);
+
+        filter.filter(exchange("/auth/login", body), chain).block();
+
+        assertThat(chain.calls).isEqualTo(1);
+        assertThat(rateLimiter.acquired).containsExactly("ip:10.0.0.1");
+        assertThat(rateLimiter.failures).isEmpty();
+    }
+
+    @ParameterizedTest(name = "trustForwardedFor={0} -> {1}")
+    @CsvSource({
+        "false, ip:10.0.0.1",
+        "true,  ip:203.0.113.7",
+    })
+    void usesForwardedForOnlyWhenTrusted(boolean trustForwardedFor, String key) {
+        properties.setTrustForwardedFor(trustForwardedFor);
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest
+            .method(HttpMethod.POST, URI.create("/auth/login"))
+            .remoteAddress(new InetSocketAddress("10.0.0.1", 40000))
+            .header("X-Forwarded-For", " 203.0.113.7 , 10.0.0.1")
+            .body(""));
+
+        filter.filter(exchange, new RecordingChain(HttpStatus.OK)).block();
+
+        assertThat(rateLimiter.acquired).containsExactly(key);
+    }
+
+    private static MockServerWebExchange exchange(String path, String body) {
+        return MockServerWebExchange.from(MockServerHttpRequest
+            .method(HttpMethod.POST, URI.create(path))
+            .remoteAddress(new InetSocketAddress("10.0.0.1", 40000))
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(body));
+    }
+
+    private static final class StubRateLimiter implements RateLimiter {
+        // key -> 返回的等待毫秒数, 未配置的key放行
+        private final Map<String, Long> waits = new HashMap<>();
+        private final List<String> acquired = new ArrayList<>();
+        private final List<String> failures = new ArrayList<>();
+        private final List<String> successes = new ArrayList<>();
+
+        @Override
+        public Mono<Long> acquire(String key, RateLimitProperties.Limit limit) {
+            acquired.add(key);
+            return Mono.just(waits.getOrDefault(key, 0L));
+        }
+
+        @Override
+        public void recordFailure(String key) {
+            failures.add(key);
+        }
+
+        @Override
+        public void recordSuccess(String key) {
+            successes.add(key);
+        }
+    }
+
+    // 模拟下游返回指定状态码
+    private static final class RecordingChain implements GatewayFilterChain {
+        private final HttpStatus status;
+        private int calls;
+
+        RecordingChain(HttpStatus status) {
+            this.status = status;
+        }
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange) {
+            calls++;
+            exchange.getResponse().setStatusCode(status);
+            return Mono.empty();
+        }
+    }
+}
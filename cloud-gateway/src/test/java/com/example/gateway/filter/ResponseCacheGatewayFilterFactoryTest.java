@@ -0,0 +1,102 @@
+package com.example.gateway.filter;
+
+import com.example.gateway.auth.TrustedHeaderSigner;
+import com.example.gateway.config.ResponseCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+    private final GatewayFilter filter;
+    private final CountingUpstream upstream = new CountingUpstream();
+
+    ResponseCacheGatewayFilterFactoryTest() {
+        ResponseCacheGatewayFilterFactory factory = new ResponseCacheGatewayFilterFactory(new ResponseCacheProperties(),
+            new SimpleMeterRegistry());
+        ResponseCacheGatewayFilterFactory.Config config = new ResponseCacheGatewayFilterFactory.Config();
+        config.setPerUser(true);
+        this.filter = factory.apply(config);
+    }
+
+    @Test
+    void sameUserWithSameAuthoritiesHitsCache() {
+        assertThat(get(user("alice", "USER", "read", "7"))).isEqualTo("MISS:1");
+        assertThat(get(user("alice", "USER", "read", "7"))).isEqualTo("HIT:1");
+        assertThat(upstream.calls).isEqualTo(1);
+    }
+
+    /**
+     * 角色被撤销后网关签发的权限头随之变化, 不能再返回撤销前按旧权限生成的响应
+     */
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({
+        "roles,       USER,       read,       7",
+        "permissions, USER ADMIN, read,       7",
+        "version,     USER ADMIN, read write, 8",
+        "user,        USER ADMIN, read write, 7",
+    })
+    void changedAuthoritiesMissCache(String changed, String roles, String permissions, String version) {
+        assertThat(get(user("alice", "USER,ADMIN", "read,write", "7"))).isEqualTo("MISS:1");
+
+        String username = "user".equals(changed) ? "bob" : "alice";
+        String response = get(user(username, roles.replace(' ', ','), permissions.replace(' ', ','), version));
+
+        assertThat(response).isEqualTo("MISS:2");
+    }
+
+    @Test
+    void anonymousRequestsBypassPerUserCache() {
+        MockServerHttpRequest.BaseBuilder<?> anonymous = MockServerHttpRequest.get("/orders");
+
+        assertThat(get(anonymous)).isEqualTo(":1");
+        assertThat(get(anonymous)).isEqualTo(":2");
+    }
+
+    private String get(MockServerHttpRequest.BaseBuilder<?> request) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request.build());
+        filter.filter(exchange, upstream).block();
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        String status = exchange.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS);
+        return (status != null ? status : "") + ":" + exchange.getResponse().getBodyAsString().block();
+    }
+
+    private static MockServerHttpRequest.BaseBuilder<?> user(String username, String roles, String permissions,
+                                                             String authorityVersion) {
+        return MockServerHttpRequest.get("/orders")
+            .header(TrustedHeaderSigner.USER_ID, username)
+            .header(TrustedHeaderSigner.USER_ROLES, roles)
+            .header(TrustedHeaderSigner.USER_PERMISSIONS, permissions)
+            .header(TrustedHeaderSigner.USER_AUTHORITY_VERSION, authorityVersion);
+    }
+
+    // 可缓存的私有响应, 响应体为第几次访问上游
+    private static final class CountingUpstream implements GatewayFilterChain {
+        private int calls;
+
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange) {
+            byte[] body = String.valueOf(++calls).getBytes(StandardCharsets.UTF_8);
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setCacheControl("private, max-age=60");
+            response.getHeaders().setContentLength(body.length);
+            DataBuffer buffer = response.bufferFactory().wrap(body);
+            return response.writeWith(Mono.just(buffer));
+        }
+    }
+}
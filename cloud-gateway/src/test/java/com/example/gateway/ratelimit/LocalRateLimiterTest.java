@@ -0,0 +1,94 @@
+package com.example.gateway.ratelimit;
+
+import com.example.gateway.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRateLimiterTest {
+
+    // 用户名限额放宽, 只观察退避
+    private static final RateLimitProperties.Limit UNLIMITED = new RateLimitProperties.Limit(1000, 1000);
+
+    /**
+     * 突发capacity个请求放行, 之后按1/refillPerSecond的间隔补充
+     */
+    @ParameterizedTest(name = "capacity={0}, refill={1}/s")
+    @CsvSource({
+        "1,  10",
+        "5,  10",
+        "3,  5",
+        "10, 4",
+    })
+    void allowsBurstUpToCapacityThenRefills(int capacity, double refillPerSecond) throws InterruptedException {
+        LocalRateLimiter limiter = new LocalRateLimiter(new RateLimitProperties());
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit(capacity, refillPerSecond);
+        long interval = (long) (1000 / refillPerSecond);
+
+        for (int i = 0; i < capacity; i++) {
+            assertThat(acquire(limiter, "ip:1.2.3.4", limit)).as("request %d", i + 1).isZero();
+        }
+        long wait = acquire(limiter, "ip:1.2.3.4", limit);
+        assertThat(wait).isBetween(1L, interval + 1);
+        // 其他key不受影响
+        assertThat(acquire(limiter, "ip:5.6.7.8", limit)).isZero();
+
+        Thread.sleep(wait);
+
+        // 只补充了一个令牌
+        assertThat(acquire(limiter, "ip:1.2.3.4", limit)).isZero();
+        assertThat(acquire(limiter, "ip:1.2.3.4", limit)).isPositive();
+    }
+
+    /**
+     * 默认阈值3、初始1s、上限15min: 第3次失败起退避1s, 之后逐次翻倍
+     */
+    @ParameterizedTest(name = "{0} failures -> blocked {1}ms")
+    @CsvSource({
+        "1,  0",
+        "2,  0",
+        "3,  1000",
+        "4,  2000",
+        "6,  8000",
+        "12, 512000",
+        "13, 900000",
+        "80, 900000",
+    })
+    void backsOffExponentiallyAfterThreshold(int failures, long blockedMillis) {
+        LocalRateLimiter limiter = new LocalRateLimiter(new RateLimitProperties());
+
+        for (int i = 0; i < failures; i++) {
+            limiter.recordFailure("user:alice");
+        }
+
+        long wait = acquire(limiter, "user:alice", UNLIMITED);
+        if (blockedMillis == 0) {
+            assertThat(wait).isZero();
+        } else {
+            assertThat(wait).isBetween(blockedMillis - 200, blockedMillis + 1);
+        }
+        assertThat(acquire(limiter, "user:bob", UNLIMITED)).isZero();
+    }
+
+    @Test
+    void successResetsBackoff() {
+        LocalRateLimiter limiter = new LocalRateLimiter(new RateLimitProperties());
+        for (int i = 0; i < 5; i++) {
+            limiter.recordFailure("user:alice");
+        }
+        assertThat(acquire(limiter, "user:alice", UNLIMITED)).isPositive();
+
+        limiter.recordSuccess("user:alice");
+
+        assertThat(acquire(limiter, "user:alice", UNLIMITED)).isZero();
+        // 重新从第1次失败计数
+        limiter.recordFailure("user:alice");
+        assertThat(acquire(limiter, "user:alice", UNLIMITED)).isZero();
+    }
+
+    private static long acquire(RateLimiter limiter, String key, RateLimitProperties.Limit limit) {
+        return limiter.acquire(key, limit).block();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.gateway.ratelimit;
+
+import com.example.gateway.config.RateLimitProperties;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 与LocalRateLimiterTest同样的用例, 在真实redis-server上执行Lua脚本
+ */
+class RedisRateLimiterTest {
+
+    private static final RateLimitProperties.Limit UNLIMITED = new RateLimitProperties.Limit(1000, 1000);
+
+    private static RedisServer server;
+    private static LettuceConnectionFactory connectionFactory;
+    private static ReactiveStringRedisTemplate redisTemplate;
+    private RedisRateLimiter limiter;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port = freePort();
+        server = RedisServer.newRedisServer()
+            .port(port)
+            .bind("127.0.0.1")
+            .setting("save \"\"")
+            .setting("appendonly no")
+            .build();
+        server.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        server.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute(connection -> connection.serverCommands().flushAll()).blockLast();
+        limiter = new RedisRateLimiter(redisTemplate, new RateLimitProperties());
+    }
+
+    @ParameterizedTest(name = "capacity={0}, refill={1}/s")
+    @CsvSource({
+        "1,  10",
+        "5,  10",
+        "3,  5",
+        "10, 4",
+    })
+    void allowsBurstUpToCapacityThenRefills(int capacity, double refillPerSecond) throws InterruptedException {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit(capacity, refillPerSecond);
+        long interval = (long) (1000 / refillPerSecond);
+
+        for (int i = 0; i < capacity; i++) {
+            assertThat(acquire("ip:1.2.3.4", limit)).as("request %d", i + 1).isZero();
+        }
+        long wait = acquire("ip:1.2.3.4", limit);
+        assertThat(wait).isBetween(1L, interval);
+        assertThat(acquire("ip:5.6.7.8", limit)).isZero();
+
+        Thread.sleep(wait);
+
+        assertThat(acquire("ip:1.2.3.4", limit)).isZero();
+        assertThat(acquire("ip:1.2.3.4", limit)).isPositive();
+        // 令牌桶key随桶回满过期
+        assertThat(redisTemplate.getExpire("rate_limit:ip:1.2.3.4").block())
+            .isBetween(Duration.ZERO, Duration.ofMillis(interval * capacity));
+    }
+
+    @ParameterizedTest(name = "{0} failures -> blocked {1}ms")
+    @CsvSource({
+        "1,  0",
+        "2,  0",
+        "3,  1000",
+        "4,  2000",
+        "6,  8000",
+        "12, 512000",
+        "13, 900000",
+        "80, 900000",
+    })
+    void backsOffExponentiallyAfterThreshold(int failures, long blockedMillis) {
+        for (int i = 0; i < failures; i++) {
+            limiter.recordFailure("user:alice");
+        }
+        awaitFailures("user:alice", failures);
+
+        long wait = acquire("user:alice", UNLIMITED);
+        if (blockedMillis == 0) {
+            assertThat(wait).isZero();
+        } else {
+            assertThat(wait).isBetween(blockedMillis - 200, blockedMillis);
+        }
+        assertThat(acquire("user:bob", UNLIMITED)).isZero();
+    }
+
+    @Test
+    void successResetsBackoff() {
+        for (int i = 0; i < 5; i++) {
+            limiter.recordFailure("user:alice");
+        }
+        awaitFailures("user:alice", 5);
+        assertThat(acquire("user:alice", UNLIMITED)).isPositive();
+
+        limiter.recordSuccess("user:alice");
+        await(() -> Boolean.FALSE.equals(redisTemplate.hasKey("login_failures:user:alice").block()));
+
+        assertThat(acquire("user:alice", UNLIMITED)).isZero();
+        limiter.recordFailure("user:alice");
+        awaitFailures("user:alice", 1);
+        assertThat(acquire("user:alice", UNLIMITED)).isZero();
+    }
+
+    @Test
+    void allowsRequestsWhenRedisIsUnavailable() throws IOException {
+        LettuceConnectionFactory unreachable = new LettuceConnectionFactory(
+            new RedisStandaloneConfiguration("127.0.0.1", freePort()));
+        unreachable.afterPropertiesSet();
+        try {
+            RedisRateLimiter failOpen = new RedisRateLimiter(new ReactiveStringRedisTemplate(unreachable),
+                new RateLimitProperties());
+            RateLimitProperties.Limit limit = new RateLimitProperties.Limit(1, 1);
+
+            assertThat(failOpen.acquire("ip:1.2.3.4", limit).block(Duration.ofSeconds(10))).isZero();
+            assertThat(failOpen.acquire("ip:1.2.3.4", limit).block(Duration.ofSeconds(10))).isZero();
+            // 记录失败同样不抛出
+            failOpen.recordFailure("user:alice");
+            failOpen.recordSuccess("user:alice");
+        } finally {
+            unreachable.destroy();
+        }
+    }
+
+    private long acquire(String key, RateLimitProperties.Limit limit) {
+        return limiter.acquire(key, limit).block();
+    }
+
+    // recordFailure异步提交, 等计数写入后再判定
+    private static void awaitFailures(String key, int count) {
+        await(() -> String.valueOf(count).equals(redisTemplate.opsForValue().get("login_failures:" + key).block()));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.security.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+
+/**
+ * spring.main.web-application-type=reactive时生效
+ */
+@Slf4j
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig {
+
+    /**
+     * 登录、注册及角色解析等阻塞操作(JDBC、阻塞Redis)在此执行, 不占用Netty事件循环;
+     * 线程数与数据库连接池大小一致即可, 排队超出上限时立即失败
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler blockingScheduler(@Value("${reactive.blocking.threads:10}") int threads,
+                                       @Value("${reactive.blocking.queue-capacity:1000}") int queueCapacity) {
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "auth-blocking");
+    }
+
+    /**
+     * 用户列表/导出/统计/导入(UserAdminController、UserImportController)基于servlet的流式读写, reactive部署下没有实现.
+     * 启动时告警, 请求返回501而不是404, 管理端需要路由到servlet部署的实例
+     */
+    @Bean
+    public RouterFunction<ServerResponse> servletOnlyUserEndpoints() {
+        log.warn("User admin endpoints /auth/users/** are only available with spring.main.web-application-type=servlet");
+        return RouterFunctions.route(RequestPredicates.path("/auth/users").or(RequestPredicates.path("/auth/users/**")),
+            request -> ServerResponse.status(HttpStatus.NOT_IMPLEMENTED)
+                .bodyValue(Map.of("error", "User admin endpoints require a servlet deployment")));
+    }
+}
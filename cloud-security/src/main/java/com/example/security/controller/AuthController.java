@@ -1,35 +1,47 @@
 package com.example.security.controller;
 
 import com.example.security.dto.AuthRequest;
-import com.example.security.dto.AuthResponse;
 import com.example.security.dto.RegisterRequest;
 import com.example.security.service.AuthService;
+import com.example.security.service.AuthorizationService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * Servlet(默认)部署下的认证接口, reactive部署见ReactiveAuthController
+ */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/auth")
 @RequiredArgsConstructor
 public class AuthController {
 
     private final AuthService authService;
+    private final AuthorizationService authorizationService;
+
+    @Value("${jwt.validate.max-batch-size:500}")
+    private int maxBatchSize;
 
     @PostMapping("/register")
-    public ResponseEntity<Map<String, String>> register(@RequestBody RegisterRequest request) {
-        try {
-            authService.register(request);
-            return ResponseEntity.ok(Map.of("message", "User registered successfully"));
-        } catch (IllegalStateException e) {
-            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
-        }
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody RegisterRequest request) {
+        return authService.register(request)
+            .<ResponseEntity<?>>thenApply(v -> ResponseEntity.ok(Map.of("message", "User registered successfully")))
+            .exceptionally(e -> ErrorResponses.of(e, HttpStatus.BAD_REQUEST));
     }
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@RequestBody AuthRequest request) {
-        return ResponseEntity.ok(authService.authenticate(request));
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody AuthRequest request) {
+        return authService.authenticate(request)
+            .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+            .exceptionally(e -> ErrorResponses.of(e, HttpStatus.UNAUTHORIZED));
     }
 
     @PostMapping("/refresh")
@@ -42,12 +54,17 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public ResponseEntity<Void> logout(@RequestHeader("Authorization") String token) {
+    public ResponseEntity<?> logout(@RequestHeader("Authorization") String token,
+                                    @RequestParam(defaultValue = "false") boolean all) {
         if (token != null && token.startsWith("Bearer ")) {
             token = token.substring(7);
         }
-        authService.logout(token);
-        return ResponseEntity.ok().build();
+        try {
+            authService.logout(token, all);
+            return ResponseEntity.ok().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/validate")
@@ -61,4 +78,30 @@ public class AuthController {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
     }
-} 
\ No newline at end of file
+
+    // 批量校验: 请求体为token列表(不带Bearer前缀), 返回与之按下标对应的校验结果, 供网关合并请求使用
+    @PostMapping("/validate/batch")
+    public ResponseEntity<?> validateTokens(@RequestBody List<String> tokens) {
+        if (tokens.size() > maxBatchSize) {
+            return ResponseEntity.badRequest().body(Map.of("error", "At most " + maxBatchSize + " tokens per request"));
+        }
+        return ResponseEntity.ok(authService.validateTokens(tokens));
+    }
+
+    // 批量登出: 请求体为用户名列表, 如角色变更后强制这些用户重新登录
+    @PostMapping("/revoke")
+    public ResponseEntity<Map<String, Integer>> revoke(@RequestBody List<String> usernames) {
+        return ResponseEntity.ok(Map.of("revoked", authService.revokeUsers(usernames)));
+    }
+
+    // 角色分配或角色权限变更后调用, 所有实例的授权缓存随之失效
+    @PostMapping("/authorization/invalidate")
+    public ResponseEntity<Void> invalidateAuthorization(@RequestParam(required = false) String username) {
+        if (username != null) {
+            authorizationService.userChanged(username);
+        } else {
+            authorizationService.rolesChanged();
+        }
+        return ResponseEntity.ok().build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.security.controller;
+
+import com.example.security.dto.AuthorityDictionary;
+import com.example.security.service.AuthorizationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 紧凑格式token的角色/权限字典, 网关和cloud-api按版本缓存. servlet与reactive部署通用
+ */
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class AuthorityDictionaryController {
+
+    private final AuthorizationService authorizationService;
+
+    @GetMapping("/authorities/dictionary")
+    public ResponseEntity<?> dictionary(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        AuthorityDictionary dictionary = authorizationService.dictionary();
+        String etag = "\"" + dictionary.getVersion() + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        // 每次使用前向服务端确认版本, 未变化时只返回304
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            .eTag(etag)
+            .body(dictionary);
+    }
+}
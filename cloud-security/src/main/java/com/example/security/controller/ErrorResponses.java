@@ -0,0 +1,31 @@
+package com.example.security.controller;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+final class ErrorResponses {
+
+    private ErrorResponses() {
+    }
+
+    /**
+     * 线程池饱和时返回503并提示客户端稍后重试, 业务校验失败返回给定状态码
+     */
+    static ResponseEntity<?> of(Throwable e, HttpStatus status) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", "Too many concurrent requests"));
+        }
+        if (cause instanceof IllegalStateException) {
+            return ResponseEntity.status(status).body(Map.of("error", cause.getMessage()));
+        }
+        throw e instanceof CompletionException ce ? ce : new CompletionException(cause);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.security.controller;
+
+import com.example.security.service.SigningKeyManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 发布校验公钥(JWKS), 网关等下游据此本地验签. servlet与reactive部署通用
+ */
+@RestController
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final SigningKeyManager signingKeyManager;
+
+    @Value("${jwt.signing.jwks-max-age:300s}")
+    private Duration maxAge;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<?> jwks(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        List<Map<String, Object>> keys = signingKeyManager.jwks();
+        // kid集合不变则内容不变
+        String etag = "\"" + Integer.toHexString(keys.stream()
+            .map(key -> (String) key.get("kid"))
+            .collect(Collectors.joining(",")).hashCode()) + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(maxAge).cachePublic())
+            .eTag(etag)
+            .body(Map.of("keys", keys));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.security.controller;
+
+import com.example.security.dto.AuthRequest;
+import com.example.security.dto.RegisterRequest;
+import com.example.security.dto.TokenClaims;
+import com.example.security.service.AuthService;
+import com.example.security.service.AuthorizationService;
+import com.example.security.service.JwtService;
+import com.example.security.service.ReactiveJwtService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * reactive部署(spring.main.web-application-type=reactive)下的认证接口:
+ * validate/refresh/logout全程非阻塞, 登录、注册等涉及数据库的操作切到有界的blockingScheduler
+ */
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/auth")
+@RequiredArgsConstructor
+public class ReactiveAuthController {
+
+    private final AuthService authService;
+    private final AuthorizationService authorizationService;
+    private final JwtService jwtService;
+    private final ReactiveJwtService reactiveJwtService;
+    private final Scheduler blockingScheduler;
+
+    @Value("${jwt.validate.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<?>> register(@RequestBody RegisterRequest request) {
+        return Mono.fromCallable(() -> authService.register(request))
+            .subscribeOn(blockingScheduler)
+            .flatMap(Mono::fromFuture)
+            .<ResponseEntity<?>>thenReturn(ResponseEntity.ok(Map.of("message", "User registered successfully")))
+            .onErrorResume(e -> Mono.fromSupplier(() -> ErrorResponses.of(e, HttpStatus.BAD_REQUEST)));
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<?>> login(@RequestBody AuthRequest request) {
+        return Mono.fromCallable(() -> authService.authenticate(request))
+            .subscribeOn(blockingScheduler)
+            .flatMap(Mono::fromFuture)
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .onErrorResume(e -> Mono.fromSupplier(() -> ErrorResponses.of(e, HttpStatus.UNAUTHORIZED)));
+    }
+
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<?>> refresh(@RequestBody AuthRequest request) {
+        return reactiveJwtService.verifyRefreshToken(request.getRefreshToken())
+            .flatMap(claims -> Mono.fromCallable(() -> authorizationService.resolve(claims.getSubject()))
+                // 角色缓存未命中时查库
+                .subscribeOn(blockingScheduler)
+                .flatMap(authorities -> reactiveJwtService.rotateTokens(claims,
+                    authorities.getRoles(), authorities.getPermissions())))
+            .<ResponseEntity<?>>map(ResponseEntity::ok)
+            .switchIfEmpty(Mono.fromSupplier(() -> {
+                log.warn("Token refresh failed - invalid refresh token");
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid refresh token"));
+            }));
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<?>> logout(@RequestHeader("Authorization") String token,
+                                          @RequestParam(defaultValue = "false") boolean all) {
+        TokenClaims claims = jwtService.parseToken(stripBearer(token));
+        if (claims == null) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", "Invalid token")));
+        }
+        Mono<Void> logout = all || claims.getSessionId() == null
+            ? reactiveJwtService.invalidateTokens(claims.getSubject())
+            : reactiveJwtService.invalidateSession(claims.getSubject(), claims.getSessionId());
+        return logout.<ResponseEntity<?>>thenReturn(ResponseEntity.ok().build());
+    }
+
+    @GetMapping("/validate")
+    public Mono<ResponseEntity<Map<String, Object>>> validateToken(@RequestHeader("Authorization") String token) {
+        return reactiveJwtService.validateAccessToken(stripBearer(token))
+            .map(AuthService::validationResponse)
+            .defaultIfEmpty(AuthService.validationResponse(null))
+            .map(ResponseEntity::ok);
+    }
+
+    // 批量校验: 请求体为token列表(不带Bearer前缀), 返回与之按下标对应的校验结果, 供网关合并请求使用
+    @PostMapping("/validate/batch")
+    public Mono<ResponseEntity<?>> validateTokens(@RequestBody List<String> tokens) {
+        if (tokens.size() > maxBatchSize) {
+            return Mono.just(ResponseEntity.badRequest().body(Map.of("error", "At most " + maxBatchSize + " tokens per request")));
+        }
+        return reactiveJwtService.validateAccessTokens(tokens)
+            .map(results -> ResponseEntity.ok(results.stream().map(AuthService::validationResponse).toList()));
+    }
+
+    // 批量登出: 请求体为用户名列表, 如角色变更后强制这些用户重新登录
+    @PostMapping("/revoke")
+    public Mono<ResponseEntity<Map<String, Integer>>> revoke(@RequestBody List<String> usernames) {
+        return Mono.fromCallable(() -> authService.revokeUsers(usernames))
+            .subscribeOn(blockingScheduler)
+            .map(revoked -> ResponseEntity.ok(Map.of("revoked", revoked)));
+    }
+
+    // 角色分配或角色权限变更后调用, 所有实例的授权缓存随之失效
+    @PostMapping("/authorization/invalidate")
+    public Mono<ResponseEntity<Void>> invalidateAuthorization(@RequestParam(required = false) String username) {
+        return Mono.fromRunnable(() -> {
+                if (username != null) {
+                    authorizationService.userChanged(username);
+                } else {
+                    authorizationService.rolesChanged();
+                }
+            })
+            .subscribeOn(blockingScheduler)
+            .thenReturn(ResponseEntity.<Void>ok().build());
+    }
+
+    private static String stripBearer(String token) {
+        return token != null && token.startsWith("Bearer ") ? token.substring(7) : token;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.security.controller;
+
+import com.example.security.dto.UserPage;
+import com.example.security.service.UserAdminService;
+import com.example.security.service.UserStatsService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.*;
+import java.util.Map;
+
+/**
+ * 管理端用户列表、导出和统计(网关限ADMIN角色), 仅servlet部署
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/auth/users")
+@RequiredArgsConstructor
+public class UserAdminController {
+
+    private final UserAdminService userAdminService;
+    private final UserStatsService userStatsService;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping
+    public ResponseEntity<?> list(@RequestParam(required = false) Long cursor,
+                                  @RequestParam(defaultValue = "50") int limit,
+                                  @RequestParam(required = false) Boolean enabled,
+                                  @RequestParam(required = false) String role) {
+        try {
+            UserPage page = userAdminService.list(cursor, limit, enabled, role);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * NDJSON, 每行一个用户, 按id升序; 中断后可以最后一行的id作为cursor继续
+     */
+    @GetMapping("/export")
+    public void export(@RequestParam(required = false) Long cursor,
+                       @RequestParam(required = false) Boolean enabled,
+                       @RequestParam(required = false) String role,
+                       HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        OutputStream out = new BufferedOutputStream(response.getOutputStream());
+        try {
+            userAdminService.export(cursor, enabled, role, user -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(user));
+                    out.write('\n');
+                } catch (IOException e) {
+                    // 客户端断开, 中止查询
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IllegalArgumentException e) {
+            response.reset();
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("application/json");
+            response.getOutputStream().write(objectMapper.writeValueAsBytes(Map.of("error", e.getMessage())));
+            return;
+        }
+        out.flush();
+    }
+
+    @GetMapping("/stats")
+    public Map<String, Long> stats() {
+        return userStatsService.stats();
+    }
+}
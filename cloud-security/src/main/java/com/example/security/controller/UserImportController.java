@@ -0,0 +1,81 @@
+package com.example.security.controller;
+
+import com.example.security.dto.ImportResult;
+import com.example.security.dto.ImportRow;
+import com.example.security.service.UserImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量导入用户(管理接口, 网关限ADMIN角色), 仅servlet部署
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping("/auth/users")
+@RequiredArgsConstructor
+public class UserImportController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 请求体为text/csv或application/x-ndjson, 响应为NDJSON: 每处理完一批输出该批各行结果并flush, 最后一行为汇总.
+     * 同步执行, 不受MVC异步请求超时限制
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", NDJSON})
+    public void importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        UserImportService.Format format = "csv".equalsIgnoreCase(contentType.getSubtype())
+            ? UserImportService.Format.CSV : UserImportService.Format.NDJSON;
+        Charset charset = contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8;
+        Reader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), charset));
+
+        Iterator<ImportRow> rows;
+        try {
+            rows = userImportService.open(reader, format);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getOutputStream().write(objectMapper.writeValueAsBytes(Map.of("error", e.getMessage())));
+            return;
+        }
+
+        response.setContentType(NDJSON);
+        OutputStream out = response.getOutputStream();
+        Map<String, Long> summary = userImportService.importRows(rows, results -> write(out, results));
+        writeLine(out, Map.of("summary", summary));
+        out.flush();
+    }
+
+    private void write(OutputStream out, List<ImportResult> results) {
+        try {
+            for (ImportResult result : results) {
+                writeLine(out, result);
+            }
+            out.flush();
+        } catch (IOException e) {
+            // 客户端断开, 停止导入; 已提交的批次保留
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.security.dto;
+
+import cn.hutool.crypto.SecureUtil;
+
+import java.util.*;
+
+/**
+ * 角色/权限的紧凑编码字典: 角色编码为id, 权限编码为以id为下标的位图(BitSet字节序, base64url).
+ * 数据库id不复用, 旧版本字典编码的token用新版本解码结果不变, 已删除的id解码时忽略
+ */
+public class AuthorityDictionary {
+
+    public static final AuthorityDictionary EMPTY = new AuthorityDictionary(Map.of(), Map.of());
+
+    // 位图下标上限, 超出时退回完整格式
+    private static final long MAX_PERMISSION_ID = 1 << 16;
+
+    private final String version;
+    private final Map<Long, String> roles;
+    private final Map<Long, String> permissions;
+    private final Map<String, Long> roleIds = new HashMap<>();
+    private final Map<String, Long> permissionIds = new HashMap<>();
+
+    public AuthorityDictionary(Map<Long, String> roles, Map<Long, String> permissions) {
+        this.roles = Collections.unmodifiableMap(new TreeMap<>(roles));
+        this.permissions = Collections.unmodifiableMap(new TreeMap<>(permissions));
+        this.roles.forEach((id, name) -> roleIds.put(name, id));
+        this.permissions.forEach((id, name) -> permissionIds.put(name, id));
+        // 由内容决定, 各实例独立加载也得到相同版本
+        StringBuilder content = new StringBuilder();
+        this.roles.forEach((id, name) -> content.append("r").append(id).append('=').append(name).append('\n'));
+        this.permissions.forEach((id, name) -> content.append("p").append(id).append('=').append(name).append('\n'));
+        this.version = SecureUtil.sha256(content.toString()).substring(0, 12);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public Map<Long, String> getRoles() {
+        return roles;
+    }
+
+    public Map<Long, String> getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * @return 角色不存在时返回null
+     */
+    public Long roleId(String name) {
+        return roleIds.get(name);
+    }
+
+    /**
+     * @return 任一角色不在字典中时返回null
+     */
+    public List<Long> encodeRoles(Collection<String> names) {
+        List<Long> ids = new ArrayList<>(names.size());
+        for (String name : names) {
+            Long id = roleIds.get(name);
+            if (id == null) {
+                return null;
+            }
+            ids.add(id);
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    /**
+     * @return 任一权限不在字典中时返回null
+     */
+    public String encodePermissions(Collection<String> names) {
+        BitSet bits = new BitSet();
+        for (String name : names) {
+            Long id = permissionIds.get(name);
+            if (id == null || id < 0 || id >= MAX_PERMISSION_ID) {
+                return null;
+            }
+            bits.set(id.intValue());
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bits.toByteArray());
+    }
+
+    public Set<String> decodeRoles(Collection<? extends Number> ids) {
+        Set<String> names = new HashSet<>();
+        for (Number id : ids) {
+            String name = roles.get(id.longValue());
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    public Set<String> decodePermissions(String encoded) {
+        BitSet bits = BitSet.valueOf(Base64.getUrlDecoder().decode(encoded));
+        Set<String> names = new HashSet<>();
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            String name = permissions.get((long) id);
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+}
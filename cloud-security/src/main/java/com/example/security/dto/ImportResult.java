@@ -0,0 +1,27 @@
+package com.example.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 批量导入中一行的处理结果, line为该行在输入中的行号(从1开始)
+ */
+@Getter
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResult {
+
+    public static final String CREATED = "created";
+    // 数据库中已存在
+    public static final String EXISTS = "exists";
+    // 与本次导入的前面一行重复
+    public static final String DUPLICATE = "duplicate";
+    public static final String INVALID = "invalid";
+    public static final String FAILED = "failed";
+
+    private final long line;
+    private final String username;
+    private final String status;
+    private final String error;
+}
@@ -0,0 +1,19 @@
+package com.example.security.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量导入的一行: CSV列或NDJSON字段 username, password, email, roles(CSV中以;分隔, 为空时分配默认角色)
+ */
+@Data
+public class ImportRow {
+    private long line;
+    private String username;
+    private String password;
+    private String email;
+    private List<String> roles;
+    // 解析失败的原因
+    private String error;
+}
@@ -0,0 +1,12 @@
+package com.example.security.dto;
+
+import lombok.Data;
+
+/**
+ * 角色与其一个权限的关联行, permission可能为空(角色没有任何权限)
+ */
+@Data
+public class RoleGrant {
+    private String role;
+    private String permission;
+}
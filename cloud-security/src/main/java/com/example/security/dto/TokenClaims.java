@@ -0,0 +1,41 @@
+package com.example.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * 一次解析验签得到的token内容
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class TokenClaims {
+
+    public static final String ACCESS = "access";
+    public static final String REFRESH = "refresh";
+
+    private final String subject;
+    private final Set<String> roles;
+    private final Set<String> permissions;
+    private final Date issuedAt;
+    private final Date expiration;
+    private final String type;
+    // jti
+    private final String id;
+    // 签发时的用户token版本
+    private final long version;
+    // 会话(设备)id, 同一会话轮换出的token共享
+    private final String sessionId;
+
+    public boolean isAccessToken() {
+        return ACCESS.equals(type);
+    }
+
+    public boolean isRefreshToken() {
+        return REFRESH.equals(type);
+    }
+}
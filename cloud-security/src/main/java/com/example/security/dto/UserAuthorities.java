@@ -0,0 +1,13 @@
+package com.example.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Set;
+
+@Getter
+@AllArgsConstructor
+public class UserAuthorities {
+    private final Set<String> roles;
+    private final Set<String> permissions;
+}
@@ -0,0 +1,17 @@
+package com.example.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 登录所需的用户字段, 按用户名缓存
+ */
+@Getter
+@AllArgsConstructor
+public class UserEntry {
+
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final boolean enabled;
+}
@@ -0,0 +1,16 @@
+package com.example.security.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 按id游标分页: 下一页以nextCursor作为cursor参数请求, 为null时已是最后一页
+ */
+@Getter
+@AllArgsConstructor
+public class UserPage {
+    private final List<UserSummary> items;
+    private final Long nextCursor;
+}
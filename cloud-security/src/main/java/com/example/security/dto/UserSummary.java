@@ -0,0 +1,23 @@
+package com.example.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * 管理端用户列表的一行, 不含密码
+ */
+@Data
+public class UserSummary {
+    private Long id;
+    private String username;
+    private String email;
+    private Boolean enabled;
+    private Date createdAt;
+    private Set<String> roles;
+    // 查询结果中以逗号拼接的角色id, 按角色字典转换为roles
+    @JsonIgnore
+    private String roleIds;
+}
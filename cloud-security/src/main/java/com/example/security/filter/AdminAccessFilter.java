@@ -0,0 +1,41 @@
+package com.example.security.filter;
+
+import com.example.security.service.TrustedHeaderVerifier;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.RequestPath;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 管理接口要求网关签名的管理员身份, 否则返回403
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class AdminAccessFilter extends OncePerRequestFilter {
+
+    private final TrustedHeaderVerifier verifier;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+        // 与Spring MVC相同的路径解析: 按段解码并去掉;参数
+        RequestPath path = RequestPath.parse(request.getRequestURI(), request.getContextPath());
+        if (verifier.requiresAdmin(path.pathWithinApplication()) && verifier.verifyAdmin(request::getHeader) == null) {
+            response.setStatus(HttpStatus.FORBIDDEN.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Admin role required\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
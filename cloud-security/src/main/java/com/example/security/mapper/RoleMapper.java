@@ -0,0 +1,24 @@
+package com.example.security.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.security.dto.RoleGrant;
+import com.example.security.entity.Permission;
+import com.example.security.entity.Role;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+@Mapper
+public interface RoleMapper extends BaseMapper<Role> {
+    @Select("SELECT r.name AS role, p.name AS permission FROM roles r " +
+            "LEFT JOIN role_permissions rp ON r.id = rp.role_id " +
+            "LEFT JOIN permissions p ON rp.permission_id = p.id")
+    List<RoleGrant> getRoleGrants();
+
+    @Select("SELECT id, name FROM roles")
+    List<Role> getRoles();
+
+    @Select("SELECT id, name FROM permissions")
+    List<Permission> getPermissions();
+}
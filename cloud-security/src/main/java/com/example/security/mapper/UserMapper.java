@@ -1,24 +1,76 @@
 package com.example.security.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.security.dto.RoleGrant;
+import com.example.security.dto.UserSummary;
 import com.example.security.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 @Mapper
 public interface UserMapper extends BaseMapper<User> {
-    @Select("SELECT r.name FROM users u " +
-            "JOIN user_roles ur ON u.id = ur.user_id " +
+
+    // 管理端用户列表: 按主键keyset分页, 不使用OFFSET; 角色过滤走user_roles(user_id, role_id)唯一索引
+    String SUMMARY_SELECT = "SELECT u.id, u.username, u.email, u.enabled, u.created_at, " +
+            "(SELECT GROUP_CONCAT(ur.role_id) FROM user_roles ur WHERE ur.user_id = u.id) AS role_ids FROM users u";
+    String SUMMARY_FILTER = "<where>" +
+            "<if test='after != null'>u.id &gt; #{after}</if>" +
+            "<if test='enabled != null'> AND u.enabled = #{enabled}</if>" +
+            "<if test='roleId != null'> AND EXISTS (SELECT 1 FROM user_roles ur " +
+            "WHERE ur.user_id = u.id AND ur.role_id = #{roleId})</if>" +
+            "</where>";
+
+    // 登录只需要这几列, 走username唯一索引
+    @Select("SELECT id, username, password, enabled FROM users WHERE username = #{username}")
+    User selectByUsername(String username);
+
+    @Select("<script>SELECT username FROM users WHERE username IN " +
+            "<foreach collection='usernames' item='username' open='(' separator=',' close=')'>#{username}</foreach>" +
+            "</script>")
+    List<String> selectExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // 逐行流式读取全部用户名, 用于重建布隆过滤器
+    @Select("SELECT username FROM users")
+    @ResultType(String.class)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void scanUsernames(ResultHandler<String> handler);
+
+    @Select("<script>" + SUMMARY_SELECT + SUMMARY_FILTER + " ORDER BY u.id LIMIT #{limit}</script>")
+    List<UserSummary> selectSummaries(@Param("after") Long after, @Param("enabled") Boolean enabled,
+                                      @Param("roleId") Long roleId, @Param("limit") int limit);
+
+    // 逐行流式读取, 用于导出
+    @Select("<script>" + SUMMARY_SELECT + SUMMARY_FILTER + " ORDER BY u.id</script>")
+    @ResultType(UserSummary.class)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void scanSummaries(@Param("after") Long after, @Param("enabled") Boolean enabled,
+                       @Param("roleId") Long roleId, ResultHandler<UserSummary> handler);
+
+    @Select("SELECT r.name FROM user_roles ur " +
             "JOIN roles r ON ur.role_id = r.id " +
-            "WHERE u.username = #{username}")
-    Set<String> getUserRoles(String username);
+            "WHERE ur.user_id = #{userId}")
+    Set<String> getUserRoles(Long userId);
 
-    @Select("SELECT p.name FROM users u " +
-            "JOIN user_roles ur ON u.id = ur.user_id " +
+    @Select("SELECT p.name FROM user_roles ur " +
             "JOIN role_permissions rp ON ur.role_id = rp.role_id " +
             "JOIN permissions p ON rp.permission_id = p.id " +
-            "WHERE u.username = #{username}")
-    Set<String> getUserPermissions(String username);
-} 
\ No newline at end of file
+            "WHERE ur.user_id = #{userId}")
+    Set<String> getUserPermissions(Long userId);
+
+    // 一次查询同时取回用户的角色和权限, 按user_id查询不再关联users表
+    @Select("SELECT r.name AS role, p.name AS permission FROM user_roles ur " +
+            "JOIN roles r ON ur.role_id = r.id " +
+            "LEFT JOIN role_permissions rp ON r.id = rp.role_id " +
+            "LEFT JOIN permissions p ON rp.permission_id = p.id " +
+            "WHERE ur.user_id = #{userId}")
+    List<RoleGrant> getUserGrants(Long userId);
+}
@@ -1,21 +1,33 @@
 package com.example.security.service;
 
-import cn.hutool.crypto.digest.BCrypt;
-import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import cn.hutool.core.util.StrUtil;
 import com.example.security.dto.AuthRequest;
 import com.example.security.dto.AuthResponse;
 import com.example.security.dto.RegisterRequest;
+import com.example.security.dto.TokenClaims;
+import com.example.security.dto.UserAuthorities;
+import com.example.security.dto.UserEntry;
 import com.example.security.entity.User;
 import com.example.security.entity.UserRole;
 import com.example.security.mapper.UserMapper;
 import com.example.security.mapper.UserRoleMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
@@ -23,107 +35,237 @@ import java.util.Set;
 public class AuthService {
 
     private final JwtService jwtService;
+    private final AuthorizationService authorizationService;
     private final UserMapper userMapper;
+    private final UserLookupService userLookupService;
+    private final UserStatsService userStatsService;
     private final UserRoleMapper userRoleMapper;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
 
-    @Transactional
-    public void register(RegisterRequest request) {
+    // 密码校验完成后签发token等I/O操作不占用哈希线程
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
+
+    public CompletableFuture<Void> register(RegisterRequest request) {
         log.info("Attempting to register user: {}", request.getUsername());
-        
-        // 检查用户名是否已存在
-        if (userMapper.exists(new QueryWrapper<User>().eq("username", request.getUsername()))) {
+
+        // 快速拒绝已存在的用户名, 省去哈希; 唯一性由users.username的唯一约束保证
+        if (userLookupService.find(request.getUsername()) != null) {
             log.warn("Registration failed - username already exists: {}", request.getUsername());
-            throw new IllegalStateException("Username already exists");
+            return CompletableFuture.failedFuture(new IllegalStateException("Username already exists"));
+        }
+
+        // 哈希在专用线程池中执行, 写库回到应用线程池
+        return passwordHasher.hash(request.getPassword())
+            .thenAcceptAsync(hashed -> {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> createUser(request, hashed));
+                } catch (DuplicateKeyException e) {
+                    // 并发注册同一用户名
+                    log.warn("Registration failed - username already exists: {}", request.getUsername());
+                    throw new IllegalStateException("Username already exists");
+                }
+                userLookupService.registered(List.of(request.getUsername()));
+                userStatsService.usersCreated(1);
+            }, taskExecutor);
+    }
+
+    public CompletableFuture<AuthResponse> authenticate(AuthRequest request) {
+        log.info("Attempting to authenticate user: {}", request.getUsername());
+        long start = System.nanoTime();
+
+        // 查找用户, 不存在的用户名由布隆过滤器拦截, 不访问数据库
+        UserEntry user = userLookupService.find(request.getUsername());
+        if (user == null || !user.isEnabled()) {
+            log.warn("Authentication failed - user not found or disabled: {}", request.getUsername());
+            recordLogin("unknown_user", start);
+            return CompletableFuture.failedFuture(new IllegalStateException("User not found or disabled"));
         }
 
+        // 验证密码
+        return passwordHasher.matches(request.getPassword(), user.getPassword())
+            .thenApplyAsync(matches -> {
+                if (!matches) {
+                    log.warn("Authentication failed - invalid password for user: {}", request.getUsername());
+                    throw new IllegalStateException("Invalid password");
+                }
+                if (passwordHasher.needsRehash(user.getPassword())) {
+                    rehash(user, request.getPassword());
+                }
+                return issueTokens(user);
+            }, taskExecutor)
+            .whenComplete((response, error) -> recordLogin(loginOutcome(error), start));
+    }
+
+    private static String loginOutcome(Throwable error) {
+        if (error == null) {
+            return "success";
+        }
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            return "rejected";
+        }
+        return cause instanceof IllegalStateException ? "bad_password" : "error";
+    }
+
+    /**
+     * 登录全程耗时(查用户、排队、BCrypt、签发token), 按结果区分
+     */
+    private void recordLogin(String outcome, long start) {
+        Timer.builder("auth.login")
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void createUser(RegisterRequest request, String hashedPassword) {
         // 创建新用户
         User user = new User();
         user.setUsername(request.getUsername());
-        user.setPassword(BCrypt.hashpw(request.getPassword()));
+        user.setPassword(hashedPassword);
         user.setEmail(request.getEmail());
         user.setEnabled(true);
         userMapper.insert(user);
 
-        // 为新用户分配USER角色
+        // 为新用户分配默认角色
         UserRole userRole = new UserRole();
         userRole.setUserId(user.getId());
-        userRole.setRoleId(2L);
+        userRole.setRoleId(authorizationService.defaultRoleId());
         userRoleMapper.insert(userRole);
-        
+
         log.info("Successfully registered user: {}", request.getUsername());
     }
 
-    public AuthResponse authenticate(AuthRequest request) {
-        log.info("Attempting to authenticate user: {}", request.getUsername());
-        
-        // 查找用户
-        User user = userMapper.selectOne(new QueryWrapper<User>().eq("username", request.getUsername()));
-        if (user == null || !user.getEnabled()) {
-            log.warn("Authentication failed - user not found or disabled: {}", request.getUsername());
-            throw new IllegalStateException("User not found or disabled");
-        }
-
-        // 验证密码
-        if (!BCrypt.checkpw(request.getPassword(), user.getPassword())) {
-            log.warn("Authentication failed - invalid password for user: {}", request.getUsername());
-            throw new IllegalStateException("Invalid password");
-        }
-
+    private AuthResponse issueTokens(UserEntry user) {
         // 获取用户角色和权限
-        Set<String> roles = userMapper.getUserRoles(user.getUsername());
-        Set<String> permissions = userMapper.getUserPermissions(user.getUsername());
+        UserAuthorities authorities = authorizationService.resolve(user.getUsername());
+        Set<String> roles = authorities.getRoles();
+        Set<String> permissions = authorities.getPermissions();
         log.debug("User roles: {}, permissions: {}", roles, permissions);
 
-        // 生成token
-        String accessToken = jwtService.generateAccessToken(user.getUsername(), roles, permissions);
-        String refreshToken = jwtService.generateRefreshToken(user.getUsername());
-        log.info("Successfully authenticated user: {}", request.getUsername());
+        // 每次登录开启一个新会话(设备), 不影响该用户的其他会话
+        AuthResponse response = jwtService.generateTokens(user.getUsername(), jwtService.newSessionId(), roles, permissions);
+        log.info("Successfully authenticated user: {}", user.getUsername());
+        return response;
+    }
 
-        return AuthResponse.builder()
-            .accessToken(accessToken)
-            .refreshToken(refreshToken)
-            .build();
+    /**
+     * cost配置变更后, 在用户登录成功时用新cost重新哈希, 失败不影响本次登录
+     */
+    private void rehash(UserEntry user, String password) {
+        passwordHasher.hash(password)
+            .thenAcceptAsync(hashed -> {
+                User update = new User();
+                update.setId(user.getId());
+                update.setPassword(hashed);
+                userMapper.updateById(update);
+                userLookupService.invalidate(user.getUsername());
+                log.info("Rehashed password for user: {}", user.getUsername());
+            }, taskExecutor)
+            .exceptionally(e -> {
+                log.warn("Password rehash failed for user {}: {}", user.getUsername(), e.getMessage());
+                return null;
+            });
     }
 
     public AuthResponse refreshToken(String refreshToken) {
         log.info("Attempting to refresh token");
         
-        // 验证refresh token
-        if (!jwtService.isRefreshTokenValid(refreshToken)) {
+        // 验证refresh token的签名和吊销状态
+        TokenClaims claims = jwtService.verifyRefreshToken(refreshToken);
+        if (claims == null) {
             log.warn("Token refresh failed - invalid refresh token");
             throw new IllegalStateException("Invalid refresh token");
         }
 
-        String username = jwtService.extractUsername(refreshToken);
+        String username = claims.getSubject();
         log.debug("Refreshing token for user: {}", username);
         
-        // 获取用户角色和权限
-        Set<String> roles = userMapper.getUserRoles(username);
-        Set<String> permissions = userMapper.getUserPermissions(username);
+        // 获取用户角色和权限(命中缓存时不访问数据库)
+        UserAuthorities authorities = authorizationService.resolve(username);
+        Set<String> roles = authorities.getRoles();
+        Set<String> permissions = authorities.getPermissions();
 
-        // 生成新的access token和refresh token
-        String newAccessToken = jwtService.generateAccessToken(username, roles, permissions);
-        String newRefreshToken = jwtService.generateRefreshToken(username);
+        // 在同一会话内轮换access token和refresh token, 旧token重用会导致整个会话被吊销
+        AuthResponse response = jwtService.rotateTokens(claims, roles, permissions);
+        if (response == null) {
+            log.warn("Token refresh failed - refresh token is no longer current");
+            throw new IllegalStateException("Invalid refresh token");
+        }
         log.info("Successfully refreshed token for user: {}", username);
-
-        return AuthResponse.builder()
-            .accessToken(newAccessToken)
-            .refreshToken(newRefreshToken)
-            .build();
+        return response;
     }
 
-    public void logout(String token) {
-        String username = jwtService.extractUsername(token);
-        log.info("Logging out user: {}", username);
-        jwtService.invalidateTokens(username);
+    public void logout(String token, boolean allSessions) {
+        TokenClaims claims = jwtService.parseToken(token);
+        if (claims == null) {
+            log.warn("Logout failed - invalid token");
+            throw new IllegalStateException("Invalid token");
+        }
+        String username = claims.getSubject();
+        log.info("Logging out user: {}, all sessions: {}", username, allSessions);
+        if (allSessions || claims.getSessionId() == null) {
+            jwtService.invalidateTokens(username);
+        } else {
+            jwtService.invalidateSession(username, claims.getSessionId());
+        }
         log.info("Successfully logged out user: {}", username);
     }
 
+    /**
+     * 批量登出用户(如角色变更后), 已签发的token立即失效
+     */
+    public int revokeUsers(List<String> usernames) {
+        List<String> distinct = usernames.stream()
+            .filter(StrUtil::isNotBlank)
+            .distinct()
+            .toList();
+        if (!distinct.isEmpty()) {
+            jwtService.invalidateTokens(distinct);
+            log.info("Revoked tokens for {} users", distinct.size());
+        }
+        return distinct.size();
+    }
+
     public Map<String, Object> validateToken(String token) {
-        boolean isValid = jwtService.isAccessTokenValid(token);
-        String username = jwtService.extractUsername(token);
-        Set<String> roles = jwtService.extractRoles(token);
-        log.debug("Token validation for user {}: {}", username, isValid);
-        return Map.of("isValid", isValid, "username", username, "roles", roles);
+        // 只解析验签一次
+        TokenClaims claims = jwtService.validateAccessToken(token);
+        if (claims == null) {
+            log.debug("Token validation failed");
+            return Map.of("isValid", false);
+        }
+        log.debug("Token validation for user {}: true", claims.getSubject());
+        return validationResponse(claims);
+    }
+
+    /**
+     * 批量校验, 结果与tokens按下标对应
+     */
+    public List<Map<String, Object>> validateTokens(List<String> tokens) {
+        return jwtService.validateAccessTokens(tokens).stream()
+            .map(AuthService::validationResponse)
+            .toList();
+    }
+
+    /**
+     * /auth/validate的响应体, 网关RemoteTokenValidator按此解析
+     */
+    public static Map<String, Object> validationResponse(TokenClaims claims) {
+        if (claims == null) {
+            return Map.of("isValid", false);
+        }
+        return Map.of(
+            "isValid", true,
+            "username", claims.getSubject(),
+            "roles", claims.getRoles(),
+            "permissions", claims.getPermissions(),
+            "expiresAt", claims.getExpiration().getTime(),
+            "sessionId", claims.getSessionId(),
+            "version", claims.getVersion()
+        );
     }
 } 
\ No newline at end of file
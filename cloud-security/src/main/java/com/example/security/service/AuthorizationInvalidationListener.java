@@ -0,0 +1,45 @@
+package com.example.security.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 接收其他实例发出的角色/权限失效和用户注册通知
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuthorizationInvalidationListener {
+
+    private final AuthorizationService authorizationService;
+    private final UserLookupService userLookupService;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(
+            (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(AuthorizationService.INVALIDATE_CHANNEL));
+    }
+
+    private void onMessage(String message) {
+        log.debug("Received authorization invalidation: {}", message);
+        if (AuthorizationService.ROLES_MESSAGE.equals(message)) {
+            authorizationService.invalidateRoles();
+        } else if (message.startsWith(AuthorizationService.USER_MESSAGE_PREFIX)) {
+            String username = message.substring(AuthorizationService.USER_MESSAGE_PREFIX.length());
+            authorizationService.invalidateUser(username);
+            userLookupService.invalidate(username);
+        } else if (message.startsWith(UserLookupService.REGISTERED_MESSAGE_PREFIX)) {
+            for (String username : message.substring(UserLookupService.REGISTERED_MESSAGE_PREFIX.length()).split("\n")) {
+                userLookupService.addToFilter(username);
+            }
+        }
+    }
+}
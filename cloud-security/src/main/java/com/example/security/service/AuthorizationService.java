@@ -0,0 +1,176 @@
+package com.example.security.service;
+
+import com.example.security.dto.AuthorityDictionary;
+import com.example.security.dto.RoleGrant;
+import com.example.security.dto.UserAuthorities;
+import com.example.security.dto.UserEntry;
+import com.example.security.entity.Permission;
+import com.example.security.entity.Role;
+import com.example.security.mapper.RoleMapper;
+import com.example.security.mapper.UserMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 角色/权限解析: 角色->权限映射全量常驻内存, 用户->角色按TTL缓存,
+ * 变更时通过Redis pub/sub通知所有实例失效
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AuthorizationService {
+
+    static final String INVALIDATE_CHANNEL = "authz:invalidate";
+    // 消息格式: "roles" 或 "user:{username}"
+    static final String ROLES_MESSAGE = "roles";
+    static final String USER_MESSAGE_PREFIX = "user:";
+
+    @Value("${authorization.cache.user-roles-ttl:600}")
+    private long userRolesTtl;
+
+    @Value("${authorization.cache.maximum-size:100000}")
+    private long maximumSize;
+
+    // 注册和导入时未指定角色的用户分配此角色
+    @Value("${user.default-role:USER}")
+    private String defaultRole;
+
+    private final UserMapper userMapper;
+    private final RoleMapper roleMapper;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final UserLookupService userLookupService;
+
+    private Cache<String, Set<String>> userRoles;
+    private volatile Map<String, Set<String>> rolePermissions = Collections.emptyMap();
+    private volatile AuthorityDictionary dictionary = AuthorityDictionary.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        this.userRoles = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(userRolesTtl, TimeUnit.SECONDS)
+            .build();
+        reloadRolePermissions();
+    }
+
+    /**
+     * 解析用户的角色和权限, 缓存命中时不访问数据库
+     */
+    public UserAuthorities resolve(String username) {
+        Set<String> roles = userRoles.getIfPresent(username);
+        if (roles != null) {
+            return new UserAuthorities(roles, permissionsOf(roles));
+        }
+
+        // 未命中: 按user_id一次查询取回角色和权限, id来自用户查找缓存
+        UserEntry user = userLookupService.find(username);
+        if (user == null) {
+            return new UserAuthorities(Collections.emptySet(), Collections.emptySet());
+        }
+        Set<String> loadedRoles = new HashSet<>();
+        Set<String> permissions = new HashSet<>();
+        for (RoleGrant grant : userMapper.getUserGrants(user.getId())) {
+            loadedRoles.add(grant.getRole());
+            if (grant.getPermission() != null) {
+                permissions.add(grant.getPermission());
+            }
+        }
+        userRoles.put(username, Collections.unmodifiableSet(loadedRoles));
+        return new UserAuthorities(loadedRoles, permissions);
+    }
+
+    @Scheduled(initialDelayString = "${authorization.cache.role-permissions-refresh-interval:300000}",
+        fixedDelayString = "${authorization.cache.role-permissions-refresh-interval:300000}")
+    public void reloadRolePermissions() {
+        Map<String, Set<String>> loaded = new HashMap<>();
+        for (RoleGrant grant : roleMapper.getRoleGrants()) {
+            Set<String> permissions = loaded.computeIfAbsent(grant.getRole(), role -> new HashSet<>());
+            if (grant.getPermission() != null) {
+                permissions.add(grant.getPermission());
+            }
+        }
+        this.rolePermissions = loaded;
+        reloadDictionary();
+        log.debug("Loaded permissions of {} roles", loaded.size());
+    }
+
+    /**
+     * 紧凑格式token使用的角色/权限字典, 与角色->权限映射一起刷新
+     */
+    public AuthorityDictionary dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * 默认角色的id
+     * @throws IllegalStateException 角色表中没有该角色
+     */
+    public long defaultRoleId() {
+        Long id = dictionary.roleId(defaultRole);
+        if (id == null) {
+            throw new IllegalStateException("Default role not found: " + defaultRole);
+        }
+        return id;
+    }
+
+    private void reloadDictionary() {
+        Map<Long, String> roles = new HashMap<>();
+        for (Role role : roleMapper.getRoles()) {
+            roles.put(role.getId(), role.getName());
+        }
+        Map<Long, String> permissions = new HashMap<>();
+        for (Permission permission : roleMapper.getPermissions()) {
+            permissions.put(permission.getId(), permission.getName());
+        }
+        AuthorityDictionary loaded = new AuthorityDictionary(roles, permissions);
+        if (!loaded.getVersion().equals(dictionary.getVersion())) {
+            log.info("Authority dictionary changed to version {}", loaded.getVersion());
+        }
+        this.dictionary = loaded;
+    }
+
+    /**
+     * 用户的角色分配发生变化后调用, 通知所有实例
+     */
+    public void userChanged(String username) {
+        invalidateUser(username);
+        redisTemplate.convertAndSend(INVALIDATE_CHANNEL, USER_MESSAGE_PREFIX + username);
+    }
+
+    /**
+     * 角色或权限定义发生变化后调用, 通知所有实例
+     */
+    public void rolesChanged() {
+        invalidateRoles();
+        redisTemplate.convertAndSend(INVALIDATE_CHANNEL, ROLES_MESSAGE);
+    }
+
+    void invalidateUser(String username) {
+        userRoles.invalidate(username);
+    }
+
+    void invalidateRoles() {
+        reloadRolePermissions();
+        // 角色可能被改名或删除, 用户->角色也一并失效
+        userRoles.invalidateAll();
+    }
+
+    private Set<String> permissionsOf(Set<String> roles) {
+        Map<String, Set<String>> current = rolePermissions;
+        Set<String> permissions = new HashSet<>();
+        for (String role : roles) {
+            permissions.addAll(current.getOrDefault(role, Collections.emptySet()));
+        }
+        return permissions;
+    }
+}
@@ -1,29 +1,54 @@
 package com.example.security.service;
 
 import cn.hutool.core.util.StrUtil;
+import com.example.security.dto.AuthResponse;
+import com.example.security.dto.AuthorityDictionary;
+import com.example.security.dto.TokenClaims;
+import com.example.security.token.RevocationStore;
+import com.example.security.token.RotationResult;
+import com.example.security.token.TokenStore;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class JwtService {
 
-    private static final String ACCESS_TOKEN_PREFIX = "access_token:";
-    private static final String REFRESH_TOKEN_PREFIX = "refresh_token:";
+    private static final String STATELESS_MODE = "stateless";
+    private static final String COMPACT_FORMAT = "compact";
 
-    @Value("${jwt.secret}")
-    private String secretKey;
+    /**
+     * token校验结果, 用作jwt.validate指标的outcome标签
+     */
+    public enum Outcome {
+        VALID, MALFORMED, BAD_SIGNATURE, EXPIRED, WRONG_TYPE, REVOKED,
+        // 会话已轮换出新token、已登出或被淘汰
+        SUPERSEDED,
+        // 已轮换掉的refresh token再次使用
+        REUSED;
+
+        private final String tag = name().toLowerCase(Locale.ROOT);
+    }
 
     @Value("${jwt.access-token-expiration}")
     private long accessTokenExpiration;
@@ -31,139 +56,477 @@ public class JwtService {
     @Value("${jwt.refresh-token-expiration}")
     private long refreshTokenExpiration;
 
-    private final RedisTemplate<String, String> redisTemplate;
-    private Key key;
+    // redis: access token登记到TokenStore并在校验时比对; stateless: 只验签并检查吊销表
+    @Value("${jwt.token-mode:redis}")
+    private String tokenMode;
+
+    // full: roles/permissions为名称数组; compact: 角色id数组(rid)+权限位图(pb)+字典版本(dv)
+    @Value("${jwt.claims.format:full}")
+    private String claimsFormat;
+
+    // 每个用户同时保留的会话(设备)数
+    @Value("${jwt.session.max-per-user:10}")
+    private int maxSessionsPerUser;
+
+    private final TokenStore tokenStore;
+    private final RevocationStore revocationStore;
+    private final MeterRegistry meterRegistry;
+    private final SigningKeyManager signingKeys;
+    private final AuthorizationService authorizationService;
+    // JwtParser线程安全, 构建一次后复用
+    private JwtParser parser;
+    // 指标在初始化时按标签组合注册好, 校验路径上不再查找注册表
+    private Map<Outcome, Timer> accessTimers;
+    private Map<Outcome, Timer> refreshTimers;
+    private final Map<String, Timer> storeTimers = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void init() {
-        this.key = Keys.hmacShaKeyFor(secretKey.getBytes());
+        // 按token头的kid选择校验密钥, 支持轮换期间新旧密钥并存
+        this.parser = Jwts.parserBuilder()
+            .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                @Override
+                public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                    return signingKeys.verificationKey(header.getKeyId());
+                }
+            })
+            .build();
+        this.accessTimers = validateTimers(TokenClaims.ACCESS);
+        this.refreshTimers = validateTimers(TokenClaims.REFRESH);
     }
 
-    public String generateAccessToken(String username, Set<String> roles, Set<String> permissions) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("roles", roles);
-        claims.put("permissions", permissions);
-        String token = generateToken(claims, username, accessTokenExpiration);
-        
-        // 将access token存入Redis
-        redisTemplate.opsForValue().set(
-            ACCESS_TOKEN_PREFIX + username,
-            token,
-            accessTokenExpiration,
-            TimeUnit.SECONDS
-        );
-        
-        return token;
+    public String newSessionId() {
+        return UUID.randomUUID().toString();
     }
 
-    public String generateRefreshToken(String username) {
-        String token = generateToken(new HashMap<>(), username, refreshTokenExpiration);
-        
-        // 将refresh token存入Redis
-        redisTemplate.opsForValue().set(
-            REFRESH_TOKEN_PREFIX + username,
-            token,
-            refreshTokenExpiration,
-            TimeUnit.SECONDS
-        );
+    /**
+     * 签发会话的access token和refresh token, 只读取一次版本号, 两个token在一次Redis往返中登记
+     */
+    public AuthResponse generateTokens(String username, String sessionId, Set<String> roles, Set<String> permissions) {
+        long version = timed("currentVersion", () -> revocationStore.currentVersion(username));
+        String accessTokenId = UUID.randomUUID().toString();
+        String refreshTokenId = UUID.randomUUID().toString();
+        String accessToken = generateToken(accessClaims(sessionId, roles, permissions), username, accessTokenId, version, accessTokenExpiration);
+        String refreshToken = generateToken(refreshClaims(sessionId), username, refreshTokenId, version, refreshTokenExpiration);
+
+        // refresh token始终登记, 用于轮换和重用检测; 超出会话上限时淘汰最早的会话
+        List<String> evicted = timed("saveSession", () -> tokenStore.saveSession(username, sessionId,
+            isStateless() ? null : accessTokenId, accessTokenExpiration,
+            refreshTokenId, refreshTokenExpiration, maxSessionsPerUser));
+        evicted.forEach(revocationStore::revokeSession);
+
+        return AuthResponse.builder()
+            .accessToken(accessToken)
+            .refreshToken(refreshToken)
+            .build();
+    }
+
+    /**
+     * 只签发access token
+     */
+    public String generateAccessToken(String username, String sessionId, Set<String> roles, Set<String> permissions) {
+        String tokenId = UUID.randomUUID().toString();
+        String token = generateToken(accessClaims(sessionId, roles, permissions), username, tokenId,
+            timed("currentVersion", () -> revocationStore.currentVersion(username)), accessTokenExpiration);
+        if (isStateless()) {
+            return token;
+        }
+
+        // 登记会话当前的access token
+        timed("saveAccessToken", () -> tokenStore.saveAccessToken(username, sessionId, tokenId, accessTokenExpiration));
         return token;
     }
 
+    /**
+     * 登出该用户的所有会话
+     */
     public void invalidateTokens(String username) {
-        // 删除Redis中的所有token
-        redisTemplate.delete(ACCESS_TOKEN_PREFIX + username);
-        redisTemplate.delete(REFRESH_TOKEN_PREFIX + username);
+        timed("removeAllSessions", () -> tokenStore.removeAllSessions(username));
+        // 吊销当前版本, 网关及其他实例据此在本地拒绝旧token
+        timed("revoke", () -> revocationStore.revoke(username));
+    }
+
+    /**
+     * 批量登出多个用户的所有会话, 按批次pipeline执行
+     */
+    public void invalidateTokens(Collection<String> usernames) {
+        tokenStore.removeAllSessions(usernames);
+        revocationStore.revoke(usernames);
+    }
+
+    /**
+     * 登出单个会话
+     */
+    public void invalidateSession(String username, String sessionId) {
+        timed("removeSession", () -> tokenStore.removeSession(username, sessionId));
+        timed("revokeSession", () -> revocationStore.revokeSession(sessionId));
     }
 
     public boolean isAccessTokenValid(String token) {
-        try {
-            String username = extractUsername(token);
-            if (StrUtil.isBlank(username)) {
-                return false;
-            }
+        return validateAccessToken(token) != null;
+    }
 
-            // 验证token是否过期
-            Claims claims = extractAllClaims(token);
-            if (claims.getExpiration().before(new Date())) {
-                return false;
-            }
+    public boolean isRefreshTokenValid(String token) {
+        return validateRefreshToken(token) != null;
+    }
 
-            // 验证是否是access token
-            String storedAccessToken = redisTemplate.opsForValue().get(ACCESS_TOKEN_PREFIX + username);
-            return token.equals(storedAccessToken);
-            
-        } catch (Exception e) {
-            return false;
+    /**
+     * 校验access token: 验签、过期、类型、吊销表及会话当前的token, 只解析一次
+     * @return 不合法时返回null
+     */
+    public TokenClaims validateAccessToken(String token) {
+        long start = System.nanoTime();
+        TokenClaims claims = verify(token, TokenClaims.ACCESS, accessTimers, start);
+        if (claims == null) {
+            return null;
+        }
+        if (isStateless()) {
+            return record(accessTimers, Outcome.VALID, start, claims);
         }
+        boolean current = timed("isCurrentAccessToken",
+            () -> tokenStore.isCurrentAccessToken(claims.getSubject(), claims.getSessionId(), claims.getId()));
+        return current
+            ? record(accessTimers, Outcome.VALID, start, claims)
+            : record(accessTimers, Outcome.SUPERSEDED, start, null);
     }
 
-    public boolean isRefreshTokenValid(String token) {
-        try {
-            String username = extractUsername(token);
-            if (StrUtil.isBlank(username)) {
-                return false;
-            }
+    /**
+     * 批量校验access token: 逐个验签后, 需要比对会话的token用一次MGET取回(近端缓存命中的除外)
+     * @return 与入参等长, 不合法的位置为null
+     */
+    public List<TokenClaims> validateAccessTokens(List<String> tokens) {
+        AccessTokenBatch batch = new AccessTokenBatch(tokens);
+        if (batch.usernames.isEmpty()) {
+            return batch.complete(List.of());
+        }
+        return batch.completeMatches(timed("areCurrentAccessTokens",
+            () -> tokenStore.areCurrentAccessTokens(batch.usernames, batch.sessionIds, batch.tokenIds)));
+    }
 
-            // 验证token是否过期
-            Claims claims = extractAllClaims(token);
-            if (claims.getExpiration().before(new Date())) {
-                return false;
-            }
+    /**
+     * 校验refresh token是否为会话当前的refresh token, 无副作用
+     */
+    public TokenClaims validateRefreshToken(String token) {
+        long start = System.nanoTime();
+        TokenClaims claims = verify(token, TokenClaims.REFRESH, refreshTimers, start);
+        if (claims == null) {
+            return null;
+        }
+        boolean current = timed("isCurrentRefreshToken",
+            () -> tokenStore.isCurrentRefreshToken(claims.getSubject(), claims.getSessionId(), claims.getId()));
+        return current
+            ? record(refreshTimers, Outcome.VALID, start, claims)
+            : record(refreshTimers, Outcome.SUPERSEDED, start, null);
+    }
 
-            // 验证是否是refresh token
-            String storedRefreshToken = redisTemplate.opsForValue().get(REFRESH_TOKEN_PREFIX + username);
-            return token.equals(storedRefreshToken);
-            
-        } catch (Exception e) {
-            return false;
+    /**
+     * 刷新前校验refresh token的签名、过期、类型和吊销表, 不访问会话存储;
+     * 是否为会话当前的refresh token由{@link #rotateTokens}在写入时原子比较
+     * @return 不可用时返回null
+     */
+    public TokenClaims verifyRefreshToken(String token) {
+        return verify(token, TokenClaims.REFRESH, refreshTimers, System.nanoTime());
+    }
+
+    /**
+     * 在同一会话内轮换access token和refresh token: 只有会话当前的refresh token可以使用,
+     * 比较和写入在一次Redis往返中原子完成, 同一token的并发刷新只有一个成功.
+     * 已被轮换掉的旧token再次出现视为泄露, 吊销整个会话; 会话已登出、被淘汰或过期时不会重建
+     * @param claims {@link #verifyRefreshToken}的结果
+     * @return 不可用时返回null
+     */
+    public AuthResponse rotateTokens(TokenClaims claims, Set<String> roles, Set<String> permissions) {
+        long start = System.nanoTime();
+        String username = claims.getSubject();
+        String sessionId = claims.getSessionId();
+        long version = timed("currentVersion", () -> revocationStore.currentVersion(username));
+        String accessTokenId = UUID.randomUUID().toString();
+        String refreshTokenId = UUID.randomUUID().toString();
+        String accessToken = generateToken(accessClaims(sessionId, roles, permissions), username, accessTokenId, version, accessTokenExpiration);
+        String refreshToken = generateToken(refreshClaims(sessionId), username, refreshTokenId, version, refreshTokenExpiration);
+
+        RotationResult result = timed("rotateSession", () -> tokenStore.rotateSession(username, sessionId, claims.getId(),
+            isStateless() ? null : accessTokenId, accessTokenExpiration, refreshTokenId, refreshTokenExpiration));
+        if (result == RotationResult.NOT_FOUND) {
+            return record(refreshTimers, Outcome.SUPERSEDED, start, null);
+        }
+        if (result == RotationResult.REUSED) {
+            log.warn("Refresh token reuse detected for user {}, revoking session {}", username, sessionId);
+            invalidateSession(username, sessionId);
+            return record(refreshTimers, Outcome.REUSED, start, null);
         }
+        return record(refreshTimers, Outcome.VALID, start, AuthResponse.builder()
+            .accessToken(accessToken)
+            .refreshToken(refreshToken)
+            .build());
     }
 
-    public String extractUsername(String token) {
+    /**
+     * 验签并解析token(parser会同时校验exp), 不访问Redis
+     * @return 签名错误、过期或格式错误时返回null
+     */
+    public TokenClaims parseToken(String token) {
         try {
-            return extractAllClaims(token).getSubject();
+            return parse(token);
         } catch (Exception e) {
             return null;
         }
     }
 
-    @SuppressWarnings("unchecked")
+    public String extractUsername(String token) {
+        TokenClaims claims = parseToken(token);
+        return claims != null ? claims.getSubject() : null;
+    }
+
     public Set<String> extractRoles(String token) {
+        TokenClaims claims = parseToken(token);
+        return claims != null ? claims.getRoles() : Collections.emptySet();
+    }
+
+    public Set<String> extractPermissions(String token) {
+        TokenClaims claims = parseToken(token);
+        return claims != null ? claims.getPermissions() : Collections.emptySet();
+    }
+
+    /**
+     * 验签、类型和吊销表检查, 不访问Redis; 失败时记录outcome并返回null
+     */
+    TokenClaims verify(String token, String type, long start) {
+        return verify(token, type, timersOf(type), start);
+    }
+
+    /**
+     * 记录jwt.validate并原样返回value
+     */
+    <T> T record(String type, Outcome outcome, long start, T value) {
+        return record(timersOf(type), outcome, start, value);
+    }
+
+    private Map<Outcome, Timer> timersOf(String type) {
+        return TokenClaims.ACCESS.equals(type) ? accessTimers : refreshTimers;
+    }
+
+    private TokenClaims verify(String token, String type, Map<Outcome, Timer> timers, long start) {
+        TokenClaims claims;
         try {
-            Claims claims = extractAllClaims(token);
-            List<String> roles = (List<String>) claims.get("roles");
-            return roles != null ? new HashSet<>(roles) : Collections.emptySet();
+            claims = parse(token);
+        } catch (ExpiredJwtException e) {
+            return record(timers, Outcome.EXPIRED, start, null);
+        } catch (SignatureException e) {
+            return record(timers, Outcome.BAD_SIGNATURE, start, null);
         } catch (Exception e) {
-            return Collections.emptySet();
+            return record(timers, Outcome.MALFORMED, start, null);
+        }
+        if (claims == null) {
+            return record(timers, Outcome.MALFORMED, start, null);
+        }
+        if (!type.equals(claims.getType())) {
+            return record(timers, Outcome.WRONG_TYPE, start, null);
         }
+        if (isRevoked(claims)) {
+            return record(timers, Outcome.REVOKED, start, null);
+        }
+        return claims;
     }
 
     @SuppressWarnings("unchecked")
-    public Set<String> extractPermissions(String token) {
-        try {
-            Claims claims = extractAllClaims(token);
-            List<String> permissions = (List<String>) claims.get("permissions");
-            return permissions != null ? new HashSet<>(permissions) : Collections.emptySet();
-        } catch (Exception e) {
-            return Collections.emptySet();
+    private TokenClaims parse(String token) {
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (StrUtil.isBlank(claims.getSubject()) || StrUtil.isBlank(claims.getId())) {
+            return null;
         }
+        Long version = claims.get("ver", Long.class);
+        Set<String> roles;
+        Set<String> permissions;
+        String permissionBits = claims.get("pb", String.class);
+        if (permissionBits != null) {
+            // id不复用, 直接用当前字典解码
+            AuthorityDictionary dictionary = authorizationService.dictionary();
+            roles = dictionary.decodeRoles((List<Number>) claims.getOrDefault("rid", Collections.emptyList()));
+            permissions = dictionary.decodePermissions(permissionBits);
+        } else {
+            roles = toSet((List<String>) claims.get("roles"));
+            permissions = toSet((List<String>) claims.get("permissions"));
+        }
+        return TokenClaims.builder()
+            .subject(claims.getSubject())
+            .roles(roles)
+            .permissions(permissions)
+            .issuedAt(claims.getIssuedAt())
+            .expiration(claims.getExpiration())
+            .type(claims.get("type", String.class))
+            .id(claims.getId())
+            .version(version != null ? version : 0L)
+            .sessionId(claims.get("sid", String.class))
+            .build();
+    }
+
+    private Map<Outcome, Timer> validateTimers(String type) {
+        Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+        for (Outcome outcome : Outcome.values()) {
+            timers.put(outcome, Timer.builder("jwt.validate")
+                .description("Token validation latency including Redis lookups")
+                .tag("type", type)
+                .tag("outcome", outcome.tag)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        }
+        return timers;
+    }
+
+    private static <T> T record(Map<Outcome, Timer> timers, Outcome outcome, long start, T value) {
+        timers.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return value;
+    }
+
+    /**
+     * 记录会话和吊销存储(Redis)单次操作的耗时
+     */
+    private <T> T timed(String operation, Supplier<T> call) {
+        return storeTimer(operation).record(call);
+    }
+
+    private void timed(String operation, Runnable call) {
+        storeTimer(operation).record(call);
+    }
+
+    private Timer storeTimer(String operation) {
+        return storeTimers.computeIfAbsent(operation, key -> Timer.builder("jwt.store")
+            .description("Token store round trip latency")
+            .tag("operation", key)
+            .publishPercentileHistogram()
+            .register(meterRegistry));
     }
 
-    private String generateToken(Map<String, Object> extraClaims, String username, long expiration) {
-        return Jwts.builder()
+    /**
+     * 批量校验的中间状态, 供阻塞和reactive两种实现共用
+     */
+    final class AccessTokenBatch {
+
+        private final long start = System.nanoTime();
+        private final TokenClaims[] results;
+        // 需要比对会话当前token的下标, 及对应的username/sid
+        private final List<Integer> pending = new ArrayList<>();
+        final List<String> usernames = new ArrayList<>();
+        final List<String> sessionIds = new ArrayList<>();
+        final List<String> tokenIds = new ArrayList<>();
+
+        AccessTokenBatch(List<String> tokens) {
+            this.results = new TokenClaims[tokens.size()];
+            for (int i = 0; i < tokens.size(); i++) {
+                TokenClaims claims = verify(tokens.get(i), TokenClaims.ACCESS, accessTimers, start);
+                if (claims == null) {
+                    continue;
+                }
+                if (isStateless()) {
+                    results[i] = record(accessTimers, Outcome.VALID, start, claims);
+                } else {
+                    pending.add(i);
+                    usernames.add(claims.getSubject());
+                    sessionIds.add(claims.getSessionId());
+                    tokenIds.add(claims.getId());
+                    results[i] = claims;
+                }
+            }
+        }
+
+        /**
+         * @param currentTokenIds 与usernames按下标对应的会话当前token id
+         */
+        List<TokenClaims> complete(List<String> currentTokenIds) {
+            List<Boolean> current = new ArrayList<>(pending.size());
+            for (int j = 0; j < pending.size(); j++) {
+                current.add(j < currentTokenIds.size() && tokenIds.get(j).equals(currentTokenIds.get(j)));
+            }
+            return completeMatches(current);
+        }
+
+        /**
+         * @param current 与usernames按下标对应, 是否为会话当前的token
+         */
+        List<TokenClaims> completeMatches(List<Boolean> current) {
+            for (int j = 0; j < pending.size(); j++) {
+                int i = pending.get(j);
+                results[i] = j < current.size() && current.get(j)
+                    ? record(accessTimers, Outcome.VALID, start, results[i])
+                    : record(accessTimers, Outcome.SUPERSEDED, start, null);
+            }
+            return Arrays.asList(results);
+        }
+    }
+
+    long getAccessTokenExpiration() {
+        return accessTokenExpiration;
+    }
+
+    long getRefreshTokenExpiration() {
+        return refreshTokenExpiration;
+    }
+
+    int getMaxSessionsPerUser() {
+        return maxSessionsPerUser;
+    }
+
+    boolean isStateless() {
+        return STATELESS_MODE.equals(tokenMode);
+    }
+
+    private boolean isRevoked(TokenClaims claims) {
+        return claims.getSessionId() == null
+            || revocationStore.isRevoked(claims.getSubject(), claims.getVersion())
+            || revocationStore.isSessionRevoked(claims.getSessionId());
+    }
+
+    Map<String, Object> accessClaims(String sessionId, Set<String> roles, Set<String> permissions) {
+        Map<String, Object> claims = new HashMap<>();
+        if (!COMPACT_FORMAT.equals(claimsFormat) || !putCompact(claims, roles, permissions)) {
+            claims.put("roles", roles);
+            claims.put("permissions", permissions);
+        }
+        claims.put("type", TokenClaims.ACCESS);
+        claims.put("sid", sessionId);
+        return claims;
+    }
+
+    /**
+     * 字典尚未包含某个角色或权限(刚新增, 未到刷新时间)时返回false, 该token使用完整格式
+     */
+    private boolean putCompact(Map<String, Object> claims, Set<String> roles, Set<String> permissions) {
+        AuthorityDictionary dictionary = authorizationService.dictionary();
+        List<Long> roleIds = dictionary.encodeRoles(roles);
+        String permissionBits = dictionary.encodePermissions(permissions);
+        if (roleIds == null || permissionBits == null) {
+            return false;
+        }
+        claims.put("rid", roleIds);
+        claims.put("pb", permissionBits);
+        claims.put("dv", dictionary.getVersion());
+        return true;
+    }
+
+    static Map<String, Object> refreshClaims(String sessionId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("type", TokenClaims.REFRESH);
+        claims.put("sid", sessionId);
+        return claims;
+    }
+
+    String generateToken(Map<String, Object> extraClaims, String username, String tokenId, long version, long expiration) {
+        extraClaims.put("ver", version);
+        SigningKey signingKey = signingKeys.active();
+        JwtBuilder builder = Jwts.builder()
             .setClaims(extraClaims)
+            .setId(tokenId)
             .setSubject(username)
             .setIssuedAt(new Date())
-            .setExpiration(new Date(System.currentTimeMillis() + expiration * 1000))
-            .signWith(key, SignatureAlgorithm.HS256)
-            .compact();
+            .setExpiration(new Date(System.currentTimeMillis() + expiration * 1000));
+        if (signingKey.getKid() != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, signingKey.getKid());
+        }
+        return builder.signWith(signingKey.getKey(), signingKey.getAlgorithm()).compact();
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-            .setSigningKey(key)
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
+    private static Set<String> toSet(List<String> values) {
+        return values != null ? new HashSet<>(values) : Collections.emptySet();
     }
 } 
\ No newline at end of file
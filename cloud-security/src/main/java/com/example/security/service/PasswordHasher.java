@@ -0,0 +1,141 @@
+package com.example.security.service;
+
+import cn.hutool.crypto.digest.BCrypt;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希专用线程池: BCrypt是CPU密集操作, 不占用Tomcat请求线程,
+ * 队列满时直接拒绝(RejectedExecutionException), 由调用方返回503
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PasswordHasher {
+
+    @Value("${password.hash.cost:10}")
+    private int cost;
+
+    // 0表示使用CPU核数
+    @Value("${password.hash.threads:0}")
+    private int threads;
+
+    @Value("${password.hash.queue-capacity:100}")
+    private int queueCapacity;
+
+    private final MeterRegistry meterRegistry;
+    private ThreadPoolExecutor executor;
+    private Timer hashTimer;
+    private Timer verifyTimer;
+    private Timer waitTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            r -> {
+                Thread thread = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = Timer.builder("password.hash.time").tag("operation", "hash")
+            .publishPercentileHistogram().register(meterRegistry);
+        this.verifyTimer = Timer.builder("password.hash.time").tag("operation", "verify")
+            .publishPercentileHistogram().register(meterRegistry);
+        // 排队时间单独统计, 与哈希本身的耗时区分
+        this.waitTimer = Timer.builder("password.hash.wait").publishPercentileHistogram().register(meterRegistry);
+        this.rejected = Counter.builder("password.hash.rejected").register(meterRegistry);
+        Gauge.builder("password.hash.queue", executor, e -> e.getQueue().size()).register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        log.info("Password hasher started with {} threads, queue capacity {}, cost {}", poolSize, queueCapacity, cost);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public CompletableFuture<String> hash(String password) {
+        return submit(hashTimer, () -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    public CompletableFuture<Boolean> matches(String password, String hashed) {
+        return submit(verifyTimer, () -> BCrypt.checkpw(password, hashed));
+    }
+
+    /**
+     * 批量哈希(导入用), 阻塞直到全部完成: 同时最多parallelism(<=0时为线程数)个任务占用线程池,
+     * 排在其后的登录请求最多等待一轮哈希; 线程池饱和时在调用线程上执行, 不会被拒绝
+     */
+    public List<String> hashAll(List<String> passwords, int parallelism) {
+        Semaphore permits = new Semaphore(parallelism > 0 ? parallelism : executor.getMaximumPoolSize());
+        List<CompletableFuture<String>> futures = new ArrayList<>(passwords.size());
+        for (String password : passwords) {
+            permits.acquireUninterruptibly();
+            CompletableFuture<String> future = new CompletableFuture<>();
+            Runnable task = () -> {
+                try {
+                    future.complete(hashTimer.record(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost))));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            };
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                task.run();
+            }
+            futures.add(future);
+        }
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * 哈希的cost与当前配置不同时需要在登录成功后重新哈希
+     */
+    public boolean needsRehash(String hashed) {
+        // 格式: $2a$10$<salt><hash>
+        if (hashed == null || hashed.length() < 7 || hashed.charAt(0) != '$') {
+            return true;
+        }
+        try {
+            return Integer.parseInt(hashed.substring(4, 6)) != cost;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> task) {
+        try {
+            long submitted = System.nanoTime();
+            return CompletableFuture.supplyAsync(() -> {
+                waitTimer.record(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                return timer.record(task);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
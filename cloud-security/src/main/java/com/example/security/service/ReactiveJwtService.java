@@ -0,0 +1,122 @@
+package com.example.security.service;
+
+import com.example.security.dto.AuthResponse;
+import com.example.security.dto.TokenClaims;
+import com.example.security.token.ReactiveRevocationStore;
+import com.example.security.token.ReactiveTokenStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * {@link JwtService}中validate/refresh/logout的非阻塞版本: 签名、验签和吊销表检查仍由JwtService在调用线程完成,
+ * 只有Redis读写改为ReactiveRedisTemplate, 不占用线程等待
+ */
+@Slf4j
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveJwtService {
+
+    private final JwtService jwtService;
+    private final ReactiveTokenStore tokenStore;
+    private final ReactiveRevocationStore revocationStore;
+
+    /**
+     * @see JwtService#validateAccessToken
+     * @return 不合法时为空
+     */
+    public Mono<TokenClaims> validateAccessToken(String token) {
+        long start = System.nanoTime();
+        TokenClaims claims = jwtService.verify(token, TokenClaims.ACCESS, start);
+        if (claims == null) {
+            return Mono.empty();
+        }
+        if (jwtService.isStateless()) {
+            return Mono.just(jwtService.record(TokenClaims.ACCESS, JwtService.Outcome.VALID, start, claims));
+        }
+        return tokenStore.getAccessTokenId(claims.getSubject(), claims.getSessionId())
+            .defaultIfEmpty("")
+            .mapNotNull(currentTokenId -> claims.getId().equals(currentTokenId)
+                ? jwtService.record(TokenClaims.ACCESS, JwtService.Outcome.VALID, start, claims)
+                : jwtService.record(TokenClaims.ACCESS, JwtService.Outcome.SUPERSEDED, start, null));
+    }
+
+    /**
+     * @see JwtService#validateAccessTokens
+     */
+    public Mono<List<TokenClaims>> validateAccessTokens(List<String> tokens) {
+        JwtService.AccessTokenBatch batch = jwtService.new AccessTokenBatch(tokens);
+        if (batch.usernames.isEmpty()) {
+            return Mono.fromSupplier(() -> batch.complete(List.of()));
+        }
+        return tokenStore.getAccessTokenIds(batch.usernames, batch.sessionIds)
+            .map(batch::complete);
+    }
+
+    /**
+     * @see JwtService#verifyRefreshToken
+     * @return 不可用时为空
+     */
+    public Mono<TokenClaims> verifyRefreshToken(String token) {
+        return Mono.fromSupplier(() -> jwtService.verifyRefreshToken(token));
+    }
+
+    /**
+     * @see JwtService#rotateTokens
+     * @return 不可用时为空
+     */
+    public Mono<AuthResponse> rotateTokens(TokenClaims claims, Set<String> roles, Set<String> permissions) {
+        long start = System.nanoTime();
+        String username = claims.getSubject();
+        String sessionId = claims.getSessionId();
+        return revocationStore.currentVersion(username).flatMap(version -> {
+            long accessTtl = jwtService.getAccessTokenExpiration();
+            long refreshTtl = jwtService.getRefreshTokenExpiration();
+            String accessTokenId = UUID.randomUUID().toString();
+            String refreshTokenId = UUID.randomUUID().toString();
+            AuthResponse response = AuthResponse.builder()
+                .accessToken(jwtService.generateToken(jwtService.accessClaims(sessionId, roles, permissions),
+                    username, accessTokenId, version, accessTtl))
+                .refreshToken(jwtService.generateToken(JwtService.refreshClaims(sessionId),
+                    username, refreshTokenId, version, refreshTtl))
+                .build();
+
+            return tokenStore.rotateSession(username, sessionId, claims.getId(),
+                    jwtService.isStateless() ? null : accessTokenId, accessTtl, refreshTokenId, refreshTtl)
+                .flatMap(result -> switch (result) {
+                    case ROTATED -> Mono.just(jwtService.record(TokenClaims.REFRESH, JwtService.Outcome.VALID, start, response));
+                    // 会话已登出、被淘汰或过期
+                    case NOT_FOUND -> Mono.fromSupplier(() ->
+                        jwtService.<AuthResponse>record(TokenClaims.REFRESH, JwtService.Outcome.SUPERSEDED, start, null));
+                    case REUSED -> {
+                        log.warn("Refresh token reuse detected for user {}, revoking session {}", username, sessionId);
+                        yield invalidateSession(username, sessionId)
+                            .then(Mono.fromSupplier(() ->
+                                jwtService.<AuthResponse>record(TokenClaims.REFRESH, JwtService.Outcome.REUSED, start, null)));
+                    }
+                });
+        });
+    }
+
+    /**
+     * @see JwtService#invalidateTokens(String)
+     */
+    public Mono<Void> invalidateTokens(String username) {
+        return tokenStore.removeAllSessions(username)
+            .then(revocationStore.revoke(username));
+    }
+
+    /**
+     * @see JwtService#invalidateSession
+     */
+    public Mono<Void> invalidateSession(String username, String sessionId) {
+        return Mono.when(tokenStore.removeSession(username, sessionId), revocationStore.revokeSession(sessionId));
+    }
+}
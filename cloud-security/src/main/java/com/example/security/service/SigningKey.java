@@ -0,0 +1,23 @@
+package com.example.security.service;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.security.Key;
+import java.security.PublicKey;
+
+/**
+ * 一个签名密钥: 非对称算法时key为私钥并带有kid和公钥; HS256时kid和公钥为null
+ */
+@Getter
+@AllArgsConstructor
+public class SigningKey {
+
+    private final String kid;
+    private final SignatureAlgorithm algorithm;
+    private final Key key;
+    private final PublicKey publicKey;
+    // 轮换周期编号, 该周期内用此密钥签名
+    private final long slot;
+}
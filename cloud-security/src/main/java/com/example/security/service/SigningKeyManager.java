@@ -0,0 +1,352 @@
+package com.example.security.service;
+
+import cn.hutool.core.util.StrUtil;
+import com.example.security.token.SigningKeyStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.*;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 签名密钥管理. HS256: 使用jwt.secret; RS256/ES256等非对称算法: 按rotation-interval划分周期(slot),
+ * 每个周期一个密钥对, 存在SigningKeyStore中供所有实例共享. 下一周期的密钥提前publish-ahead生成并发布到JWKS,
+ * 周期结束后继续保留到该周期签发的token全部过期, 新旧密钥的校验有效期因此相互重叠.
+ * 私钥用主密钥(AES-256-GCM, 只部署在本服务的PKCS12密钥库中)加密后再写入存储, 密文绑定slot、kid和公钥;
+ * 存储可被其他进程读取(Redis)时未配置主密钥则启动失败, 未加密或解密失败的密钥不加载
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SigningKeyManager {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String KEY_CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    @Value("${jwt.secret:}")
+    private String secret;
+
+    // HS256, RS256/RS384/RS512, ES256/ES384/ES512; 变更后从下一个周期开始生效
+    @Value("${jwt.signing.algorithm:HS256}")
+    private String algorithm;
+
+    @Value("${jwt.signing.rotation-interval:7d}")
+    private Duration rotationInterval;
+
+    @Value("${jwt.signing.publish-ahead:1h}")
+    private Duration publishAhead;
+
+    @Value("${jwt.refresh-token-expiration}")
+    private long refreshTokenExpiration;
+
+    // 主密钥所在的PKCS12密钥库(file:或classpath:), 条目为AES secret key
+    @Value("${jwt.signing.key-encryption.keystore:}")
+    private String kekKeystore;
+
+    @Value("${jwt.signing.key-encryption.password:}")
+    private String kekPassword;
+
+    @Value("${jwt.signing.key-encryption.alias:signing-kek}")
+    private String kekAlias;
+
+    private final SigningKeyStore keyStore;
+
+    private SignatureAlgorithm signatureAlgorithm;
+    // 非对称模式下仅用于校验切换前签发的无kid token
+    private Key hmacKey;
+    // 加密私钥的主密钥, 未配置时为null
+    private SecretKey kek;
+    // kid -> 密钥, 包含已发布但尚未启用的下一周期密钥
+    private volatile Map<String, SigningKey> keys = Map.of();
+    private volatile SigningKey active;
+
+    @PostConstruct
+    public void init() {
+        this.signatureAlgorithm = SignatureAlgorithm.forName(algorithm);
+        if (StrUtil.isNotBlank(secret)) {
+            this.hmacKey = Keys.hmacShaKeyFor(secret.getBytes());
+        }
+        if (signatureAlgorithm.isHmac()) {
+            if (hmacKey == null) {
+                throw new IllegalStateException("jwt.secret is required for " + algorithm);
+            }
+            this.active = new SigningKey(null, signatureAlgorithm, hmacKey, null, 0);
+            return;
+        }
+        if (!signatureAlgorithm.isRsa() && !signatureAlgorithm.isEllipticCurve()) {
+            throw new IllegalStateException("Unsupported jwt.signing.algorithm: " + algorithm);
+        }
+        this.kek = loadKeyEncryptionKey();
+        if (kek == null && keyStore.shared()) {
+            throw new IllegalStateException("jwt.signing.key-encryption.keystore is required for " + algorithm
+                + ": private keys must not be stored unencrypted in a shared key store");
+        }
+        rotate();
+        if (active == null) {
+            throw new IllegalStateException("No signing key available");
+        }
+    }
+
+    /**
+     * 当前用于签名的密钥
+     */
+    public SigningKey active() {
+        return active;
+    }
+
+    /**
+     * 按token头中的kid取校验密钥
+     * @throws SignatureException kid未知
+     */
+    public Key verificationKey(String kid) {
+        if (kid == null) {
+            if (hmacKey != null) {
+                return hmacKey;
+            }
+            throw new SignatureException("Missing key id");
+        }
+        SigningKey key = keys.get(kid);
+        if (key == null) {
+            throw new SignatureException("Unknown signing key: " + kid);
+        }
+        return key.getPublicKey();
+    }
+
+    /**
+     * 当前所有可用于校验的公钥(JWK格式), HS256时为空
+     */
+    public List<Map<String, Object>> jwks() {
+        return keys.values().stream()
+            .sorted(Comparator.comparingLong(SigningKey::getSlot).reversed())
+            .map(SigningKeyManager::toJwk)
+            .toList();
+    }
+
+    @Scheduled(initialDelayString = "${jwt.signing.check-interval:60000}",
+        fixedDelayString = "${jwt.signing.check-interval:60000}")
+    public void rotate() {
+        if (signatureAlgorithm.isHmac()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            long interval = rotationInterval.toMillis();
+            long slot = now / interval;
+            Map<Long, String> stored = keyStore.loadAll();
+            boolean created = ensure(stored, slot);
+            if (now >= (slot + 1) * interval - publishAhead.toMillis()) {
+                created |= ensure(stored, slot + 1);
+            }
+            reload(created ? keyStore.loadAll() : stored, now);
+        } catch (Exception e) {
+            log.warn("Failed to rotate signing keys: {}", e.getMessage());
+        }
+    }
+
+    private boolean ensure(Map<Long, String> stored, long slot) {
+        if (stored.containsKey(slot)) {
+            return false;
+        }
+        // 多个实例同时生成时只有一个写入成功, 其余重新加载后使用它
+        if (keyStore.putIfAbsent(slot, generate(slot))) {
+            log.info("Generated {} signing key for slot {}", algorithm, slot);
+        }
+        return true;
+    }
+
+    private void reload(Map<Long, String> stored, long now) {
+        long interval = rotationInterval.toMillis();
+        long currentSlot = now / interval;
+        long lifetime = TimeUnit.SECONDS.toMillis(refreshTokenExpiration);
+
+        Map<String, SigningKey> loaded = new HashMap<>();
+        List<Long> retired = new ArrayList<>();
+        SigningKey latest = null;
+        for (Map.Entry<Long, String> entry : stored.entrySet()) {
+            long slot = entry.getKey();
+            // 该周期签发的token最晚在周期结束后lifetime过期
+            if ((slot + 1) * interval + lifetime < now) {
+                retired.add(slot);
+                continue;
+            }
+            SigningKey key;
+            try {
+                key = parse(slot, entry.getValue());
+            } catch (IllegalStateException e) {
+                // 未加密、被篡改或主密钥不符, 不发布到JWKS也不用于签名
+                log.error("Ignoring signing key in slot {}: {}", slot, e.getMessage());
+                continue;
+            }
+            loaded.put(key.getKid(), key);
+            if (slot <= currentSlot && (latest == null || slot > latest.getSlot())) {
+                latest = key;
+            }
+        }
+        keyStore.remove(retired);
+        this.keys = loaded;
+        if (latest != null) {
+            this.active = latest;
+        }
+    }
+
+    private String generate(long slot) {
+        KeyPair pair = Keys.keyPairFor(signatureAlgorithm);
+        Map<String, String> key = new LinkedHashMap<>();
+        key.put("kid", UUID.randomUUID().toString());
+        key.put("alg", signatureAlgorithm.getValue());
+        key.put("publicKey", Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()));
+        if (kek != null) {
+            byte[] aad = associatedData(slot, key.get("kid"), key.get("alg"), key.get("publicKey"));
+            key.put("encryptedPrivateKey", Base64.getEncoder().encodeToString(
+                crypt(Cipher.ENCRYPT_MODE, pair.getPrivate().getEncoded(), aad)));
+        } else {
+            key.put("privateKey", Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded()));
+        }
+        try {
+            return MAPPER.writeValueAsString(key);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private SigningKey parse(long slot, String value) {
+        try {
+            JsonNode node = MAPPER.readTree(value);
+            String kid = node.get("kid").asText();
+            SignatureAlgorithm alg = SignatureAlgorithm.forName(node.get("alg").asText());
+            String encodedPublicKey = node.get("publicKey").asText();
+            KeyFactory factory = KeyFactory.getInstance(alg.isRsa() ? "RSA" : "EC");
+            PublicKey publicKey = factory.generatePublic(
+                new X509EncodedKeySpec(Base64.getDecoder().decode(encodedPublicKey)));
+            byte[] encodedPrivateKey;
+            if (node.hasNonNull("encryptedPrivateKey")) {
+                if (kek == null) {
+                    throw new IllegalStateException("jwt.signing.key-encryption.keystore is not configured");
+                }
+                encodedPrivateKey = crypt(Cipher.DECRYPT_MODE,
+                    Base64.getDecoder().decode(node.get("encryptedPrivateKey").asText()),
+                    associatedData(slot, kid, node.get("alg").asText(), encodedPublicKey));
+            } else if (kek == null && !keyStore.shared()) {
+                encodedPrivateKey = Base64.getDecoder().decode(node.get("privateKey").asText());
+            } else {
+                // 能写共享存储的一方可注入自己的密钥对, 只接受主密钥加密的条目
+                throw new IllegalStateException("Private key is not encrypted");
+            }
+            PrivateKey privateKey = factory.generatePrivate(new PKCS8EncodedKeySpec(encodedPrivateKey));
+            return new SigningKey(kid, alg, privateKey, publicKey, slot);
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Malformed signing key in slot " + slot, e);
+        }
+    }
+
+    /**
+     * 密文为 IV(12字节) + 密文 + tag; 解密时tag校验失败(篡改、换了slot或公钥、主密钥不符)抛出IllegalStateException
+     */
+    private byte[] crypt(int mode, byte[] input, byte[] aad) {
+        try {
+            Cipher cipher = Cipher.getInstance(KEY_CIPHER);
+            if (mode == Cipher.ENCRYPT_MODE) {
+                byte[] iv = new byte[IV_BYTES];
+                RANDOM.nextBytes(iv);
+                cipher.init(mode, kek, new GCMParameterSpec(TAG_BITS, iv));
+                cipher.updateAAD(aad);
+                byte[] encrypted = cipher.doFinal(input);
+                byte[] output = Arrays.copyOf(iv, IV_BYTES + encrypted.length);
+                System.arraycopy(encrypted, 0, output, IV_BYTES, encrypted.length);
+                return output;
+            }
+            cipher.init(mode, kek, new GCMParameterSpec(TAG_BITS, input, 0, IV_BYTES));
+            cipher.updateAAD(aad);
+            return cipher.doFinal(input, IV_BYTES, input.length - IV_BYTES);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalStateException("Unable to " + (mode == Cipher.ENCRYPT_MODE ? "encrypt" : "decrypt")
+                + " private key: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] associatedData(long slot, String kid, String alg, String publicKey) {
+        return (slot + "\n" + kid + "\n" + alg + "\n" + publicKey).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private SecretKey loadKeyEncryptionKey() {
+        if (StrUtil.isBlank(kekKeystore)) {
+            return null;
+        }
+        char[] password = kekPassword.toCharArray();
+        try (InputStream in = new DefaultResourceLoader().getResource(kekKeystore).getInputStream()) {
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            store.load(in, password);
+            if (!(store.getKey(kekAlias, password) instanceof SecretKey secretKey)
+                || !"AES".equalsIgnoreCase(secretKey.getAlgorithm())) {
+                throw new IllegalStateException("No AES key '" + kekAlias + "' in " + kekKeystore);
+            }
+            return secretKey;
+        } catch (IOException | GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to load signing key encryption key from " + kekKeystore, e);
+        }
+    }
+
+    private static Map<String, Object> toJwk(SigningKey key) {
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        jwk.put("kid", key.getKid());
+        jwk.put("use", "sig");
+        jwk.put("alg", key.getAlgorithm().getValue());
+        if (key.getPublicKey() instanceof RSAPublicKey rsa) {
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(rsa.getModulus(), 0));
+            jwk.put("e", base64Url(rsa.getPublicExponent(), 0));
+        } else if (key.getPublicKey() instanceof ECPublicKey ec) {
+            int size = (ec.getParams().getCurve().getField().getFieldSize() + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-" + ec.getParams().getCurve().getField().getFieldSize());
+            jwk.put("x", base64Url(ec.getW().getAffineX(), size));
+            jwk.put("y", base64Url(ec.getW().getAffineY(), size));
+        }
+        return jwk;
+    }
+
+    /**
+     * 无符号大端编码, size>0时左侧补零到固定长度
+     */
+    private static String base64Url(BigInteger value, int size) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (size > bytes.length) {
+            byte[] padded = new byte[size];
+            System.arraycopy(bytes, 0, padded, size - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.security.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.server.PathContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 管理接口(吊销、授权失效、用户列表/导入/导出)的访问校验: 不信任网关路由配置,
+ * 本服务自行校验网关签名的X-User-*请求头(算法、密钥与cloud-api一致), 并要求管理员角色
+ */
+@Slf4j
+@Component
+public class TrustedHeaderVerifier {
+
+    // 与网关TrustedHeaderSigner保持一致
+    public static final String USER_ID = "X-User-Id";
+    public static final String USER_ROLES = "X-User-Roles";
+    public static final String USER_PERMISSIONS = "X-User-Permissions";
+    public static final String USER_EXPIRES = "X-User-Expires";
+    public static final String USER_SIGNATURE = "X-User-Signature";
+    public static final String USER_AUTHORITY_VERSION = "X-User-Authority-Version";
+    public static final List<String> HEADERS = List.of(USER_ID, USER_ROLES, USER_PERMISSIONS, USER_EXPIRES,
+        USER_SIGNATURE, USER_AUTHORITY_VERSION);
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Mac prototype;
+    private final List<PathPattern> adminPaths;
+    private final String adminRole;
+    private final AuthorizationService authorizationService;
+
+    public TrustedHeaderVerifier(@Value("${security.trusted-header.secret:}") String secret,
+                                 @Value("${security.admin.paths:/auth/revoke,/auth/authorization/**,/auth/users/**}") List<String> adminPaths,
+                                 @Value("${security.admin.role:ADMIN}") String adminRole,
+                                 AuthorizationService authorizationService) {
+        if (!StringUtils.hasText(secret)) {
+            throw new IllegalStateException("security.trusted-header.secret must be set");
+        }
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        List<PathPattern> patterns = new ArrayList<>();
+        for (String path : adminPaths) {
+            patterns.add(PathPatternParser.defaultInstance.parse(path.trim()));
+        }
+        this.adminPaths = List.copyOf(patterns);
+        this.adminRole = adminRole;
+        this.authorizationService = authorizationService;
+    }
+
+    /**
+     * path为解码、去掉;参数后的应用内路径, 与处理器映射的匹配规则一致
+     */
+    public boolean requiresAdmin(PathContainer path) {
+        for (PathPattern pattern : adminPaths) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 签名有效、未过期且角色包含管理员角色时返回用户名, 否则返回null
+     */
+    public String verifyAdmin(Function<String, String> headers) {
+        String username = headers.apply(USER_ID);
+        String expires = headers.apply(USER_EXPIRES);
+        String signature = headers.apply(USER_SIGNATURE);
+        if (username == null || expires == null || signature == null) {
+            return null;
+        }
+        String roles = nullToEmpty(headers.apply(USER_ROLES));
+        String permissions = nullToEmpty(headers.apply(USER_PERMISSIONS));
+        String authorityVersion = headers.apply(USER_AUTHORITY_VERSION);
+        try {
+            // 签名随token过期
+            if (Long.parseLong(expires) < System.currentTimeMillis()) {
+                return null;
+            }
+            String payload = username + "\n" + roles + "\n" + permissions + "\n" + expires;
+            if (authorityVersion != null) {
+                payload += "\n" + authorityVersion;
+            }
+            byte[] expected = ((Mac) prototype.clone()).doFinal(payload.getBytes(StandardCharsets.UTF_8));
+            if (!MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(signature))) {
+                log.warn("Rejected untrusted user headers for: {}", username);
+                return null;
+            }
+            return roleNames(roles, authorityVersion).contains(adminRole) ? username : null;
+        } catch (IllegalArgumentException | CloneNotSupportedException e) {
+            return null;
+        }
+    }
+
+    private Set<String> roleNames(String roles, String authorityVersion) {
+        Set<String> names = new HashSet<>();
+        for (String role : StringUtils.commaDelimitedListToStringArray(roles)) {
+            if (!role.isBlank()) {
+                names.add(role.trim());
+            }
+        }
+        if (authorityVersion == null) {
+            return names;
+        }
+        // 紧凑格式为角色id列表, id不复用, 直接按本实例当前字典解码
+        return authorizationService.dictionary().decodeRoles(names.stream().map(Long::parseLong).toList());
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
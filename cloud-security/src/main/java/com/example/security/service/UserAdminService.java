@@ -0,0 +1,76 @@
+package com.example.security.service;
+
+import cn.hutool.core.util.StrUtil;
+import com.example.security.dto.AuthorityDictionary;
+import com.example.security.dto.UserPage;
+import com.example.security.dto.UserSummary;
+import com.example.security.mapper.UserMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 管理端用户列表: 按id游标分页(WHERE id > cursor ORDER BY id LIMIT n), 翻页代价与页码无关;
+ * 导出逐行流式读取, 内存占用与用户数无关
+ */
+@Service
+@RequiredArgsConstructor
+public class UserAdminService {
+
+    @Value("${user.admin.max-page-size:500}")
+    private int maxPageSize;
+
+    private final UserMapper userMapper;
+    private final AuthorizationService authorizationService;
+
+    /**
+     * @param cursor 上一页的nextCursor, 为null时从头开始
+     * @param role   角色名, 不存在时抛出IllegalArgumentException
+     */
+    public UserPage list(Long cursor, int limit, Boolean enabled, String role) {
+        int size = Math.max(1, Math.min(limit, maxPageSize));
+        AuthorityDictionary dictionary = authorizationService.dictionary();
+        // 多取一行判断是否还有下一页
+        List<UserSummary> items = userMapper.selectSummaries(cursor, enabled, roleId(dictionary, role), size + 1);
+        Long nextCursor = null;
+        if (items.size() > size) {
+            items = items.subList(0, size);
+            nextCursor = items.get(size - 1).getId();
+        }
+        items.forEach(item -> resolveRoles(dictionary, item));
+        return new UserPage(items, nextCursor);
+    }
+
+    /**
+     * 按id顺序逐行交给sink; 导出期间占用一个数据库连接, sink抛出异常时中止
+     */
+    public void export(Long cursor, Boolean enabled, String role, Consumer<UserSummary> sink) {
+        AuthorityDictionary dictionary = authorizationService.dictionary();
+        userMapper.scanSummaries(cursor, enabled, roleId(dictionary, role), context -> {
+            UserSummary item = context.getResultObject();
+            resolveRoles(dictionary, item);
+            sink.accept(item);
+        });
+    }
+
+    private static Long roleId(AuthorityDictionary dictionary, String role) {
+        if (StrUtil.isEmpty(role)) {
+            return null;
+        }
+        Long id = dictionary.roleId(role);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown role: " + role);
+        }
+        return id;
+    }
+
+    private static void resolveRoles(AuthorityDictionary dictionary, UserSummary item) {
+        List<Long> ids = StrUtil.split(StrUtil.nullToEmpty(item.getRoleIds()), ',', true, true)
+            .stream().map(Long::valueOf).toList();
+        item.setRoles(ids.isEmpty() ? Set.of() : dictionary.decodeRoles(ids));
+    }
+}
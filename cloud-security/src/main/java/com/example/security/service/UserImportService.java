@@ -0,0 +1,357 @@
+package com.example.security.service;
+
+import cn.hutool.core.text.csv.CsvParser;
+import cn.hutool.core.text.csv.CsvReadConfig;
+import cn.hutool.core.text.csv.CsvRow;
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.extension.toolkit.Db;
+import com.example.security.dto.ImportResult;
+import com.example.security.dto.ImportRow;
+import com.example.security.entity.User;
+import com.example.security.entity.UserRole;
+import com.example.security.mapper.UserMapper;
+import com.example.security.mapper.UserRoleMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 批量导入用户: 按batch-size分批读取, 每批内并行哈希密码、一个事务内批量写入users和user_roles,
+ * 逐行结果写回调用方. 同时只持有一批数据, 内存占用与文件大小无关
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int MAX_USERNAME_LENGTH = 50;
+    private static final int MAX_EMAIL_LENGTH = 100;
+
+    @Value("${user.import.batch-size:500}")
+    private int batchSize;
+
+    // 同时占用哈希线程池的任务数, 0表示全部线程; 排在后面的登录请求最多等待一轮哈希
+    @Value("${user.import.hash-parallelism:0}")
+    private int hashParallelism;
+
+    private final UserMapper userMapper;
+    private final UserRoleMapper userRoleMapper;
+    private final UserLookupService userLookupService;
+    private final UserStatsService userStatsService;
+    private final AuthorizationService authorizationService;
+    private final PasswordHasher passwordHasher;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 打开输入并读取CSV表头, 表头缺少username或password列时抛出IllegalArgumentException
+     */
+    public Iterator<ImportRow> open(Reader reader, Format format) {
+        return format == Format.CSV ? new CsvRows(reader) : new NdjsonRows(reader);
+    }
+
+    /**
+     * 逐批导入, 每批处理完后把该批结果按行号顺序交给sink
+     * @return 各状态的行数
+     */
+    public Map<String, Long> importRows(Iterator<ImportRow> rows, Consumer<List<ImportResult>> sink) {
+        Map<String, Long> summary = new TreeMap<>();
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            batch.add(rows.next());
+            if (batch.size() == batchSize || !rows.hasNext()) {
+                List<ImportResult> results = importBatch(batch);
+                for (ImportResult result : results) {
+                    summary.merge(result.getStatus(), 1L, Long::sum);
+                    count(result.getStatus());
+                }
+                sink.accept(results);
+                batch.clear();
+            }
+        }
+        log.info("User import finished: {}", summary);
+        return summary;
+    }
+
+    private List<ImportResult> importBatch(List<ImportRow> batch) {
+        ImportResult[] results = new ImportResult[batch.size()];
+        // 校验并去掉本批内重复的用户名
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        Map<Integer, List<Long>> roleIds = new HashMap<>();
+        // 与users.username的排序规则一致, 不区分大小写
+        Set<String> seen = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (int i = 0; i < batch.size(); i++) {
+            ImportRow row = batch.get(i);
+            String error = validate(row);
+            List<Long> ids = error == null ? resolveRoles(row.getRoles()) : null;
+            if (error == null && ids == null) {
+                error = "Unknown role";
+            }
+            if (error != null) {
+                results[i] = result(row, ImportResult.INVALID, error);
+            } else if (!seen.add(row.getUsername())) {
+                results[i] = result(row, ImportResult.DUPLICATE, null);
+            } else {
+                candidates.put(row.getUsername(), i);
+                roleIds.put(i, ids);
+            }
+        }
+
+        // 已存在的用户名: 布隆过滤器判定可能存在的再用一次IN查询确认
+        List<String> maybeExisting = candidates.keySet().stream().filter(userLookupService::mightExist).toList();
+        if (!maybeExisting.isEmpty()) {
+            Set<String> existing = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+            existing.addAll(userMapper.selectExistingUsernames(maybeExisting));
+            candidates.entrySet().removeIf(candidate -> {
+                if (!existing.contains(candidate.getKey())) {
+                    return false;
+                }
+                results[candidate.getValue()] = result(batch.get(candidate.getValue()), ImportResult.EXISTS, null);
+                return true;
+            });
+        }
+
+        if (!candidates.isEmpty()) {
+            List<Integer> indexes = new ArrayList<>(candidates.values());
+            List<String> hashed = passwordHasher.hashAll(
+                indexes.stream().map(i -> batch.get(i).getPassword()).toList(), hashParallelism);
+            List<User> users = new ArrayList<>(indexes.size());
+            for (int k = 0; k < indexes.size(); k++) {
+                ImportRow row = batch.get(indexes.get(k));
+                User user = new User();
+                user.setUsername(row.getUsername());
+                user.setPassword(hashed.get(k));
+                user.setEmail(StrUtil.emptyToNull(row.getEmail()));
+                user.setEnabled(true);
+                users.add(user);
+            }
+            insert(batch, indexes, users, roleIds, results);
+        }
+        return Arrays.asList(results);
+    }
+
+    private void insert(List<ImportRow> batch, List<Integer> indexes, List<User> users,
+                        Map<Integer, List<Long>> roleIds, ImportResult[] results) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // 批量执行器 + rewriteBatchedStatements, 插入后回填自增id
+                Db.saveBatch(users, batchSize);
+                List<UserRole> userRoles = new ArrayList<>();
+                for (int k = 0; k < users.size(); k++) {
+                    for (Long roleId : roleIds.get(indexes.get(k))) {
+                        userRoles.add(userRole(users.get(k).getId(), roleId));
+                    }
+                }
+                Db.saveBatch(userRoles, batchSize);
+            });
+            for (int i : indexes) {
+                results[i] = result(batch.get(i), ImportResult.CREATED, null);
+            }
+            userLookupService.registered(users.stream().map(User::getUsername).toList());
+            userStatsService.usersCreated(users.size());
+        } catch (DuplicateKeyException e) {
+            // 查重之后有并发注册的同名用户, 整批回滚后逐行重试
+            log.warn("Batch insert hit a duplicate username, retrying {} rows one by one", users.size());
+            List<String> created = new ArrayList<>();
+            for (int k = 0; k < users.size(); k++) {
+                int i = indexes.get(k);
+                User user = users.get(k);
+                user.setId(null);
+                results[i] = insertOne(batch.get(i), user, roleIds.get(i));
+                if (ImportResult.CREATED.equals(results[i].getStatus())) {
+                    created.add(user.getUsername());
+                }
+            }
+            userLookupService.registered(created);
+            userStatsService.usersCreated(created.size());
+        } catch (RuntimeException e) {
+            log.error("Batch insert failed", e);
+            for (int i : indexes) {
+                results[i] = result(batch.get(i), ImportResult.FAILED, "Database error");
+            }
+        }
+    }
+
+    private ImportResult insertOne(ImportRow row, User user, List<Long> roleIds) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                userMapper.insert(user);
+                roleIds.forEach(roleId -> userRoleMapper.insert(userRole(user.getId(), roleId)));
+            });
+            return result(row, ImportResult.CREATED, null);
+        } catch (DuplicateKeyException e) {
+            return result(row, ImportResult.EXISTS, null);
+        } catch (RuntimeException e) {
+            log.error("Failed to import user: {}", row.getUsername(), e);
+            return result(row, ImportResult.FAILED, "Database error");
+        }
+    }
+
+    private String validate(ImportRow row) {
+        if (row.getError() != null) {
+            return row.getError();
+        }
+        if (StrUtil.isBlank(row.getUsername())) {
+            return "Username is required";
+        }
+        if (row.getUsername().length() > MAX_USERNAME_LENGTH || !row.getUsername().equals(row.getUsername().strip())) {
+            return "Invalid username";
+        }
+        if (StrUtil.isEmpty(row.getPassword())) {
+            return "Password is required";
+        }
+        if (row.getEmail() != null && row.getEmail().length() > MAX_EMAIL_LENGTH) {
+            return "Invalid email";
+        }
+        return null;
+    }
+
+    /**
+     * @return 任一角色不存在时返回null; 未指定角色时为默认角色
+     */
+    private List<Long> resolveRoles(List<String> roles) {
+        if (roles == null || roles.isEmpty()) {
+            return List.of(authorizationService.defaultRoleId());
+        }
+        List<Long> ids = new ArrayList<>(roles.size());
+        for (String role : new LinkedHashSet<>(roles)) {
+            Long id = authorizationService.dictionary().roleId(role);
+            if (id == null) {
+                return null;
+            }
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    private static UserRole userRole(Long userId, Long roleId) {
+        UserRole userRole = new UserRole();
+        userRole.setUserId(userId);
+        userRole.setRoleId(roleId);
+        return userRole;
+    }
+
+    private static ImportResult result(ImportRow row, String status, String error) {
+        return new ImportResult(row.getLine(), row.getUsername(), status, error);
+    }
+
+    private void count(String status) {
+        counters.computeIfAbsent(status, s -> Counter.builder("user.import.rows").tag("status", s)
+            .register(meterRegistry)).increment();
+    }
+
+    /**
+     * CSV: 首行为表头, 列名username, password, email, roles(以;分隔), 列顺序不限
+     */
+    private static final class CsvRows implements Iterator<ImportRow> {
+
+        private final CsvParser parser;
+        private CsvRow next;
+
+        CsvRows(Reader reader) {
+            this.parser = new CsvParser(reader, CsvReadConfig.defaultConfig()
+                .setContainsHeader(true).setSkipEmptyRows(true).setTrimField(true));
+            // 读取表头和第一行
+            this.next = parser.nextRow();
+            if (next != null) {
+                List<String> header = parser.getHeader();
+                if (!header.contains("username") || !header.contains("password")) {
+                    throw new IllegalArgumentException("CSV header must contain username and password columns");
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ImportRow next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            CsvRow csv = next;
+            next = parser.nextRow();
+            ImportRow row = new ImportRow();
+            // 原始行号从0开始
+            row.setLine(csv.getOriginalLineNumber() + 1);
+            row.setUsername(csv.getByName("username"));
+            row.setPassword(csv.getByName("password"));
+            row.setEmail(csv.getByName("email"));
+            row.setRoles(StrUtil.splitTrim(csv.getByName("roles"), ';'));
+            return row;
+        }
+    }
+
+    /**
+     * NDJSON: 每行一个JSON对象, 字段同CSV, roles为数组; 空行跳过
+     */
+    private final class NdjsonRows implements Iterator<ImportRow> {
+
+        private final BufferedReader reader;
+        private long lineNumber;
+        private String next;
+
+        NdjsonRows(Reader reader) {
+            this.reader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ImportRow next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            String json = next;
+            long line = lineNumber;
+            advance();
+            ImportRow row;
+            try {
+                row = objectMapper.readValue(json, ImportRow.class);
+                row.setError(null);
+            } catch (JsonProcessingException e) {
+                row = new ImportRow();
+                row.setError("Malformed JSON");
+            }
+            row.setLine(line);
+            return row;
+        }
+
+        private void advance() {
+            try {
+                do {
+                    next = reader.readLine();
+                    lineNumber++;
+                } while (next != null && next.isBlank());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.security.service;
+
+import com.example.security.dto.UserEntry;
+import com.example.security.entity.User;
+import com.example.security.mapper.UserMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按用户名查找用户: 用户名 -> (id, 密码哈希, enabled) 按TTL缓存;
+ * 布隆过滤器判定不存在的用户名直接返回, 不访问数据库. 新注册的用户名通过Redis pub/sub通知所有实例,
+ * 同时记入Redis有序集合users:recent; pub/sub消息可能丢失, 过滤器未命中时再查该集合, 查不到才判定不存在.
+ * 定时全量重建清理已删除的用户名并补齐过滤器
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserLookupService {
+
+    static final String REGISTERED_MESSAGE_PREFIX = "registered:";
+    // 最近注册的用户名, score为注册时间(ms), 保留两个重建周期, 之后所有实例的过滤器都已重建过
+    static final String RECENT_KEY = "users:recent";
+
+    @Value("${user.lookup.ttl:600}")
+    private long ttl;
+
+    @Value("${user.lookup.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${user.lookup.bloom.enabled:true}")
+    private boolean bloomEnabled;
+
+    @Value("${user.lookup.bloom.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${user.lookup.bloom.fpp:0.01}")
+    private double fpp;
+
+    @Value("${user.lookup.bloom.rebuild-interval:3600000}")
+    private long rebuildInterval;
+
+    private final UserMapper userMapper;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private Cache<String, UserEntry> users;
+    // 首次加载完成前为null, 此时所有查找都访问数据库
+    private volatile BloomFilter bloomFilter;
+    // 重建期间新注册的用户名, 重建完成后补入新过滤器
+    private Queue<String> pendingRegistrations;
+    private volatile long lastRebuilt;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        this.users = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl, TimeUnit.SECONDS)
+            .build();
+        if (!bloomEnabled) {
+            return;
+        }
+        // 距上次成功重建的秒数, 持续增长说明定时重建一直失败
+        Gauge.builder("user.lookup.bloom.age", this,
+                service -> (System.currentTimeMillis() - service.lastRebuilt) / 1000.0)
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        // 启动时加载失败直接中止启动, 不在没有过滤器的状态下提供服务
+        rebuild();
+    }
+
+    /**
+     * @return 用户不存在时返回null
+     */
+    public UserEntry find(String username) {
+        BloomFilter filter = bloomFilter;
+        if (filter != null && !filter.mightContain(username) && !recentlyRegistered(username)) {
+            count("filtered");
+            return null;
+        }
+        UserEntry cached = users.getIfPresent(username);
+        if (cached != null) {
+            count("cached");
+            return cached;
+        }
+        User user = userMapper.selectByUsername(username);
+        if (user == null) {
+            // 布隆过滤器误判或过滤器尚未加载
+            count("not_found");
+            return null;
+        }
+        count("loaded");
+        UserEntry entry = new UserEntry(user.getId(), user.getUsername(), user.getPassword(),
+            Boolean.TRUE.equals(user.getEnabled()));
+        users.put(username, entry);
+        return entry;
+    }
+
+    /**
+     * 过滤器未命中时确认是否为错过通知的新注册用户, 是则补入过滤器; Redis不可用时返回true, 回源数据库
+     */
+    private boolean recentlyRegistered(String username) {
+        try {
+            if (redisTemplate.opsForZSet().score(RECENT_KEY, username) == null) {
+                return false;
+            }
+        } catch (RuntimeException e) {
+            log.debug("Unable to check recent registrations: {}", e.getMessage());
+            count("unverified");
+            return true;
+        }
+        count("recent");
+        addToFilter(username);
+        return true;
+    }
+
+    /**
+     * 用户名可能已存在; 过滤器尚未加载时返回true.
+     * 只用于导入前的查重, 误判为不存在时由唯一索引兜底
+     */
+    public boolean mightExist(String username) {
+        BloomFilter filter = bloomFilter;
+        return filter == null || filter.mightContain(username);
+    }
+
+    /**
+     * 注册(导入)事务提交后调用, 一条消息通知所有实例把这批用户名加入过滤器
+     */
+    public void registered(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        usernames.forEach(this::addToFilter);
+        if (bloomEnabled) {
+            double now = System.currentTimeMillis();
+            Set<ZSetOperations.TypedTuple<String>> recent = new HashSet<>();
+            usernames.forEach(username -> recent.add(new DefaultTypedTuple<>(username, now)));
+            // 先记入有序集合, 收不到通知的实例也能查到
+            redisTemplate.opsForZSet().add(RECENT_KEY, recent);
+        }
+        // 消息格式: registered:{username}\n{username}...
+        redisTemplate.convertAndSend(AuthorizationService.INVALIDATE_CHANNEL,
+            REGISTERED_MESSAGE_PREFIX + String.join("\n", usernames));
+    }
+
+    /**
+     * 密码、enabled等变更后调用
+     */
+    public void invalidate(String username) {
+        users.invalidate(username);
+    }
+
+    // 注册频率低, 与重建时的替换互斥即可保证新用户名不丢失
+    synchronized void addToFilter(String username) {
+        BloomFilter filter = bloomFilter;
+        if (filter != null) {
+            filter.put(username);
+        }
+        Queue<String> pending = pendingRegistrations;
+        if (pending != null) {
+            pending.add(username);
+        }
+    }
+
+    /**
+     * 布隆过滤器不支持删除, 定时全量重建以清除已删除的用户名, 同时兜底错过的注册通知.
+     * 失败时保留旧过滤器, 通过user.lookup.bloom.rebuild{outcome=failure}和user.lookup.bloom.age告警
+     */
+    @Scheduled(initialDelayString = "${user.lookup.bloom.rebuild-interval:3600000}",
+        fixedDelayString = "${user.lookup.bloom.rebuild-interval:3600000}")
+    public void rebuildFilter() {
+        if (!bloomEnabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild username filter", e);
+        }
+    }
+
+    private void rebuild() {
+        Queue<String> pending = new ConcurrentLinkedQueue<>();
+        synchronized (this) {
+            this.pendingRegistrations = pending;
+        }
+        try {
+            long start = System.nanoTime();
+            BloomFilter filter = new BloomFilter(expectedInsertions, fpp);
+            AtomicLong count = new AtomicLong();
+            userMapper.scanUsernames(context -> {
+                filter.put(context.getResultObject());
+                count.incrementAndGet();
+            });
+            if (count.get() > expectedInsertions) {
+                log.warn("{} users exceed user.lookup.bloom.expected-insertions {}, false positive rate will rise",
+                    count.get(), expectedInsertions);
+            }
+            synchronized (this) {
+                pending.forEach(filter::put);
+                this.bloomFilter = filter;
+                this.pendingRegistrations = null;
+            }
+            lastRebuilt = System.currentTimeMillis();
+            rebuilt("success");
+            log.info("Rebuilt username filter with {} users in {} ms", count.get(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                this.pendingRegistrations = null;
+            }
+            rebuilt("failure");
+            throw e;
+        }
+        trimRecentRegistrations();
+    }
+
+    private void trimRecentRegistrations() {
+        try {
+            redisTemplate.opsForZSet().removeRangeByScore(RECENT_KEY, 0, System.currentTimeMillis() - 2 * rebuildInterval);
+        } catch (RuntimeException e) {
+            log.warn("Failed to trim recent registrations: {}", e.getMessage());
+        }
+    }
+
+    private void rebuilt(String outcome) {
+        Counter.builder("user.lookup.bloom.rebuild")
+            .tag("outcome", outcome)
+            .register(meterRegistry).increment();
+    }
+
+    private void count(String outcome) {
+        counters.computeIfAbsent(outcome, key -> Counter.builder("user.lookup")
+            .tag("outcome", key)
+            .register(meterRegistry)).increment();
+    }
+}
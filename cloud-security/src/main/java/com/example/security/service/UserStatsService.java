@@ -0,0 +1,95 @@
+package com.example.security.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.security.entity.User;
+import com.example.security.mapper.UserMapper;
+import com.example.security.token.TokenStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 管理端统计: 用户总数、启用用户数是注册/导入时递增的Redis计数器, 读取时不做全表COUNT;
+ * 计数器不存在或过期时按表统计一次初始化. 禁用、删除用户没有经过本服务, 计数器只能递增,
+ * 因此按user.stats.counter-ttl过期重新统计, 偏差最多持续一个周期. 在线会话数来自TokenStore
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserStatsService {
+
+    static final String TOTAL_USERS_KEY = "stats:users:total";
+    static final String ENABLED_USERS_KEY = "stats:users:enabled";
+
+    // 只递增已初始化的计数器, 未初始化时由下次读取按表统计, 避免从0开始计数
+    // KEYS: 计数器; ARGV: 增量
+    private static final RedisScript<Long> INCREMENT_IF_EXISTS_SCRIPT = RedisScript.of("""
+        for _, key in ipairs(KEYS) do
+            if redis.call('EXISTS', key) == 1 then
+                redis.call('INCRBY', key, ARGV[1])
+            end
+        end
+        return 0
+        """, Long.class);
+
+    @Value("${user.stats.counter-ttl:300}")
+    private long counterTtl;
+
+    private final UserMapper userMapper;
+    private final TokenStore tokenStore;
+    private final RedisTemplate<String, String> redisTemplate;
+
+    /**
+     * 新用户(enabled)事务提交后调用
+     */
+    public void usersCreated(int count) {
+        if (count <= 0) {
+            return;
+        }
+        try {
+            redisTemplate.execute(INCREMENT_IF_EXISTS_SCRIPT, List.of(TOTAL_USERS_KEY, ENABLED_USERS_KEY),
+                String.valueOf(count));
+        } catch (RuntimeException e) {
+            // 计数只用于展示, 不影响注册
+            log.warn("Failed to update user counters: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Long> stats() {
+        List<String> counters = redisTemplate.opsForValue().multiGet(List.of(TOTAL_USERS_KEY, ENABLED_USERS_KEY));
+        long totalUsers = counter(counters, 0, TOTAL_USERS_KEY, null);
+        long activeUsers = counter(counters, 1, ENABLED_USERS_KEY, true);
+
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("totalUsers", totalUsers);
+        stats.put("activeUsers", activeUsers);
+        stats.put("liveSessions", tokenStore.countLiveSessions());
+        return stats;
+    }
+
+    private long counter(List<String> counters, int index, String key, Boolean enabled) {
+        String value = counters != null ? counters.get(index) : null;
+        if (value != null) {
+            return Long.parseLong(value);
+        }
+        long count = userMapper.selectCount(enabled == null ? null
+            : new LambdaQueryWrapper<User>().eq(User::getEnabled, enabled));
+        // 多个实例同时初始化时以先写入的为准; INCRBY不改变过期时间
+        Boolean initialized = redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(count),
+            Duration.ofSeconds(counterTtl));
+        if (Boolean.TRUE.equals(initialized)) {
+            log.info("Initialized counter {} = {}", key, count);
+            return count;
+        }
+        String current = redisTemplate.opsForValue().get(key);
+        return current != null ? Long.parseLong(current) : count;
+    }
+}
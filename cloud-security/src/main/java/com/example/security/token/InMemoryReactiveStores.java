@@ -0,0 +1,77 @@
+package com.example.security.token;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * jwt.store=memory时的非阻塞适配, 内存实现本身不阻塞, 直接在调用线程上执行
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(name = "jwt.store", havingValue = "memory")
+@RequiredArgsConstructor
+public class InMemoryReactiveStores implements ReactiveTokenStore, ReactiveRevocationStore {
+
+    private final TokenStore tokenStore;
+    private final RevocationStore revocationStore;
+
+    @Override
+    public Mono<List<String>> saveSession(String username, String sessionId, String accessTokenId, long accessTtlSeconds,
+                                          String refreshTokenId, long refreshTtlSeconds, int maxSessions) {
+        return Mono.fromSupplier(() -> tokenStore.saveSession(username, sessionId, accessTokenId, accessTtlSeconds,
+            refreshTokenId, refreshTtlSeconds, maxSessions));
+    }
+
+    @Override
+    public Mono<RotationResult> rotateSession(String username, String sessionId, String expectedRefreshTokenId,
+                                              String accessTokenId, long accessTtlSeconds, String refreshTokenId,
+                                              long refreshTtlSeconds) {
+        return Mono.fromSupplier(() -> tokenStore.rotateSession(username, sessionId, expectedRefreshTokenId,
+            accessTokenId, accessTtlSeconds, refreshTokenId, refreshTtlSeconds));
+    }
+
+    @Override
+    public Mono<String> getAccessTokenId(String username, String sessionId) {
+        return Mono.fromSupplier(() -> tokenStore.getAccessTokenId(username, sessionId));
+    }
+
+    @Override
+    public Mono<List<String>> getAccessTokenIds(List<String> usernames, List<String> sessionIds) {
+        return Mono.fromSupplier(() -> tokenStore.getAccessTokenIds(usernames, sessionIds));
+    }
+
+    @Override
+    public Mono<String> getRefreshTokenId(String username, String sessionId) {
+        return Mono.fromSupplier(() -> tokenStore.getRefreshTokenId(username, sessionId));
+    }
+
+    @Override
+    public Mono<Void> removeSession(String username, String sessionId) {
+        return Mono.fromRunnable(() -> tokenStore.removeSession(username, sessionId));
+    }
+
+    @Override
+    public Mono<List<String>> removeAllSessions(String username) {
+        return Mono.fromSupplier(() -> tokenStore.removeAllSessions(username));
+    }
+
+    @Override
+    public Mono<Long> currentVersion(String username) {
+        return Mono.fromSupplier(() -> revocationStore.currentVersion(username));
+    }
+
+    @Override
+    public Mono<Void> revoke(String username) {
+        return Mono.fromRunnable(() -> revocationStore.revoke(username));
+    }
+
+    @Override
+    public Mono<Void> revokeSession(String sessionId) {
+        return Mono.fromRunnable(() -> revocationStore.revokeSession(sessionId));
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.security.token;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单进程吊销表, 用于测试或单实例部署
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.store", havingValue = "memory")
+public class InMemoryRevocationStore implements RevocationStore {
+
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final Set<String> revokedSessions = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public long currentVersion(String username) {
+        return versions.getOrDefault(username, 0L);
+    }
+
+    @Override
+    public void revoke(String username) {
+        versions.merge(username, 1L, Long::sum);
+    }
+
+    @Override
+    public boolean isRevoked(String username, long version) {
+        return version < currentVersion(username);
+    }
+
+    @Override
+    public void revokeSession(String sessionId) {
+        revokedSessions.add(sessionId);
+    }
+
+    @Override
+    public boolean isSessionRevoked(String sessionId) {
+        return revokedSessions.contains(sessionId);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.security.token;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单进程实现, 用于测试或单实例部署
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.store", havingValue = "memory")
+public class InMemorySigningKeyStore implements SigningKeyStore {
+
+    private final Map<Long, String> keys = new ConcurrentHashMap<>();
+
+    @Override
+    public Map<Long, String> loadAll() {
+        return new HashMap<>(keys);
+    }
+
+    @Override
+    public boolean putIfAbsent(long slot, String key) {
+        return keys.putIfAbsent(slot, key) == null;
+    }
+
+    @Override
+    public void remove(Collection<Long> slots) {
+        slots.forEach(keys::remove);
+    }
+
+    @Override
+    public boolean shared() {
+        return false;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.security.token;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单进程内存实现, 用于测试或单实例部署
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.store", havingValue = "memory")
+public class InMemoryTokenStore implements TokenStore {
+
+    private final Map<String, Entry> tokens = new ConcurrentHashMap<>();
+    // username -> (sid -> 最近一次签发时间), 按插入顺序即为淘汰顺序
+    private final Map<String, LinkedHashMap<String, Long>> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public void saveAccessToken(String username, String sessionId, String tokenId, long ttlSeconds) {
+        tokens.put(accessKey(username, sessionId), new Entry(tokenId, ttlSeconds));
+    }
+
+    @Override
+    public List<String> saveSession(String username, String sessionId, String accessTokenId, long accessTtlSeconds,
+                                    String refreshTokenId, long refreshTtlSeconds, int maxSessions) {
+        if (accessTokenId != null) {
+            saveAccessToken(username, sessionId, accessTokenId, accessTtlSeconds);
+        }
+        tokens.put(refreshKey(username, sessionId), new Entry(refreshTokenId, refreshTtlSeconds));
+
+        List<String> evicted = new ArrayList<>();
+        LinkedHashMap<String, Long> userSessions = sessions.computeIfAbsent(username, key -> new LinkedHashMap<>());
+        synchronized (userSessions) {
+            userSessions.remove(sessionId);
+            userSessions.put(sessionId, System.currentTimeMillis());
+            var iterator = userSessions.keySet().iterator();
+            while (userSessions.size() - evicted.size() > maxSessions && iterator.hasNext()) {
+                evicted.add(iterator.next());
+            }
+        }
+        evicted.forEach(evictedId -> removeSession(username, evictedId));
+        return evicted;
+    }
+
+    /**
+     * 与removeSession/removeAllSessions在同一用户的会话索引上互斥
+     */
+    @Override
+    public RotationResult rotateSession(String username, String sessionId, String expectedRefreshTokenId,
+                                        String accessTokenId, long accessTtlSeconds, String refreshTokenId, long refreshTtlSeconds) {
+        LinkedHashMap<String, Long> userSessions = sessions.get(username);
+        if (userSessions == null) {
+            return RotationResult.NOT_FOUND;
+        }
+        synchronized (userSessions) {
+            // 已被removeAllSessions整体移除
+            if (sessions.get(username) != userSessions || !userSessions.containsKey(sessionId)) {
+                return RotationResult.NOT_FOUND;
+            }
+            String current = get(refreshKey(username, sessionId));
+            if (current == null) {
+                return RotationResult.NOT_FOUND;
+            }
+            if (!current.equals(expectedRefreshTokenId)) {
+                return RotationResult.REUSED;
+            }
+            if (accessTokenId != null) {
+                saveAccessToken(username, sessionId, accessTokenId, accessTtlSeconds);
+            }
+            tokens.put(refreshKey(username, sessionId), new Entry(refreshTokenId, refreshTtlSeconds));
+            userSessions.remove(sessionId);
+            userSessions.put(sessionId, System.currentTimeMillis());
+            return RotationResult.ROTATED;
+        }
+    }
+
+    @Override
+    public String getAccessTokenId(String username, String sessionId) {
+        return get(accessKey(username, sessionId));
+    }
+
+    @Override
+    public String getRefreshTokenId(String username, String sessionId) {
+        return get(refreshKey(username, sessionId));
+    }
+
+    @Override
+    public void removeSession(String username, String sessionId) {
+        LinkedHashMap<String, Long> userSessions = sessions.get(username);
+        if (userSessions == null) {
+            removeTokens(username, sessionId);
+            return;
+        }
+        synchronized (userSessions) {
+            userSessions.remove(sessionId);
+            removeTokens(username, sessionId);
+        }
+    }
+
+    @Override
+    public List<String> removeAllSessions(String username) {
+        LinkedHashMap<String, Long> userSessions = sessions.remove(username);
+        if (userSessions == null) {
+            return List.of();
+        }
+        List<String> sessionIds;
+        synchronized (userSessions) {
+            sessionIds = new ArrayList<>(userSessions.keySet());
+        }
+        sessionIds.forEach(sessionId -> removeTokens(username, sessionId));
+        return sessionIds;
+    }
+
+    /**
+     * 遍历全部token, 仅用于测试或小规模单实例部署
+     */
+    @Override
+    public long countLiveSessions() {
+        long now = System.currentTimeMillis();
+        return tokens.entrySet().stream()
+            .filter(entry -> entry.getKey().startsWith("refresh:") && entry.getValue().expiresAt >= now)
+            .count();
+    }
+
+    private void removeTokens(String username, String sessionId) {
+        tokens.remove(accessKey(username, sessionId));
+        tokens.remove(refreshKey(username, sessionId));
+    }
+
+    private String get(String key) {
+        Entry entry = tokens.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt < System.currentTimeMillis()) {
+            tokens.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    private static String accessKey(String username, String sessionId) {
+        return "access:" + username + ":" + sessionId;
+    }
+
+    private static String refreshKey(String username, String sessionId) {
+        return "refresh:" + username + ":" + sessionId;
+    }
+
+    private static class Entry {
+        private final String value;
+        private final long expiresAt;
+
+        Entry(String value, long ttlSeconds) {
+            this.value = value;
+            this.expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.security.token;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * {@link RedisTokenStore}前的进程内近端缓存: (username, sid) -> 当前access/refresh jti, 有界, 写入后max-staleness过期.
+ * 任一实例写会话(签发、轮换、登出、淘汰)时经pub/sub通知所有实例失效.
+ * 缓存只用于确认token与会话一致, 不一致或未命中都回源Redis: 过期数据最多让已登出/已轮换的token
+ * 在max-staleness内继续通过, 不会误拒刚轮换出的新token.
+ * 订阅是否可用由同一频道的心跳判断, 超过heartbeat-timeout未收到消息时不读缓存, 直接访问Redis
+ */
+@Slf4j
+@Primary
+@Component
+@ConditionalOnExpression("'${jwt.store:redis}' == 'redis' && ${jwt.near-cache.enabled:true}")
+@RequiredArgsConstructor
+public class NearCacheTokenStore implements TokenStore {
+
+    static final String INVALIDATE_CHANNEL = "token:session:invalidate";
+    // 消息每行一条: "s:{sid}:{username}" 单个会话; "u:{username}" 用户的全部会话; "ping" 心跳
+    static final String SESSION_PREFIX = "s:";
+    static final String USER_PREFIX = "u:";
+    static final String HEARTBEAT = "ping";
+
+    @Value("${jwt.near-cache.maximum-size:100000}")
+    private long maximumSize;
+
+    @Value("${jwt.near-cache.max-staleness:5s}")
+    private Duration maxStaleness;
+
+    @Value("${jwt.near-cache.heartbeat-timeout:3s}")
+    private Duration heartbeatTimeout;
+
+    private final RedisTokenStore delegate;
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final MeterRegistry meterRegistry;
+
+    private Cache<Key, String> cache;
+    // 每次失效递增; 回源期间有失效时不写入缓存, 避免旧值覆盖失效
+    private final AtomicLong invalidations = new AtomicLong();
+    // 最近一次收到本频道消息的时间, 0表示尚未收到
+    private volatile long lastMessageNanos;
+
+    @PostConstruct
+    public void init() {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(maxStaleness)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "token.near-cache");
+        Gauge.builder("token.near-cache.available", this, store -> store.available() ? 1 : 0).register(meterRegistry);
+        listenerContainer.addMessageListener(
+            (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    /**
+     * 心跳经Redis回到所有实例(包括自己), 收不到即认为失效通知不可用
+     */
+    @Scheduled(fixedDelayString = "${jwt.near-cache.heartbeat-interval:1000}")
+    public void heartbeat() {
+        try {
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, HEARTBEAT);
+        } catch (RuntimeException e) {
+            log.debug("Failed to publish near cache heartbeat: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void saveAccessToken(String username, String sessionId, String tokenId, long ttlSeconds) {
+        delegate.saveAccessToken(username, sessionId, tokenId, ttlSeconds);
+        publish(List.of(sessionMessage(username, sessionId)));
+    }
+
+    @Override
+    public List<String> saveSession(String username, String sessionId, String accessTokenId, long accessTtlSeconds,
+                                    String refreshTokenId, long refreshTtlSeconds, int maxSessions) {
+        List<String> evicted = delegate.saveSession(username, sessionId, accessTokenId, accessTtlSeconds,
+            refreshTokenId, refreshTtlSeconds, maxSessions);
+        // 轮换沿用原sid, 其他实例可能缓存了旧jti
+        List<String> messages = new ArrayList<>(evicted.size() + 1);
+        messages.add(sessionMessage(username, sessionId));
+        evicted.forEach(evictedId -> messages.add(sessionMessage(username, evictedId)));
+        publish(messages);
+        return evicted;
+    }
+
+    @Override
+    public RotationResult rotateSession(String username, String sessionId, String expectedRefreshTokenId,
+                                        String accessTokenId, long accessTtlSeconds, String refreshTokenId, long refreshTtlSeconds) {
+        RotationResult result = delegate.rotateSession(username, sessionId, expectedRefreshTokenId,
+            accessTokenId, accessTtlSeconds, refreshTokenId, refreshTtlSeconds);
+        if (result == RotationResult.ROTATED) {
+            publish(List.of(sessionMessage(username, sessionId)));
+        }
+        return result;
+    }
+
+    @Override
+    public String getAccessTokenId(String username, String sessionId) {
+        return load(new Key(true, username, sessionId), () -> delegate.getAccessTokenId(username, sessionId));
+    }
+
+    @Override
+    public String getRefreshTokenId(String username, String sessionId) {
+        return load(new Key(false, username, sessionId), () -> delegate.getRefreshTokenId(username, sessionId));
+    }
+
+    @Override
+    public List<String> getAccessTokenIds(List<String> usernames, List<String> sessionIds) {
+        return delegate.getAccessTokenIds(usernames, sessionIds);
+    }
+
+    @Override
+    public boolean isCurrentAccessToken(String username, String sessionId, String tokenId) {
+        return isCurrent(new Key(true, username, sessionId), tokenId, () -> delegate.getAccessTokenId(username, sessionId));
+    }
+
+    @Override
+    public boolean isCurrentRefreshToken(String username, String sessionId, String tokenId) {
+        return isCurrent(new Key(false, username, sessionId), tokenId, () -> delegate.getRefreshTokenId(username, sessionId));
+    }
+
+    /**
+     * 缓存一致的直接通过, 其余用一次MGET回源
+     */
+    @Override
+    public List<Boolean> areCurrentAccessTokens(List<String> usernames, List<String> sessionIds, List<String> tokenIds) {
+        boolean available = available();
+        Boolean[] current = new Boolean[tokenIds.size()];
+        List<Integer> misses = new ArrayList<>();
+        for (int i = 0; i < tokenIds.size(); i++) {
+            if (available && tokenIds.get(i).equals(cache.getIfPresent(new Key(true, usernames.get(i), sessionIds.get(i))))) {
+                current[i] = true;
+            } else {
+                misses.add(i);
+            }
+        }
+        if (!misses.isEmpty()) {
+            long sequence = invalidations.get();
+            List<String> missUsernames = misses.stream().map(usernames::get).toList();
+            List<String> missSessionIds = misses.stream().map(sessionIds::get).toList();
+            List<String> currentTokenIds = delegate.getAccessTokenIds(missUsernames, missSessionIds);
+            for (int j = 0; j < misses.size(); j++) {
+                int i = misses.get(j);
+                String currentTokenId = j < currentTokenIds.size() ? currentTokenIds.get(j) : null;
+                current[i] = tokenIds.get(i).equals(currentTokenId);
+                if (available) {
+                    put(new Key(true, usernames.get(i), sessionIds.get(i)), currentTokenId, sequence);
+                }
+            }
+        }
+        return Arrays.asList(current);
+    }
+
+    @Override
+    public void removeSession(String username, String sessionId) {
+        delegate.removeSession(username, sessionId);
+        publish(List.of(sessionMessage(username, sessionId)));
+    }
+
+    @Override
+    public List<String> removeAllSessions(String username) {
+        List<String> sessionIds = delegate.removeAllSessions(username);
+        publish(List.of(USER_PREFIX + username));
+        return sessionIds;
+    }
+
+    @Override
+    public void removeAllSessions(Collection<String> usernames) {
+        delegate.removeAllSessions(usernames);
+        publish(usernames.stream().map(username -> USER_PREFIX + username).toList());
+    }
+
+    @Override
+    public long countLiveSessions() {
+        return delegate.countLiveSessions();
+    }
+
+    boolean available() {
+        long last = lastMessageNanos;
+        return last != 0 && System.nanoTime() - last <= heartbeatTimeout.toNanos();
+    }
+
+    private boolean isCurrent(Key key, String tokenId, Supplier<String> loader) {
+        if (available() && tokenId.equals(cache.getIfPresent(key))) {
+            return true;
+        }
+        return tokenId.equals(load(key, loader));
+    }
+
+    /**
+     * 回源Redis并写入缓存
+     */
+    private String load(Key key, Supplier<String> loader) {
+        if (!available()) {
+            return loader.get();
+        }
+        long sequence = invalidations.get();
+        String value = loader.get();
+        put(key, value, sequence);
+        return value;
+    }
+
+    private void put(Key key, String value, long sequence) {
+        if (value == null || invalidations.get() != sequence) {
+            return;
+        }
+        cache.put(key, value);
+        // 写入与失效并发时以失效为准
+        if (invalidations.get() != sequence) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * 先失效本地缓存再广播, 本实例随后也会收到这条消息
+     */
+    private void publish(List<String> messages) {
+        invalidate(messages);
+        try {
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.join("\n", messages));
+        } catch (RuntimeException e) {
+            // 其他实例的缓存最多在max-staleness后过期
+            log.warn("Failed to publish token invalidation: {}", e.getMessage());
+        }
+    }
+
+    private void onMessage(String message) {
+        if (!available()) {
+            // 订阅中断期间的失效通知可能已丢失
+            invalidations.incrementAndGet();
+            cache.invalidateAll();
+        }
+        lastMessageNanos = System.nanoTime();
+        if (!HEARTBEAT.equals(message)) {
+            invalidate(Arrays.asList(message.split("\n")));
+        }
+    }
+
+    private void invalidate(List<String> messages) {
+        invalidations.incrementAndGet();
+        List<Key> keys = new ArrayList<>();
+        Set<String> usernames = new HashSet<>();
+        for (String message : messages) {
+            if (message.startsWith(SESSION_PREFIX)) {
+                int idx = message.indexOf(':', SESSION_PREFIX.length());
+                if (idx < 0) {
+                    log.warn("Ignoring malformed token invalidation: {}", message);
+                    continue;
+                }
+                String sessionId = message.substring(SESSION_PREFIX.length(), idx);
+                String username = message.substring(idx + 1);
+                keys.add(new Key(true, username, sessionId));
+                keys.add(new Key(false, username, sessionId));
+            } else if (message.startsWith(USER_PREFIX)) {
+                usernames.add(message.substring(USER_PREFIX.length()));
+            }
+        }
+        if (!keys.isEmpty()) {
+            cache.invalidateAll(keys);
+        }
+        // 按用户失效需要遍历缓存, 一条消息中的所有用户(批量吊销)合并为一次遍历
+        if (!usernames.isEmpty()) {
+            cache.asMap().keySet().removeIf(key -> usernames.contains(key.username()));
+        }
+    }
+
+    // sid为UUID, 不含':'
+    static String sessionMessage(String username, String sessionId) {
+        return SESSION_PREFIX + sessionId + ":" + username;
+    }
+
+    private record Key(boolean access, String username, String sessionId) {
+    }
+}
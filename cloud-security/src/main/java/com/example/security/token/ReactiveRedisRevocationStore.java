@@ -0,0 +1,54 @@
+package com.example.security.token;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.example.security.token.RedisRevocationStore.*;
+
+/**
+ * 与{@link RedisRevocationStore}相同的key、脚本和广播频道; 写入成功后同步更新本实例的吊销表,
+ * 不必等pub/sub消息回来
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(name = "jwt.store", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ReactiveRedisRevocationStore implements ReactiveRevocationStore {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final RedisRevocationStore revocationStore;
+
+    @Override
+    public Mono<Long> currentVersion(String username) {
+        return redisTemplate.opsForValue().get(VERSION_KEY_PREFIX + username)
+            .map(Long::parseLong)
+            .defaultIfEmpty(0L);
+    }
+
+    @Override
+    public Mono<Void> revoke(String username) {
+        return redisTemplate.execute(REVOKE_SCRIPT,
+                List.of(VERSION_KEY_PREFIX + username, REVOKED_KEY_PREFIX + username),
+                List.of(String.valueOf(revocationStore.getRefreshTokenExpiration()), REVOKED_CHANNEL, username))
+            .next()
+            .defaultIfEmpty(0L)
+            .doOnNext(version -> revocationStore.record(username, version))
+            .then();
+    }
+
+    @Override
+    public Mono<Void> revokeSession(String sessionId) {
+        return Mono.when(
+                redisTemplate.opsForValue().set(SESSION_REVOKED_KEY_PREFIX + sessionId, "1",
+                    Duration.ofSeconds(revocationStore.getRefreshTokenExpiration())),
+                redisTemplate.convertAndSend(SESSION_REVOKED_CHANNEL, sessionId))
+            .doOnSuccess(v -> revocationStore.recordSession(sessionId));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.security.token;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static com.example.security.token.NearCacheTokenStore.INVALIDATE_CHANNEL;
+import static com.example.security.token.NearCacheTokenStore.USER_PREFIX;
+import static com.example.security.token.NearCacheTokenStore.sessionMessage;
+import static com.example.security.token.RedisTokenStore.*;
+
+/**
+ * 与{@link RedisTokenStore}相同的key布局和Lua脚本, 基于ReactiveStringRedisTemplate.
+ * 写会话后与{@link NearCacheTokenStore}一样发布失效通知, 混合部署时servlet实例的近端缓存同样会失效
+ */
+@Slf4j
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(name = "jwt.store", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ReactiveRedisTokenStore implements ReactiveTokenStore {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    @Override
+    public Mono<List<String>> saveSession(String username, String sessionId, String accessTokenId, long accessTtlSeconds,
+                                          String refreshTokenId, long refreshTtlSeconds, int maxSessions) {
+        Flux<?> evicted = redisTemplate.execute(SAVE_SESSION_SCRIPT,
+            List.of(accessKey(username, sessionId), refreshKey(username, sessionId), SESSIONS_PREFIX + username,
+                LIVE_SESSIONS_KEY),
+            List.of(accessTokenId != null ? accessTokenId : "", String.valueOf(accessTtlSeconds),
+                refreshTokenId, String.valueOf(refreshTtlSeconds),
+                sessionId, String.valueOf(System.currentTimeMillis()), String.valueOf(maxSessions),
+                accessKey(username, ""), refreshKey(username, ""), liveMember(username, "")));
+        return evicted.collectList()
+            .map(ReactiveRedisTokenStore::sessionIds)
+            .flatMap(evictedIds -> {
+                // 轮换沿用原sid, 其他实例可能缓存了旧jti
+                List<String> messages = new ArrayList<>(evictedIds.size() + 1);
+                messages.add(sessionMessage(username, sessionId));
+                evictedIds.forEach(evictedId -> messages.add(sessionMessage(username, evictedId)));
+                return publish(messages).thenReturn(evictedIds);
+            });
+    }
+
+    @Override
+    public Mono<RotationResult> rotateSession(String username, String sessionId, String expectedRefreshTokenId,
+                                              String accessTokenId, long accessTtlSeconds, String refreshTokenId,
+                                              long refreshTtlSeconds) {
+        return redisTemplate.execute(ROTATE_SESSION_SCRIPT,
+                List.of(accessKey(username, sessionId), refreshKey(username, sessionId), SESSIONS_PREFIX + username,
+                    LIVE_SESSIONS_KEY),
+                List.of(expectedRefreshTokenId, accessTokenId != null ? accessTokenId : "", String.valueOf(accessTtlSeconds),
+                    refreshTokenId, String.valueOf(refreshTtlSeconds), sessionId, String.valueOf(System.currentTimeMillis()),
+                    liveMember(username, sessionId)))
+            .next()
+            .map(RedisTokenStore::rotationResult)
+            .defaultIfEmpty(RotationResult.NOT_FOUND)
+            .flatMap(result -> result == RotationResult.ROTATED
+                ? publish(List.of(sessionMessage(username, sessionId))).thenReturn(result)
+                : Mono.just(result));
+    }
+
+    @Override
+    public Mono<String> getAccessTokenId(String username, String sessionId) {
+        return redisTemplate.opsForValue().get(accessKey(username, sessionId));
+    }
+
+    @Override
+    public Mono<List<String>> getAccessTokenIds(List<String> usernames, List<String> sessionIds) {
+        List<String> keys = new ArrayList<>(usernames.size());
+        for (int i = 0; i < usernames.size(); i++) {
+            keys.add(accessKey(usernames.get(i), sessionIds.get(i)));
+        }
+        return redisTemplate.opsForValue().multiGet(keys);
+    }
+
+    @Override
+    public Mono<String> getRefreshTokenId(String username, String sessionId) {
+        return redisTemplate.opsForValue().get(refreshKey(username, sessionId));
+    }
+
+    @Override
+    public Mono<Void> removeSession(String username, String sessionId) {
+        // 三条命令同时发出, Lettuce在同一连接上流水线执行
+        return Mono.when(
+            redisTemplate.delete(accessKey(username, sessionId), refreshKey(username, sessionId)),
+            redisTemplate.opsForZSet().remove(SESSIONS_PREFIX + username, sessionId),
+            redisTemplate.opsForZSet().remove(LIVE_SESSIONS_KEY, liveMember(username, sessionId)))
+            .then(publish(List.of(sessionMessage(username, sessionId))));
+    }
+
+    @Override
+    public Mono<List<String>> removeAllSessions(String username) {
+        Flux<?> sessionIds = redisTemplate.execute(REMOVE_ALL_SESSIONS_SCRIPT,
+            List.of(SESSIONS_PREFIX + username, LIVE_SESSIONS_KEY),
+            List.of(accessKey(username, ""), refreshKey(username, ""), liveMember(username, "")));
+        return sessionIds.collectList()
+            .map(ReactiveRedisTokenStore::sessionIds)
+            .flatMap(removed -> publish(List.of(USER_PREFIX + username)).thenReturn(removed));
+    }
+
+    /**
+     * 消息格式见{@link NearCacheTokenStore}; 发布失败不影响写入结果, 其他实例的缓存最多在max-staleness后过期
+     */
+    private Mono<Void> publish(List<String> messages) {
+        return redisTemplate.convertAndSend(INVALIDATE_CHANNEL, String.join("\n", messages))
+            .onErrorResume(e -> {
+                log.warn("Failed to publish token invalidation: {}", e.getMessage());
+                return Mono.empty();
+            })
+            .then();
+    }
+
+    /**
+     * 多值脚本结果可能逐个元素发出, 也可能作为一个列表发出, 统一展开
+     */
+    private static List<String> sessionIds(List<?> results) {
+        List<String> sessionIds = new ArrayList<>(results.size());
+        for (Object result : results) {
+            if (result instanceof Collection<?> values) {
+                values.forEach(value -> sessionIds.add(String.valueOf(value)));
+            } else if (result != null) {
+                sessionIds.add(String.valueOf(result));
+            }
+        }
+        return sessionIds;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.security.token;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link RevocationStore}写操作的非阻塞版本, 吊销表的读取仍使用RevocationStore的本地内存
+ */
+public interface ReactiveRevocationStore {
+
+    /**
+     * @see RevocationStore#currentVersion
+     */
+    Mono<Long> currentVersion(String username);
+
+    /**
+     * @see RevocationStore#revoke(String)
+     */
+    Mono<Void> revoke(String username);
+
+    /**
+     * @see RevocationStore#revokeSession
+     */
+    Mono<Void> revokeSession(String sessionId);
+}
@@ -0,0 +1,47 @@
+package com.example.security.token;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * {@link TokenStore}的非阻塞版本, 供WebFlux下的validate/refresh/logout使用
+ */
+public interface ReactiveTokenStore {
+
+    /**
+     * @see TokenStore#saveSession
+     * @return 被淘汰的会话id
+     */
+    Mono<List<String>> saveSession(String username, String sessionId, String accessTokenId, long accessTtlSeconds,
+                                   String refreshTokenId, long refreshTtlSeconds, int maxSessions);
+
+    /**
+     * @see TokenStore#rotateSession
+     */
+    Mono<RotationResult> rotateSession(String username, String sessionId, String expectedRefreshTokenId,
+                                       String accessTokenId, long accessTtlSeconds, String refreshTokenId,
+                                       long refreshTtlSeconds);
+
+    /**
+     * 不存在时为空
+     */
+    Mono<String> getAccessTokenId(String username, String sessionId);
+
+    /**
+     * @see TokenStore#getAccessTokenIds
+     */
+    Mono<List<String>> getAccessTokenIds(List<String> usernames, List<String> sessionIds);
+
+    /**
+     * 不存在时为空
+     */
+    Mono<String> getRefreshTokenId(String username, String sessionId);
+
+    Mono<Void> removeSession(String username, String sessionId);
+
+    /**
+     * @return 被移除的会话id
+     */
+    Mono<List<String>> removeAllSessions(String username);
+}
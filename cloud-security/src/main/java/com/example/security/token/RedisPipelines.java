@@ -0,0 +1,36 @@
+package com.example.security.token;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 在同一连接上以pipeline发送一组命令, 只有一次网络往返
+ */
+final class RedisPipelines {
+
+    // 批量操作时每个pipeline包含的用户数
+    static final int BATCH_SIZE = 500;
+
+    private RedisPipelines() {
+    }
+
+    /**
+     * @return 各命令的结果, 顺序与发送顺序一致
+     */
+    @SuppressWarnings("unchecked")
+    static List<Object> pipelined(RedisTemplate<String, String> redisTemplate,
+                                  Consumer<RedisOperations<String, String>> commands) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                commands.accept((RedisOperations<String, String>) operations);
+                return null;
+            }
+        });
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.security.token;
+
+import cn.hutool.core.collection.CollUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * 版本号保存在Redis, 吊销表在本地内存中维护:
+ * 由pub/sub实时推送, 并定时扫描Redis补齐丢失的消息
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jwt.store", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedisRevocationStore implements RevocationStore {
+
+    static final String VERSION_KEY_PREFIX = "token_version:";
+    // 与网关TokenRevocationRegistry保持一致
+    static final String REVOKED_KEY_PREFIX = "token_revoked:";
+    static final String REVOKED_CHANNEL = "token:revoked";
+    static final String SESSION_REVOKED_KEY_PREFIX = "session_revoked:";
+    static final String SESSION_REVOKED_CHANNEL = "token:revoked:session";
+
+    // 递增版本号、写入吊销记录并广播, 一次往返; 返回被吊销的版本
+    // KEYS: 版本key, 吊销key; ARGV: 吊销记录ttl, 广播频道, username
+    static final RedisScript<Long> REVOKE_SCRIPT = RedisScript.of("""
+        local revoked = redis.call('INCR', KEYS[1]) - 1
+        redis.call('SET', KEYS[2], revoked, 'EX', ARGV[1])
+        redis.call('PUBLISH', ARGV[2], ARGV[3] .. ':' .. revoked)
+        return revoked
+        """, Long.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${jwt.refresh-token-expiration}")
+    private long refreshTokenExpiration;
+
+    // username -> 已吊销的最大版本
+    private final Map<String, Revocation> revoked = new ConcurrentHashMap<>();
+    // sid -> 记录时间
+    private final Map<String, Long> revokedSessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        listenerContainer.addMessageListener(
+            (message, pattern) -> onMessage(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(REVOKED_CHANNEL));
+        listenerContainer.addMessageListener(
+            (message, pattern) -> recordSession(new String(message.getBody(), StandardCharsets.UTF_8)),
+            new ChannelTopic(SESSION_REVOKED_CHANNEL));
+    }
+
+    @Override
+    public long currentVersion(String username) {
+        String version = redisTemplate.opsForValue().get(VERSION_KEY_PREFIX + username);
+        return version != null ? Long.parseLong(version) : 0L;
+    }
+
+    @Override
+    public void revoke(String username) {
+        // 吊销记录保留到最长的refresh token过期为止
+        Long revokedVersion = redisTemplate.execute(REVOKE_SCRIPT,
+            List.of(VERSION_KEY_PREFIX + username, REVOKED_KEY_PREFIX + username),
+            String.valueOf(refreshTokenExpiration), REVOKED_CHANNEL, username);
+        record(username, revokedVersion != null ? revokedVersion : 0L);
+    }
+
+    /**
+     * 每批用户两次往返: pipeline递增版本号, 再pipeline写入吊销记录并广播
+     */
+    @Override
+    public void revoke(Collection<String> usernames) {
+        for (List<String> batch : CollUtil.split(usernames, RedisPipelines.BATCH_SIZE)) {
+            List<Object> versions = RedisPipelines.pipelined(redisTemplate, operations ->
+                batch.forEach(username -> operations.opsForValue().increment(VERSION_KEY_PREFIX + username)));
+
+            Map<String, Long> revokedVersions = new LinkedHashMap<>();
+            for (int i = 0; i < batch.size(); i++) {
+                Object next = versions.get(i);
+                revokedVersions.put(batch.get(i), next instanceof Number number ? number.longValue() - 1 : 0L);
+            }
+            RedisPipelines.pipelined(redisTemplate, operations -> revokedVersions.forEach((username, version) -> {
+                operations.opsForValue().set(REVOKED_KEY_PREFIX + username, String.valueOf(version),
+                    refreshTokenExpiration, TimeUnit.SECONDS);
+                operations.convertAndSend(REVOKED_CHANNEL, username + ":" + version);
+            }));
+            revokedVersions.forEach(this::record);
+        }
+    }
+
+    long getRefreshTokenExpiration() {
+        return refreshTokenExpiration;
+    }
+
+    @Override
+    public boolean isRevoked(String username, long version) {
+        Revocation revocation = revoked.get(username);
+        return revocation != null && version <= revocation.version;
+    }
+
+    @Override
+    public void revokeSession(String sessionId) {
+        RedisPipelines.pipelined(redisTemplate, operations -> {
+            operations.opsForValue().set(SESSION_REVOKED_KEY_PREFIX + sessionId, "1",
+                refreshTokenExpiration, TimeUnit.SECONDS);
+            operations.convertAndSend(SESSION_REVOKED_CHANNEL, sessionId);
+        });
+        recordSession(sessionId);
+    }
+
+    @Override
+    public boolean isSessionRevoked(String sessionId) {
+        return revokedSessions.containsKey(sessionId);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${jwt.revocation.poll-interval:30000}")
+    public void poll() {
+        try {
+            scan(REVOKED_KEY_PREFIX, (username, version) -> record(username, Long.parseLong(version)));
+            scan(SESSION_REVOKED_KEY_PREFIX, (sessionId, value) -> recordSession(sessionId));
+        } catch (Exception e) {
+            log.warn("Failed to poll revoked tokens: {}", e.getMessage());
+        }
+
+        long threshold = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(refreshTokenExpiration);
+        revoked.values().removeIf(revocation -> revocation.recordedAt < threshold);
+        revokedSessions.values().removeIf(recordedAt -> recordedAt < threshold);
+    }
+
+    private void scan(String prefix, BiConsumer<String, String> consumer) {
+        ScanOptions options = ScanOptions.scanOptions().match(prefix + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                String value = redisTemplate.opsForValue().get(key);
+                if (value != null) {
+                    consumer.accept(key.substring(prefix.length()), value);
+                }
+            }
+        }
+    }
+
+    private void onMessage(String message) {
+        // 消息格式: username:version
+        int idx = message.lastIndexOf(':');
+        try {
+            record(message.substring(0, idx), Long.parseLong(message.substring(idx + 1)));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed revocation message: {}", message);
+        }
+    }
+
+    void recordSession(String sessionId) {
+        revokedSessions.putIfAbsent(sessionId, System.currentTimeMillis());
+    }
+
+    void record(String username, long version) {
+        revoked.merge(username, new Revocation(version, System.currentTimeMillis()),
+            (current, update) -> update.version > current.version ? update : current);
+    }
+
+    private static class Revocation {
+        private final long version;
+        private final long recordedAt;
+
+        Revocation(long version, long recordedAt) {
+            this.version = version;
+            this.recordedAt = recordedAt;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.security.token;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 密钥保存在一个hash中: signing_keys:encrypted -> {slot: key}, 用HSETNX保证每个周期只生成一个密钥.
+ * 网关共用这个Redis, 私钥由SigningKeyManager用只有本服务持有的主密钥加密后才写入
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.store", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedisSigningKeyStore implements SigningKeyStore {
+
+    // 旧的signing_keys中私钥为明文, 不再读取, 升级后可删除
+    private static final String KEYS_KEY = "signing_keys:encrypted";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @Override
+    public Map<Long, String> loadAll() {
+        Map<Long, String> keys = new HashMap<>();
+        redisTemplate.<String, String>opsForHash().entries(KEYS_KEY)
+            .forEach((slot, key) -> keys.put(Long.parseLong(slot), key));
+        return keys;
+    }
+
+    @Override
+    public boolean putIfAbsent(long slot, String key) {
+        return Boolean.TRUE.equals(redisTemplate.opsForHash().putIfAbsent(KEYS_KEY, String.valueOf(slot), key));
+    }
+
+    @Override
+    public void remove(Collection<Long> slots) {
+        if (!slots.isEmpty()) {
+            redisTemplate.opsForHash().delete(KEYS_KEY, slots.stream().map(String::valueOf).toArray());
+        }
+    }
+}
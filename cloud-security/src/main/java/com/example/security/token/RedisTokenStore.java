@@ -0,0 +1,243 @@
+package com.example.security.token;
+
+import cn.hutool.core.collection.CollUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * key布局:
+ * access_token:{username}:{sid} / refresh_token:{username}:{sid} -> 当前jti
+ * sessions:{username} -> ZSET(sid, 最近一次签发时间)
+ * live_sessions -> ZSET({username}:{sid}, 会话过期时间), 统计在线会话数, 过期成员在每次签发时清理
+ * 签发和登出通过Lua脚本或pipeline一次往返完成
+ * SAVE_SESSION_SCRIPT和REMOVE_ALL_SESSIONS_SCRIPT在脚本中按前缀拼出被淘汰/移除会话的key(会话id在脚本内才确定),
+ * 且与全局的live_sessions在同一脚本中修改, 无法全部声明在KEYS中; 要求单机或主从(Sentinel)部署,
+ * 连接Redis Cluster时启动失败
+ */
+@Component
+@ConditionalOnProperty(name = "jwt.store", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RedisTokenStore implements TokenStore {
+
+    static final String ACCESS_TOKEN_PREFIX = "access_token:";
+    static final String REFRESH_TOKEN_PREFIX = "refresh_token:";
+    static final String SESSIONS_PREFIX = "sessions:";
+    static final String LIVE_SESSIONS_KEY = "live_sessions";
+
+    // 一次往返完成: 写入两个token、登记会话和在线会话、清理过期会话并淘汰超出上限的最早会话
+    // KEYS: access key, refresh key, sessions key, live sessions key
+    // ARGV: access jti(空串表示不保存), access ttl, refresh jti, refresh ttl, sid, now(ms), 会话上限, access key前缀, refresh key前缀,
+    //       live sessions成员前缀
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> SAVE_SESSION_SCRIPT = RedisScript.of("""
+        if ARGV[1] ~= '' then
+            redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2])
+        end
+        redis.call('SET', KEYS[2], ARGV[3], 'EX', ARGV[4])
+        redis.call('ZADD', KEYS[3], ARGV[6], ARGV[5])
+        redis.call('EXPIRE', KEYS[3], ARGV[4])
+        redis.call('ZREMRANGEBYSCORE', KEYS[3], 0, tonumber(ARGV[6]) - tonumber(ARGV[4]) * 1000)
+        redis.call('ZADD', KEYS[4], tonumber(ARGV[6]) + tonumber(ARGV[4]) * 1000, ARGV[10] .. ARGV[5])
+        redis.call('ZREMRANGEBYSCORE', KEYS[4], 0, ARGV[6])
+        local excess = redis.call('ZCARD', KEYS[3]) - tonumber(ARGV[7])
+        if excess <= 0 then
+            return {}
+        end
+        local evicted = redis.call('ZRANGE', KEYS[3], 0, excess - 1)
+        for _, sid in ipairs(evicted) do
+            redis.call('DEL', ARGV[8] .. sid, ARGV[9] .. sid)
+            redis.call('ZREM', KEYS[3], sid)
+            redis.call('ZREM', KEYS[4], ARGV[10] .. sid)
+        end
+        return evicted
+        """, List.class);
+
+    // 刷新时轮换: 会话当前的refresh jti与提交的一致才写入新token, 会话已删除时不重建
+    // KEYS: access key, refresh key, sessions key, live sessions key
+    // ARGV: 提交的refresh jti, access jti(空串表示不保存), access ttl, refresh jti, refresh ttl, sid, now(ms), live sessions成员
+    // 返回: 1 已轮换, 0 会话不存在, -1 refresh jti不一致
+    static final RedisScript<Long> ROTATE_SESSION_SCRIPT = RedisScript.of("""
+        local current = redis.call('GET', KEYS[2])
+        if not current then
+            return 0
+        end
+        if current ~= ARGV[1] then
+            return -1
+        end
+        if ARGV[2] ~= '' then
+            redis.call('SET', KEYS[1], ARGV[2], 'EX', ARGV[3])
+        end
+        redis.call('SET', KEYS[2], ARGV[4], 'EX', ARGV[5])
+        redis.call('ZADD', KEYS[3], ARGV[7], ARGV[6])
+        redis.call('EXPIRE', KEYS[3], ARGV[5])
+        redis.call('ZADD', KEYS[4], tonumber(ARGV[7]) + tonumber(ARGV[5]) * 1000, ARGV[8])
+        return 1
+        """, Long.class);
+
+    // KEYS: sessions key, live sessions key; ARGV: access key前缀, refresh key前缀, live sessions成员前缀
+    @SuppressWarnings("rawtypes")
+    static final RedisScript<List> REMOVE_ALL_SESSIONS_SCRIPT = RedisScript.of("""
+        local sids = redis.call('ZRANGE', KEYS[1], 0, -1)
+        for _, sid in ipairs(sids) do
+            redis.call('DEL', ARGV[1] .. sid, ARGV[2] .. sid)
+            redis.call('ZREM', KEYS[2], ARGV[3] .. sid)
+        end
+        redis.call('DEL', KEYS[1])
+        return sids
+        """, List.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    @PostConstruct
+    public void checkTopology() {
+        // Cluster下未声明的key可能不在脚本所在的slot, 不能等到运行时才报CROSSSLOT或静默写到错误的节点
+        if (redisTemplate.getConnectionFactory() instanceof LettuceConnectionFactory factory && factory.isClusterAware()) {
+            throw new IllegalStateException("RedisTokenStore requires a standalone or sentinel Redis; "
+                + "its Lua scripts derive session keys at runtime and are not supported on Redis Cluster");
+        }
+    }
+
+    @Override
+    public void saveAccessToken(String username, String sessionId, String tokenId, long ttlSeconds) {
+        redisTemplate.opsForValue().set(accessKey(username, sessionId), tokenId, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> saveSession(String username, String sessionId, String accessTokenId, long accessTtlSeconds,
+                                    String refreshTokenId, long refreshTtlSeconds, int maxSessions) {
+        List<String> evicted = redisTemplate.execute(SAVE_SESSION_SCRIPT,
+            List.of(accessKey(username, sessionId), refreshKey(username, sessionId), SESSIONS_PREFIX + username,
+                LIVE_SESSIONS_KEY),
+            accessTokenId != null ? accessTokenId : "", String.valueOf(accessTtlSeconds),
+            refreshTokenId, String.valueOf(refreshTtlSeconds),
+            sessionId, String.valueOf(System.currentTimeMillis()), String.valueOf(maxSessions),
+            accessKey(username, ""), refreshKey(username, ""), liveMember(username, ""));
+        return evicted != null ? evicted : List.of();
+    }
+
+    @Override
+    public RotationResult rotateSession(String username, String sessionId, String expectedRefreshTokenId,
+                                        String accessTokenId, long accessTtlSeconds, String refreshTokenId, long refreshTtlSeconds) {
+        Long result = redisTemplate.execute(ROTATE_SESSION_SCRIPT,
+            List.of(accessKey(username, sessionId), refreshKey(username, sessionId), SESSIONS_PREFIX + username,
+                LIVE_SESSIONS_KEY),
+            expectedRefreshTokenId, accessTokenId != null ? accessTokenId : "", String.valueOf(accessTtlSeconds),
+            refreshTokenId, String.valueOf(refreshTtlSeconds), sessionId, String.valueOf(System.currentTimeMillis()),
+            liveMember(username, sessionId));
+        return rotationResult(result);
+    }
+
+    @Override
+    public String getAccessTokenId(String username, String sessionId) {
+        return redisTemplate.opsForValue().get(accessKey(username, sessionId));
+    }
+
+    /**
+     * 一次MGET
+     */
+    @Override
+    public List<String> getAccessTokenIds(List<String> usernames, List<String> sessionIds) {
+        List<String> keys = new ArrayList<>(usernames.size());
+        for (int i = 0; i < usernames.size(); i++) {
+            keys.add(accessKey(usernames.get(i), sessionIds.get(i)));
+        }
+        List<String> tokenIds = redisTemplate.opsForValue().multiGet(keys);
+        return tokenIds != null ? tokenIds : Collections.nCopies(keys.size(), null);
+    }
+
+    @Override
+    public String getRefreshTokenId(String username, String sessionId) {
+        return redisTemplate.opsForValue().get(refreshKey(username, sessionId));
+    }
+
+    @Override
+    public void removeSession(String username, String sessionId) {
+        RedisPipelines.pipelined(redisTemplate, operations -> {
+            operations.delete(List.of(accessKey(username, sessionId), refreshKey(username, sessionId)));
+            operations.opsForZSet().remove(SESSIONS_PREFIX + username, sessionId);
+            operations.opsForZSet().remove(LIVE_SESSIONS_KEY, liveMember(username, sessionId));
+        });
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<String> removeAllSessions(String username) {
+        List<String> sessionIds = redisTemplate.execute(REMOVE_ALL_SESSIONS_SCRIPT,
+            List.of(SESSIONS_PREFIX + username, LIVE_SESSIONS_KEY),
+            accessKey(username, ""), refreshKey(username, ""), liveMember(username, ""));
+        return sessionIds != null ? sessionIds : List.of();
+    }
+
+    /**
+     * 每批用户两次往返: pipeline读取会话索引, 再删除全部token、索引和在线会话成员
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void removeAllSessions(Collection<String> usernames) {
+        for (List<String> batch : CollUtil.split(usernames, RedisPipelines.BATCH_SIZE)) {
+            List<Object> sessionSets = RedisPipelines.pipelined(redisTemplate, operations ->
+                batch.forEach(username -> operations.opsForZSet().range(SESSIONS_PREFIX + username, 0, -1)));
+
+            List<String> keys = new ArrayList<>();
+            List<Object> liveMembers = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                String username = batch.get(i);
+                Collection<String> sessionIds = (Collection<String>) sessionSets.get(i);
+                if (sessionIds != null) {
+                    for (String sessionId : sessionIds) {
+                        keys.add(accessKey(username, sessionId));
+                        keys.add(refreshKey(username, sessionId));
+                        liveMembers.add(liveMember(username, sessionId));
+                    }
+                }
+                keys.add(SESSIONS_PREFIX + username);
+            }
+            RedisPipelines.pipelined(redisTemplate, operations -> {
+                operations.delete(keys);
+                if (!liveMembers.isEmpty()) {
+                    operations.opsForZSet().remove(LIVE_SESSIONS_KEY, liveMembers.toArray());
+                }
+            });
+        }
+    }
+
+    /**
+     * ZCOUNT, 不遍历会话
+     */
+    @Override
+    public long countLiveSessions() {
+        Long count = redisTemplate.opsForZSet().count(LIVE_SESSIONS_KEY, System.currentTimeMillis(), Double.POSITIVE_INFINITY);
+        return count != null ? count : 0;
+    }
+
+    static RotationResult rotationResult(Long result) {
+        if (result == null || result == 0) {
+            return RotationResult.NOT_FOUND;
+        }
+        return result > 0 ? RotationResult.ROTATED : RotationResult.REUSED;
+    }
+
+    static String accessKey(String username, String sessionId) {
+        return ACCESS_TOKEN_PREFIX + username + ":" + sessionId;
+    }
+
+    static String refreshKey(String username, String sessionId) {
+        return REFRESH_TOKEN_PREFIX + username + ":" + sessionId;
+    }
+
+    static String liveMember(String username, String sessionId) {
+        return username + ":" + sessionId;
+    }
+}
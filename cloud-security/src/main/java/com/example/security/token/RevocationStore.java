@@ -0,0 +1,42 @@
+package com.example.security.token;
+
+import java.util.Collection;
+
+/**
+ * 按用户维护的token版本与吊销表
+ * token签发时携带当前版本(ver), 吊销后版本号递增, 不大于已吊销版本的token全部失效
+ */
+public interface RevocationStore {
+
+    /**
+     * 新签发token应携带的版本
+     */
+    long currentVersion(String username);
+
+    /**
+     * 吊销该用户当前及之前版本的所有token
+     */
+    void revoke(String username);
+
+    /**
+     * 批量吊销多个用户, 如角色变更后
+     */
+    default void revoke(Collection<String> usernames) {
+        usernames.forEach(this::revoke);
+    }
+
+    /**
+     * 只读本地内存, 可在热路径调用
+     */
+    boolean isRevoked(String username, long version);
+
+    /**
+     * 吊销单个会话(设备)签发的所有token
+     */
+    void revokeSession(String sessionId);
+
+    /**
+     * 只读本地内存, 可在热路径调用
+     */
+    boolean isSessionRevoked(String sessionId);
+}
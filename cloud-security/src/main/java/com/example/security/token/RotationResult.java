@@ -0,0 +1,13 @@
+package com.example.security.token;
+
+/**
+ * {@link TokenStore#rotateSession}的结果
+ */
+public enum RotationResult {
+    // 已写入新的token
+    ROTATED,
+    // 会话已登出、被淘汰或过期
+    NOT_FOUND,
+    // 会话当前的refresh token不是提交的token: 旧token重用或并发刷新中的后一个
+    REUSED
+}
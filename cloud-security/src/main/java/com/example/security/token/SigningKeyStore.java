@@ -0,0 +1,29 @@
+package com.example.security.token;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 各实例共享的签名密钥, 按轮换周期编号(slot)保存; 每个周期只有第一个写入的实例生效
+ */
+public interface SigningKeyStore {
+
+    /**
+     * @return slot -> 序列化的密钥
+     */
+    Map<Long, String> loadAll();
+
+    /**
+     * @return 写入成功; 已有其他实例写入时返回false
+     */
+    boolean putIfAbsent(long slot, String key);
+
+    void remove(Collection<Long> slots);
+
+    /**
+     * 其他进程(如共用Redis的网关)是否能读取; 是则私钥必须加密后写入
+     */
+    default boolean shared() {
+        return true;
+    }
+}
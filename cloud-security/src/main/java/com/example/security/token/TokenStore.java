@@ -0,0 +1,93 @@
+package com.example.security.token;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 按会话保存当前有效的token id(jti), 每个用户可同时持有多个会话(设备)
+ */
+public interface TokenStore {
+
+    void saveAccessToken(String username, String sessionId, String tokenId, long ttlSeconds);
+
+    /**
+     * 一次写入会话当前的access token和refresh token并登记到用户的会话索引,
+     * 会话数超出上限时淘汰最早的会话
+     * @param accessTokenId 为null时只保存refresh token(stateless模式)
+     * @return 被淘汰的会话id
+     */
+    List<String> saveSession(String username, String sessionId, String accessTokenId, long accessTtlSeconds,
+                             String refreshTokenId, long refreshTtlSeconds, int maxSessions);
+
+    /**
+     * 轮换会话的token: 会话当前的refresh token为expectedRefreshTokenId时才写入新的一对token,
+     * 比较和写入原子执行. 会话已不存在时不会重新创建, 与登出并发的刷新不会恢复已删除的会话
+     * @param accessTokenId 为null时只保存refresh token(stateless模式)
+     */
+    RotationResult rotateSession(String username, String sessionId, String expectedRefreshTokenId,
+                                 String accessTokenId, long accessTtlSeconds, String refreshTokenId, long refreshTtlSeconds);
+
+    String getAccessTokenId(String username, String sessionId);
+
+    String getRefreshTokenId(String username, String sessionId);
+
+    /**
+     * 会话当前的access token是否为tokenId. 带近端缓存的实现只在缓存一致时不访问Redis,
+     * 不一致或未命中都以Redis为准
+     */
+    default boolean isCurrentAccessToken(String username, String sessionId, String tokenId) {
+        return tokenId.equals(getAccessTokenId(username, sessionId));
+    }
+
+    /**
+     * 同{@link #isCurrentAccessToken}, 用于无副作用的refresh token校验
+     */
+    default boolean isCurrentRefreshToken(String username, String sessionId, String tokenId) {
+        return tokenId.equals(getRefreshTokenId(username, sessionId));
+    }
+
+    /**
+     * 批量读取会话当前的access token id, usernames与sessionIds按下标一一对应
+     * @return 与入参等长, 不存在的位置为null
+     */
+    default List<String> getAccessTokenIds(List<String> usernames, List<String> sessionIds) {
+        List<String> tokenIds = new ArrayList<>(usernames.size());
+        for (int i = 0; i < usernames.size(); i++) {
+            tokenIds.add(getAccessTokenId(usernames.get(i), sessionIds.get(i)));
+        }
+        return tokenIds;
+    }
+
+    /**
+     * {@link #isCurrentAccessToken}的批量版本, 三个列表按下标一一对应
+     * @return 与入参等长
+     */
+    default List<Boolean> areCurrentAccessTokens(List<String> usernames, List<String> sessionIds, List<String> tokenIds) {
+        List<String> currentTokenIds = getAccessTokenIds(usernames, sessionIds);
+        List<Boolean> current = new ArrayList<>(tokenIds.size());
+        for (int i = 0; i < tokenIds.size(); i++) {
+            current.add(i < currentTokenIds.size() && tokenIds.get(i).equals(currentTokenIds.get(i)));
+        }
+        return current;
+    }
+
+    void removeSession(String username, String sessionId);
+
+    /**
+     * @return 被移除的会话id
+     */
+    List<String> removeAllSessions(String username);
+
+    /**
+     * 批量移除多个用户的所有会话
+     */
+    default void removeAllSessions(Collection<String> usernames) {
+        usernames.forEach(this::removeAllSessions);
+    }
+
+    /**
+     * 未过期(refresh token有效期内)且未登出的会话数
+     */
+    long countLiveSessions();
+}
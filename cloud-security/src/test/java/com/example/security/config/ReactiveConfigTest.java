@@ -0,0 +1,36 @@
+package com.example.security.config;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+class ReactiveConfigTest {
+
+    private final WebTestClient client = WebTestClient
+        .bindToRouterFunction(new ReactiveConfig().servletOnlyUserEndpoints())
+        .build();
+
+    @ParameterizedTest(name = "{0} {1}")
+    @CsvSource({
+        "GET,  /auth/users",
+        "GET,  /auth/users/export",
+        "GET,  /auth/users/stats",
+        "POST, /auth/users/import",
+    })
+    void userAdminEndpointsReturnNotImplemented(String method, String path) {
+        client.method(HttpMethod.valueOf(method)).uri(path)
+            .exchange()
+            .expectStatus().isEqualTo(HttpStatus.NOT_IMPLEMENTED)
+            .expectBody().jsonPath("$.error").isEqualTo("User admin endpoints require a servlet deployment");
+    }
+
+    @ParameterizedTest
+    @CsvSource({"/auth/login", "/auth/validate", "/auth/usersx"})
+    void otherPathsAreNotRouted(String path) {
+        client.post().uri(path)
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+}
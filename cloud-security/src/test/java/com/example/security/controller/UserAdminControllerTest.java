@@ -0,0 +1,110 @@
+package com.example.security.controller;
+
+import com.example.security.mapper.RoleMapper;
+import com.example.security.mapper.UserMapper;
+import com.example.security.service.AuthorizationService;
+import com.example.security.service.UserAdminService;
+import com.example.security.support.TestDatabase;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 从HTTP请求到H2数据库的完整链路: 流式导出和游标分页
+ */
+class UserAdminControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private TestDatabase database;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        database = TestDatabase.create();
+        AuthorizationService authorizationService = new AuthorizationService(database.mapper(UserMapper.class),
+            database.mapper(RoleMapper.class), null, null);
+        ReflectionTestUtils.setField(authorizationService, "maximumSize", 1000L);
+        authorizationService.init();
+        UserAdminService userAdminService = new UserAdminService(database.mapper(UserMapper.class),
+            authorizationService);
+        ReflectionTestUtils.setField(userAdminService, "maxPageSize", 500);
+        mockMvc = MockMvcBuilders.standaloneSetup(new UserAdminController(userAdminService, null, objectMapper))
+            .build();
+    }
+
+    @Test
+    void exportsAllUsersAsNdjson() throws Exception {
+        List<JsonNode> rows = export("/auth/users/export");
+
+        assertThat(rows).extracting(row -> row.get("username").asText()).containsExactly("admin", "user");
+        assertThat(roles(rows.get(0))).isEqualTo(Set.of("ADMIN", "USER"));
+        assertThat(roles(rows.get(1))).isEqualTo(Set.of("USER"));
+        assertThat(rows.get(0).has("password")).isFalse();
+        assertThat(rows.get(0).has("roleIds")).isFalse();
+    }
+
+    @Test
+    void exportAppliesFiltersAndCursor() throws Exception {
+        database.jdbc().update("INSERT INTO users (username, password, enabled) VALUES ('disabled', 'x', false)");
+
+        assertThat(export("/auth/users/export?role=ADMIN"))
+            .extracting(row -> row.get("username").asText()).containsExactly("admin");
+        assertThat(export("/auth/users/export?enabled=false"))
+            .extracting(row -> row.get("username").asText()).containsExactly("disabled");
+
+        // 中断后以最后一行的id继续
+        long adminId = export("/auth/users/export").get(0).get("id").asLong();
+        assertThat(export("/auth/users/export?cursor=" + adminId))
+            .extracting(row -> row.get("username").asText()).containsExactly("user", "disabled");
+    }
+
+    @Test
+    void exportRejectsUnknownRole() throws Exception {
+        mockMvc.perform(get("/auth/users/export?role=NOPE"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Unknown role: NOPE"));
+    }
+
+    @Test
+    void listPagesByCursor() throws Exception {
+        mockMvc.perform(get("/auth/users?limit=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[0].username").value("admin"))
+            .andExpect(jsonPath("$.nextCursor").isNumber());
+    }
+
+    private List<JsonNode> export(String uri) throws Exception {
+        String body = mockMvc.perform(get(uri))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andReturn().getResponse().getContentAsString();
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            if (!line.isEmpty()) {
+                rows.add(objectMapper.readTree(line));
+            }
+        }
+        return rows;
+    }
+
+    private static Set<String> roles(JsonNode row) {
+        Set<String> roles = new HashSet<>();
+        row.get("roles").forEach(role -> roles.add(role.asText()));
+        return roles;
+    }
+}
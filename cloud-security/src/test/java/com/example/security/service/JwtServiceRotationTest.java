@@ -0,0 +1,208 @@
+package com.example.security.service;
+
+import com.example.security.dto.AuthResponse;
+import com.example.security.dto.TokenClaims;
+import com.example.security.support.TestRedis;
+import com.example.security.token.InMemorySigningKeyStore;
+import com.example.security.token.NearCacheTokenStore;
+import com.example.security.token.RedisRevocationStore;
+import com.example.security.token.RedisTokenStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 两个实例(各自的近端缓存和吊销表)共用一个Redis: 刷新轮换的原子比较、重用检测和全部登出
+ */
+class JwtServiceRotationTest {
+
+    private static final String USERNAME = "alice";
+    private static final Set<String> ROLES = Set.of("USER");
+    private static final Set<String> PERMISSIONS = Set.of("user:read");
+
+    private static TestRedis redis;
+    private static SigningKeyManager signingKeys;
+    private JwtService first;
+    private JwtService second;
+
+    @BeforeAll
+    static void startRedis() {
+        redis = TestRedis.start();
+        // 两个实例使用同一组签名密钥
+        signingKeys = new SigningKeyManager(new InMemorySigningKeyStore());
+        ReflectionTestUtils.setField(signingKeys, "secret", "test-secret-key-must-be-at-least-256-bits-long!!");
+        ReflectionTestUtils.setField(signingKeys, "algorithm", "HS256");
+        ReflectionTestUtils.setField(signingKeys, "rotationInterval", Duration.ofDays(7));
+        ReflectionTestUtils.setField(signingKeys, "publishAhead", Duration.ofHours(1));
+        ReflectionTestUtils.setField(signingKeys, "refreshTokenExpiration", 86400L);
+        signingKeys.init();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        first = jwtService();
+        second = jwtService();
+    }
+
+    @Test
+    void concurrentRefreshWithSameTokenRotatesOnceAndRevokesSession() throws Exception {
+        AuthResponse login = first.generateTokens(USERNAME, first.newSessionId(), ROLES, PERMISSIONS);
+        TokenClaims claims = first.verifyRefreshToken(login.getRefreshToken());
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<AuthResponse>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                JwtService instance = i % 2 == 0 ? first : second;
+                Callable<AuthResponse> refresh = () -> {
+                    start.await();
+                    return instance.rotateTokens(claims, ROLES, PERMISSIONS);
+                };
+                results.add(executor.submit(refresh));
+            }
+            start.countDown();
+
+            List<AuthResponse> rotated = new ArrayList<>();
+            for (Future<AuthResponse> result : results) {
+                rotated.add(result.get());
+            }
+            AuthResponse winner = rotated.stream().filter(Objects::nonNull).findFirst().orElseThrow();
+            assertThat(rotated).filteredOn(Objects::nonNull).hasSize(1);
+            // 其余请求提交的是已轮换掉的token, 按泄露处理, 整个会话被吊销
+            await(() -> first.validateAccessToken(winner.getAccessToken()) == null);
+            await(() -> second.validateAccessToken(winner.getAccessToken()) == null);
+            assertThat(second.verifyRefreshToken(winner.getRefreshToken())).isNull();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rotationSupersedesOldTokensOnOtherInstance() {
+        AuthResponse login = first.generateTokens(USERNAME, first.newSessionId(), ROLES, PERMISSIONS);
+        // second缓存旧access token
+        assertThat(second.validateAccessToken(login.getAccessToken())).isNotNull();
+
+        AuthResponse rotated = first.rotateTokens(first.verifyRefreshToken(login.getRefreshToken()), ROLES, PERMISSIONS);
+
+        assertThat(rotated).isNotNull();
+        await(() -> second.validateAccessToken(login.getAccessToken()) == null);
+        assertThat(second.validateAccessToken(rotated.getAccessToken())).isNotNull();
+        assertThat(second.validateRefreshToken(login.getRefreshToken())).isNull();
+        assertThat(second.validateRefreshToken(rotated.getRefreshToken())).isNotNull();
+    }
+
+    @Test
+    void reusingRotatedRefreshTokenRevokesSession() {
+        AuthResponse login = first.generateTokens(USERNAME, first.newSessionId(), ROLES, PERMISSIONS);
+        TokenClaims original = first.verifyRefreshToken(login.getRefreshToken());
+        AuthResponse rotated = first.rotateTokens(original, ROLES, PERMISSIONS);
+        assertThat(rotated).isNotNull();
+
+        // 旧refresh token在另一个实例上再次使用
+        assertThat(second.rotateTokens(second.verifyRefreshToken(login.getRefreshToken()), ROLES, PERMISSIONS)).isNull();
+
+        assertThat(second.validateAccessToken(rotated.getAccessToken())).isNull();
+        await(() -> first.validateAccessToken(rotated.getAccessToken()) == null);
+        assertThat(first.verifyRefreshToken(rotated.getRefreshToken())).isNull();
+    }
+
+    @Test
+    void refreshAfterLogoutDoesNotRecreateSession() {
+        String sessionId = first.newSessionId();
+        AuthResponse login = first.generateTokens(USERNAME, sessionId, ROLES, PERMISSIONS);
+        TokenClaims claims = first.verifyRefreshToken(login.getRefreshToken());
+
+        second.invalidateSession(USERNAME, sessionId);
+
+        assertThat(first.rotateTokens(claims, ROLES, PERMISSIONS)).isNull();
+        assertThat(redis.template().hasKey("refresh_token:" + USERNAME + ":" + sessionId)).isFalse();
+    }
+
+    @Test
+    void revokeAllRejectsEverySessionOnEveryInstance() {
+        AuthResponse phone = first.generateTokens(USERNAME, first.newSessionId(), ROLES, PERMISSIONS);
+        AuthResponse laptop = second.generateTokens(USERNAME, second.newSessionId(), ROLES, PERMISSIONS);
+        AuthResponse other = first.generateTokens("bob", first.newSessionId(), ROLES, PERMISSIONS);
+        assertThat(first.validateAccessTokens(List.of(phone.getAccessToken(), laptop.getAccessToken())))
+            .doesNotContainNull();
+
+        second.invalidateTokens(USERNAME);
+
+        await(() -> first.validateAccessToken(phone.getAccessToken()) == null);
+        List<TokenClaims> validated = first.validateAccessTokens(List.of(phone.getAccessToken(),
+            laptop.getAccessToken(), other.getAccessToken()));
+        assertThat(validated.get(0)).isNull();
+        assertThat(validated.get(1)).isNull();
+        assertThat(validated.get(2).getSubject()).isEqualTo("bob");
+        assertThat(first.verifyRefreshToken(laptop.getRefreshToken())).isNull();
+        assertThat(redis.template().keys("*_token:" + USERNAME + ":*")).isEmpty();
+        assertThat(redis.template().hasKey("sessions:" + USERNAME)).isFalse();
+    }
+
+    private static JwtService jwtService() {
+        RedisTokenStore redisTokenStore = new RedisTokenStore(redis.template());
+        NearCacheTokenStore tokenStore = new NearCacheTokenStore(redisTokenStore, redis.template(),
+            redis.listenerContainer(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tokenStore, "maximumSize", 1000L);
+        ReflectionTestUtils.setField(tokenStore, "maxStaleness", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(tokenStore, "heartbeatTimeout", Duration.ofMinutes(1));
+        tokenStore.init();
+        await(() -> {
+            tokenStore.heartbeat();
+            return Boolean.TRUE.equals(ReflectionTestUtils.invokeMethod(tokenStore, "available"));
+        });
+
+        RedisRevocationStore revocationStore = new RedisRevocationStore(redis.template(), redis.listenerContainer());
+        ReflectionTestUtils.setField(revocationStore, "refreshTokenExpiration", 86400L);
+        revocationStore.init();
+
+        JwtService jwtService = new JwtService(tokenStore, revocationStore, new SimpleMeterRegistry(), signingKeys,
+            mock(AuthorizationService.class));
+        ReflectionTestUtils.setField(jwtService, "accessTokenExpiration", 3600L);
+        ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", 86400L);
+        ReflectionTestUtils.setField(jwtService, "tokenMode", "redis");
+        ReflectionTestUtils.setField(jwtService, "claimsFormat", "full");
+        ReflectionTestUtils.setField(jwtService, "maxSessionsPerUser", 10);
+        jwtService.init();
+        return jwtService;
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
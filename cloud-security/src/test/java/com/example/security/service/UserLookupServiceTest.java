@@ -0,0 +1,99 @@
+package com.example.security.service;
+
+import com.example.security.mapper.UserMapper;
+import com.example.security.support.TestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserLookupServiceTest {
+
+    private TestDatabase database;
+    private SimpleMeterRegistry meterRegistry;
+    private UserLookupService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        database = TestDatabase.create();
+        meterRegistry = new SimpleMeterRegistry();
+        // users:recent为空
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        ZSetOperations<String, String> recent = mock(ZSetOperations.class);
+        when(recent.score(anyString(), anyString())).thenReturn(null);
+        when(redisTemplate.opsForZSet()).thenReturn(recent);
+        service = new UserLookupService(database.mapper(UserMapper.class), redisTemplate, meterRegistry);
+        ReflectionTestUtils.setField(service, "ttl", 600L);
+        ReflectionTestUtils.setField(service, "maximumSize", 1000L);
+        ReflectionTestUtils.setField(service, "bloomEnabled", true);
+        ReflectionTestUtils.setField(service, "expectedInsertions", 1000L);
+        ReflectionTestUtils.setField(service, "fpp", 0.001);
+        ReflectionTestUtils.setField(service, "rebuildInterval", 3600000L);
+    }
+
+    @Test
+    void buildsFilterFromMapperOnStartup() {
+        service.init();
+
+        assertThat(rebuilds("success")).isEqualTo(1);
+        assertThat(service.mightExist("admin")).isTrue();
+        assertThat(service.mightExist("user")).isTrue();
+        assertThat(service.mightExist("nobody")).isFalse();
+
+        assertThat(service.find("nobody")).isNull();
+        assertThat(lookups("filtered")).isEqualTo(1);
+        assertThat(service.find("admin").getUsername()).isEqualTo("admin");
+        assertThat(lookups("loaded")).isEqualTo(1);
+    }
+
+    @Test
+    void failsStartupWhenFilterCannotBeBuilt() {
+        database.jdbc().execute("DROP TABLE user_roles");
+        database.jdbc().execute("DROP TABLE users");
+
+        assertThatThrownBy(service::init).isInstanceOf(RuntimeException.class);
+        assertThat(rebuilds("failure")).isEqualTo(1);
+    }
+
+    @Test
+    void keepsPreviousFilterWhenScheduledRebuildFails() {
+        service.init();
+        database.jdbc().execute("DROP TABLE user_roles");
+        database.jdbc().execute("DROP TABLE users");
+
+        service.rebuildFilter();
+
+        assertThat(rebuilds("failure")).isEqualTo(1);
+        assertThat(service.mightExist("admin")).isTrue();
+        assertThat(service.mightExist("nobody")).isFalse();
+    }
+
+    @Test
+    void rebuildPicksUpRowsInsertedSinceLastBuild() {
+        service.init();
+        database.jdbc().update("INSERT INTO users (username, password) VALUES ('late', 'x')");
+        assertThat(service.mightExist("late")).isFalse();
+
+        service.rebuildFilter();
+
+        assertThat(rebuilds("success")).isEqualTo(2);
+        assertThat(service.mightExist("late")).isTrue();
+    }
+
+    private double rebuilds(String outcome) {
+        return meterRegistry.counter("user.lookup.bloom.rebuild", "outcome", outcome).count();
+    }
+
+    private double lookups(String outcome) {
+        return meterRegistry.counter("user.lookup", "outcome", outcome).count();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.security.support;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSessionManager;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 测试用H2内存库(MySQL模式), 加载db/schema.sql和db/data.sql, 通过MyBatis-Plus构建真实的Mapper
+ */
+public final class TestDatabase {
+
+    private final DataSource dataSource;
+    private final SqlSessionManager sessions;
+
+    private TestDatabase(DataSource dataSource) {
+        this.dataSource = dataSource;
+        MybatisConfiguration configuration = new MybatisConfiguration(
+            new Environment("test", new JdbcTransactionFactory(), dataSource));
+        configuration.setMapUnderscoreToCamelCase(true);
+        configuration.addMappers("com.example.security.mapper");
+        this.sessions = SqlSessionManager.newInstance(new MybatisSqlSessionFactoryBuilder().build(configuration));
+    }
+
+    public static TestDatabase create() {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + UUID.randomUUID()
+            + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1");
+        DataSource dataSource = ignoreNegativeFetchSize(h2, DataSource.class);
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, script("db/schema.sql"));
+            ScriptUtils.executeSqlScript(connection, script("db/data.sql"));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return new TestDatabase(dataSource);
+    }
+
+    /**
+     * 每次调用在独立的会话中执行并提交
+     */
+    public <T> T mapper(Class<T> type) {
+        return sessions.getMapper(type);
+    }
+
+    public JdbcTemplate jdbc() {
+        return new JdbcTemplate(dataSource);
+    }
+
+    // 去掉MySQL的CREATE DATABASE/USE语句, 其余按原样执行
+    private static ByteArrayResource script(String path) {
+        try {
+            String sql = new ClassPathResource(path).getContentAsString(StandardCharsets.UTF_8).lines()
+                .filter(line -> !line.startsWith("CREATE DATABASE") && !line.startsWith("USE "))
+                .collect(Collectors.joining("\n"));
+            return new ByteArrayResource(sql.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 流式读取的fetchSize=Integer.MIN_VALUE是MySQL驱动的约定, H2不接受负值, 忽略即可
+    @SuppressWarnings("unchecked")
+    private static <T> T ignoreNegativeFetchSize(T target, Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals("setFetchSize") && (int) args[0] < 0) {
+                return null;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            Class<?> returnType = method.getReturnType();
+            if (returnType == Connection.class || Statement.class.isAssignableFrom(returnType)) {
+                return ignoreNegativeFetchSize(result, (Class<Object>) returnType);
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.security.support;
+
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 测试用Redis: 每个测试类启动一个redis-server进程(随机端口, 不持久化), 连接方式与application.yml一致(Lettuce)
+ */
+public final class TestRedis implements AutoCloseable {
+
+    private final RedisServer server;
+    private final LettuceConnectionFactory connectionFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final List<RedisMessageListenerContainer> listenerContainers = new ArrayList<>();
+
+    private TestRedis(int port) throws IOException {
+        this.server = RedisServer.newRedisServer()
+            .port(port)
+            .bind("127.0.0.1")
+            .setting("save \"\"")
+            .setting("appendonly no")
+            .build();
+        server.start();
+        this.connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", port));
+        connectionFactory.afterPropertiesSet();
+        this.redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    public static TestRedis start() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            int port = socket.getLocalPort();
+            socket.close();
+            return new TestRedis(port);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public StringRedisTemplate template() {
+        return redisTemplate;
+    }
+
+    public ReactiveStringRedisTemplate reactiveTemplate() {
+        return new ReactiveStringRedisTemplate(connectionFactory);
+    }
+
+    /**
+     * 每个调用方一个订阅连接, 模拟多个服务实例
+     */
+    public RedisMessageListenerContainer listenerContainer() {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.afterPropertiesSet();
+        container.start();
+        listenerContainers.add(container);
+        return container;
+    }
+
+    public void flushAll() {
+        redisTemplate.execute(connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        }, true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (RedisMessageListenerContainer container : listenerContainers) {
+            container.stop();
+        }
+        connectionFactory.destroy();
+        server.stop();
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.security.token;
+
+import com.example.security.support.TestRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 两个实例共用一个Redis: 一个实例写会话后, 另一个实例的近端缓存不能继续放行旧token
+ */
+class NearCacheTokenStoreTest {
+
+    private static final long ACCESS_TTL = 3600;
+    private static final long REFRESH_TTL = 86400;
+    // 远大于测试耗时, 旧值只能靠失效通知清除
+    private static final Duration MAX_STALENESS = Duration.ofMinutes(10);
+
+    private static TestRedis redis;
+    private NearCacheTokenStore first;
+    private NearCacheTokenStore second;
+
+    @BeforeAll
+    static void startRedis() {
+        redis = TestRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        first = nearCache(new RedisTokenStore(redis.template()));
+        second = nearCache(new RedisTokenStore(redis.template()));
+        awaitAvailable(first);
+        awaitAvailable(second);
+    }
+
+    @Test
+    void rotationOnOtherInstanceInvalidatesCachedAccessToken() {
+        second.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10);
+        // first缓存a1
+        assertThat(first.isCurrentAccessToken("alice", "s1", "a1")).isTrue();
+
+        assertThat(second.rotateSession("alice", "s1", "r1", "a2", ACCESS_TTL, "r2", REFRESH_TTL))
+            .isEqualTo(RotationResult.ROTATED);
+
+        await(() -> !first.isCurrentAccessToken("alice", "s1", "a1"));
+        assertThat(first.isCurrentAccessToken("alice", "s1", "a2")).isTrue();
+        assertThat(first.isCurrentRefreshToken("alice", "s1", "r2")).isTrue();
+    }
+
+    @Test
+    void logoutOnOtherInstanceInvalidatesCachedSession() {
+        second.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10);
+        assertThat(first.isCurrentAccessToken("alice", "s1", "a1")).isTrue();
+        assertThat(first.isCurrentRefreshToken("alice", "s1", "r1")).isTrue();
+
+        second.removeSession("alice", "s1");
+
+        await(() -> !first.isCurrentAccessToken("alice", "s1", "a1"));
+        assertThat(first.isCurrentRefreshToken("alice", "s1", "r1")).isFalse();
+    }
+
+    @Test
+    void revokeAllOnOtherInstanceInvalidatesEverySessionOfUser() {
+        second.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10);
+        second.saveSession("alice", "s2", "a2", ACCESS_TTL, "r2", REFRESH_TTL, 10);
+        second.saveSession("bob", "s3", "a3", ACCESS_TTL, "r3", REFRESH_TTL, 10);
+        assertThat(first.areCurrentAccessTokens(List.of("alice", "alice", "bob"), List.of("s1", "s2", "s3"),
+            List.of("a1", "a2", "a3"))).containsExactly(true, true, true);
+
+        second.removeAllSessions(List.of("alice"));
+
+        await(() -> !first.isCurrentAccessToken("alice", "s1", "a1"));
+        assertThat(first.areCurrentAccessTokens(List.of("alice", "alice", "bob"), List.of("s1", "s2", "s3"),
+            List.of("a1", "a2", "a3"))).containsExactly(false, false, true);
+    }
+
+    @Test
+    void evictionOnOtherInstanceInvalidatesEvictedSession() {
+        second.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 1);
+        assertThat(first.isCurrentAccessToken("alice", "s1", "a1")).isTrue();
+
+        assertThat(second.saveSession("alice", "s2", "a2", ACCESS_TTL, "r2", REFRESH_TTL, 1)).containsExactly("s1");
+
+        await(() -> !first.isCurrentAccessToken("alice", "s1", "a1"));
+    }
+
+    @Test
+    void invalidationDuringLoadIsNotOverwrittenByStaleValue() {
+        redis.template().opsForValue().set("access_token:alice:s1", "a1");
+        NearCacheTokenStore[] self = new NearCacheTokenStore[1];
+        // 读到a1之后、写入缓存之前, 本实例轮换了该会话
+        RedisTokenStore delegate = new RedisTokenStore(redis.template()) {
+            private boolean rotated;
+
+            @Override
+            public String getAccessTokenId(String username, String sessionId) {
+                String value = super.getAccessTokenId(username, sessionId);
+                if (!rotated) {
+                    rotated = true;
+                    self[0].saveAccessToken(username, sessionId, "a2", ACCESS_TTL);
+                }
+                return value;
+            }
+        };
+        self[0] = nearCache(delegate);
+        awaitAvailable(self[0]);
+
+        assertThat(self[0].isCurrentAccessToken("alice", "s1", "a1")).isTrue();
+
+        assertThat(self[0].isCurrentAccessToken("alice", "s1", "a1")).isFalse();
+        assertThat(self[0].isCurrentAccessToken("alice", "s1", "a2")).isTrue();
+    }
+
+    @Test
+    void bypassesCacheWhileSubscriptionIsSilent() {
+        StringRedisTemplate template = redis.template();
+        second.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10);
+        assertThat(first.isCurrentAccessToken("alice", "s1", "a1")).isTrue();
+        // 超过heartbeat-timeout没有消息
+        ReflectionTestUtils.setField(first, "lastMessageNanos", System.nanoTime() - Duration.ofMinutes(1).toNanos());
+        assertThat(first.available()).isFalse();
+
+        // 绕过通知直接改写Redis
+        template.opsForValue().set("access_token:alice:s1", "a2");
+
+        assertThat(first.isCurrentAccessToken("alice", "s1", "a1")).isFalse();
+    }
+
+    private static NearCacheTokenStore nearCache(RedisTokenStore delegate) {
+        NearCacheTokenStore store = new NearCacheTokenStore(delegate, redis.template(), redis.listenerContainer(),
+            new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(store, "maximumSize", 1000L);
+        ReflectionTestUtils.setField(store, "maxStaleness", MAX_STALENESS);
+        ReflectionTestUtils.setField(store, "heartbeatTimeout", Duration.ofMinutes(1));
+        store.init();
+        return store;
+    }
+
+    private static void awaitAvailable(NearCacheTokenStore store) {
+        await(() -> {
+            store.heartbeat();
+            return store.available();
+        });
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
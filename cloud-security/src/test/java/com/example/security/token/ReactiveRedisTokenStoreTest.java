@@ -0,0 +1,135 @@
+package com.example.security.token;
+
+import com.example.security.support.TestRedis;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 混合部署: reactive实例写会话后, servlet实例的近端缓存不能继续放行旧token
+ */
+class ReactiveRedisTokenStoreTest {
+
+    private static final long ACCESS_TTL = 3600;
+    private static final long REFRESH_TTL = 86400;
+
+    private static TestRedis redis;
+    private ReactiveRedisTokenStore reactive;
+    private NearCacheTokenStore servlet;
+
+    @BeforeAll
+    static void startRedis() {
+        redis = TestRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        reactive = new ReactiveRedisTokenStore(redis.reactiveTemplate());
+        servlet = new NearCacheTokenStore(new RedisTokenStore(redis.template()), redis.template(),
+            redis.listenerContainer(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(servlet, "maximumSize", 1000L);
+        // 远大于测试耗时, 旧值只能靠失效通知清除
+        ReflectionTestUtils.setField(servlet, "maxStaleness", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(servlet, "heartbeatTimeout", Duration.ofMinutes(1));
+        servlet.init();
+        await(() -> {
+            servlet.heartbeat();
+            return servlet.available();
+        });
+    }
+
+    @Test
+    void rotationInvalidatesCachedAccessToken() {
+        reactive.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10).block();
+        assertThat(servlet.isCurrentAccessToken("alice", "s1", "a1")).isTrue();
+        assertThat(servlet.isCurrentRefreshToken("alice", "s1", "r1")).isTrue();
+
+        assertThat(reactive.rotateSession("alice", "s1", "r1", "a2", ACCESS_TTL, "r2", REFRESH_TTL).block())
+            .isEqualTo(RotationResult.ROTATED);
+
+        // 通知异步分发, 签发时的通知可能晚到, 等到两个缓存项都失效
+        await(() -> !servlet.isCurrentAccessToken("alice", "s1", "a1")
+            && !servlet.isCurrentRefreshToken("alice", "s1", "r1"));
+        assertThat(servlet.isCurrentAccessToken("alice", "s1", "a2")).isTrue();
+        assertThat(servlet.isCurrentRefreshToken("alice", "s1", "r2")).isTrue();
+    }
+
+    @Test
+    void rejectedRotationKeepsSession() {
+        reactive.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10).block();
+
+        assertThat(reactive.rotateSession("alice", "s1", "stale", "a2", ACCESS_TTL, "r2", REFRESH_TTL).block())
+            .isEqualTo(RotationResult.REUSED);
+        assertThat(reactive.rotateSession("alice", "s9", "r1", "a2", ACCESS_TTL, "r2", REFRESH_TTL).block())
+            .isEqualTo(RotationResult.NOT_FOUND);
+
+        assertThat(servlet.isCurrentAccessToken("alice", "s1", "a1")).isTrue();
+        assertThat(reactive.getRefreshTokenId("alice", "s1").block()).isEqualTo("r1");
+    }
+
+    @Test
+    void logoutInvalidatesCachedSession() {
+        reactive.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10).block();
+        assertThat(servlet.isCurrentAccessToken("alice", "s1", "a1")).isTrue();
+
+        reactive.removeSession("alice", "s1").block();
+
+        await(() -> !servlet.isCurrentAccessToken("alice", "s1", "a1")
+            && !servlet.isCurrentRefreshToken("alice", "s1", "r1"));
+        assertThat(servlet.countLiveSessions()).isZero();
+    }
+
+    @Test
+    void revokeAllInvalidatesEverySessionOfUser() {
+        reactive.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10).block();
+        reactive.saveSession("alice", "s2", "a2", ACCESS_TTL, "r2", REFRESH_TTL, 10).block();
+        reactive.saveSession("bob", "s3", "a3", ACCESS_TTL, "r3", REFRESH_TTL, 10).block();
+        assertThat(servlet.areCurrentAccessTokens(List.of("alice", "alice", "bob"), List.of("s1", "s2", "s3"),
+            List.of("a1", "a2", "a3"))).containsExactly(true, true, true);
+
+        assertThat(reactive.removeAllSessions("alice").block()).containsExactlyInAnyOrder("s1", "s2");
+
+        await(() -> servlet.areCurrentAccessTokens(List.of("alice", "alice", "bob"), List.of("s1", "s2", "s3"),
+            List.of("a1", "a2", "a3")).equals(List.of(false, false, true)));
+    }
+
+    @Test
+    void evictionInvalidatesEvictedSession() {
+        reactive.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 1).block();
+        assertThat(servlet.isCurrentAccessToken("alice", "s1", "a1")).isTrue();
+
+        assertThat(reactive.saveSession("alice", "s2", "a2", ACCESS_TTL, "r2", REFRESH_TTL, 1).block())
+            .containsExactly("s1");
+
+        await(() -> !servlet.isCurrentAccessToken("alice", "s1", "a1"));
+        assertThat(servlet.isCurrentAccessToken("alice", "s2", "a2")).isTrue();
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5s").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
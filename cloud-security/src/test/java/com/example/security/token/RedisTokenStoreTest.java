@@ -0,0 +1,185 @@
+package com.example.security.token;
+
+import com.example.security.support.TestRedis;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SAVE_SESSION / ROTATE_SESSION / REMOVE_ALL_SESSIONS脚本在真实Redis上的行为
+ */
+class RedisTokenStoreTest {
+
+    private static final long ACCESS_TTL = 3600;
+    private static final long REFRESH_TTL = 86400;
+
+    private static TestRedis redis;
+    private StringRedisTemplate redisTemplate;
+    private RedisTokenStore store;
+
+    @BeforeAll
+    static void startRedis() {
+        redis = TestRedis.start();
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        redis.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redis.flushAll();
+        redisTemplate = redis.template();
+        store = new RedisTokenStore(redisTemplate);
+    }
+
+    @Test
+    void saveSessionWritesTokensAndIndexes() {
+        List<String> evicted = store.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10);
+
+        assertThat(evicted).isEmpty();
+        assertThat(store.getAccessTokenId("alice", "s1")).isEqualTo("a1");
+        assertThat(store.getRefreshTokenId("alice", "s1")).isEqualTo("r1");
+        assertThat(redisTemplate.opsForZSet().range("sessions:alice", 0, -1)).containsExactly("s1");
+        assertThat(redisTemplate.getExpire("refresh_token:alice:s1")).isBetween(REFRESH_TTL - 5, REFRESH_TTL);
+        assertThat(store.countLiveSessions()).isEqualTo(1);
+    }
+
+    @Test
+    void saveSessionWithoutAccessTokenKeepsOnlyRefreshToken() {
+        store.saveSession("alice", "s1", null, ACCESS_TTL, "r1", REFRESH_TTL, 10);
+
+        assertThat(store.getAccessTokenId("alice", "s1")).isNull();
+        assertThat(store.getRefreshTokenId("alice", "s1")).isEqualTo("r1");
+    }
+
+    @Test
+    void saveSessionEvictsOldestSessionsOverLimit() throws InterruptedException {
+        for (int i = 1; i <= 3; i++) {
+            assertThat(store.saveSession("alice", "s" + i, "a" + i, ACCESS_TTL, "r" + i, REFRESH_TTL, 3)).isEmpty();
+            // 会话按签发时间(ms)排序
+            Thread.sleep(5);
+        }
+
+        List<String> evicted = store.saveSession("alice", "s4", "a4", ACCESS_TTL, "r4", REFRESH_TTL, 2);
+
+        assertThat(evicted).containsExactly("s1", "s2");
+        assertThat(store.getAccessTokenId("alice", "s1")).isNull();
+        assertThat(store.getRefreshTokenId("alice", "s2")).isNull();
+        assertThat(redisTemplate.opsForZSet().range("sessions:alice", 0, -1)).containsExactly("s3", "s4");
+        assertThat(store.countLiveSessions()).isEqualTo(2);
+    }
+
+    @Test
+    void rotateSessionComparesAndSwaps() {
+        store.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10);
+
+        assertThat(store.rotateSession("alice", "s1", "r1", "a2", ACCESS_TTL, "r2", REFRESH_TTL))
+            .isEqualTo(RotationResult.ROTATED);
+        assertThat(store.getAccessTokenId("alice", "s1")).isEqualTo("a2");
+        assertThat(store.getRefreshTokenId("alice", "s1")).isEqualTo("r2");
+
+        // 旧的refresh token再次使用
+        assertThat(store.rotateSession("alice", "s1", "r1", "a3", ACCESS_TTL, "r3", REFRESH_TTL))
+            .isEqualTo(RotationResult.REUSED);
+        assertThat(store.getRefreshTokenId("alice", "s1")).isEqualTo("r2");
+    }
+
+    @Test
+    void rotateSessionDoesNotRecreateRemovedSession() {
+        store.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10);
+        store.removeSession("alice", "s1");
+
+        assertThat(store.rotateSession("alice", "s1", "r1", "a2", ACCESS_TTL, "r2", REFRESH_TTL))
+            .isEqualTo(RotationResult.NOT_FOUND);
+        assertThat(store.getAccessTokenId("alice", "s1")).isNull();
+        assertThat(store.getRefreshTokenId("alice", "s1")).isNull();
+        assertThat(redisTemplate.hasKey("sessions:alice")).isFalse();
+        assertThat(store.countLiveSessions()).isZero();
+    }
+
+    @Test
+    void concurrentRotationsOfSameRefreshTokenHaveOneWinner() throws Exception {
+        store.saveSession("alice", "s1", "a0", ACCESS_TTL, "r0", REFRESH_TTL, 10);
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<RotationResult>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                String suffix = String.valueOf(i + 1);
+                Callable<RotationResult> rotation = () -> {
+                    start.await();
+                    return store.rotateSession("alice", "s1", "r0", "a" + suffix, ACCESS_TTL, "r" + suffix, REFRESH_TTL);
+                };
+                results.add(executor.submit(rotation));
+            }
+            start.countDown();
+
+            List<RotationResult> outcomes = new ArrayList<>();
+            for (Future<RotationResult> result : results) {
+                outcomes.add(result.get());
+            }
+            assertThat(outcomes).filteredOn(outcome -> outcome == RotationResult.ROTATED).hasSize(1);
+            assertThat(outcomes).filteredOn(outcome -> outcome == RotationResult.REUSED).hasSize(threads - 1);
+            // 胜出者写入的一对token保持一致
+            String refresh = store.getRefreshTokenId("alice", "s1");
+            String access = store.getAccessTokenId("alice", "s1");
+            assertThat(access.substring(1)).isEqualTo(refresh.substring(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void removeAllSessionsDeletesEveryKeyOfUser() {
+        store.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10);
+        store.saveSession("alice", "s2", "a2", ACCESS_TTL, "r2", REFRESH_TTL, 10);
+        store.saveSession("bob", "s3", "a3", ACCESS_TTL, "r3", REFRESH_TTL, 10);
+
+        assertThat(store.removeAllSessions("alice")).containsExactlyInAnyOrder("s1", "s2");
+
+        assertThat(redisTemplate.keys("*alice*")).isEmpty();
+        assertThat(redisTemplate.opsForZSet().range("live_sessions", 0, -1)).containsExactly("bob:s3");
+        assertThat(store.getAccessTokenId("bob", "s3")).isEqualTo("a3");
+        assertThat(store.rotateSession("alice", "s1", "r1", "a9", ACCESS_TTL, "r9", REFRESH_TTL))
+            .isEqualTo(RotationResult.NOT_FOUND);
+    }
+
+    @Test
+    void batchRemoveAllSessionsDeletesEveryKeyOfEachUser() {
+        store.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10);
+        store.saveSession("bob", "s2", "a2", ACCESS_TTL, "r2", REFRESH_TTL, 10);
+        store.saveSession("carol", "s3", "a3", ACCESS_TTL, "r3", REFRESH_TTL, 10);
+
+        store.removeAllSessions(List.of("alice", "bob", "nobody"));
+
+        assertThat(redisTemplate.keys("*alice*")).isEmpty();
+        assertThat(redisTemplate.keys("*bob*")).isEmpty();
+        assertThat(store.countLiveSessions()).isEqualTo(1);
+        assertThat(store.getAccessTokenId("carol", "s3")).isEqualTo("a3");
+    }
+
+    @Test
+    void getAccessTokenIdsReadsInOneBatch() {
+        store.saveSession("alice", "s1", "a1", ACCESS_TTL, "r1", REFRESH_TTL, 10);
+
+        assertThat(store.getAccessTokenIds(List.of("alice", "alice"), List.of("s1", "missing")))
+            .containsExactly("a1", null);
+        assertThat(store.areCurrentAccessTokens(List.of("alice", "alice"), List.of("s1", "s1"), List.of("a1", "old")))
+            .containsExactly(true, false);
+    }
+}